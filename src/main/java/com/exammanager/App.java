@@ -1,9 +1,18 @@
 package com.exammanager;
 
 import com.exammanager.login.AccessLevel;
-import com.exammanager.login.LoginAuth;
+import com.exammanager.login.LoginTask;
+import com.exammanager.login.LoginThrottledException;
+import com.exammanager.login.Session;
+import com.exammanager.login.SessionManager;
 import com.exammanager.util.AlertUtil;
+import com.exammanager.util.BackgroundExecutor;
+import com.exammanager.util.ConnectionProvider;
+import com.exammanager.util.DatabaseConnection;
+import com.exammanager.util.MigrationRunner;
+import com.exammanager.util.PasswordCryptography;
 import javafx.application.Application;
+import javafx.concurrent.Task;
 import javafx.scene.Scene;
 import javafx.stage.Stage;
 
@@ -11,6 +20,9 @@ import com.exammanager.view.MainView;
 
 import com.exammanager.login.LoginView;
 
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Arrays;
 import java.util.Optional;
 
 // TODO! UPDATE DOCUMENTATION WHEN LOGIN IS ADDED
@@ -30,6 +42,9 @@ public class App extends Application {
 
     private MainView mainView;
 
+    // The login currently being checked in the background, if any
+    private LoginTask loginTask;
+
     @Override
     public void start(Stage stage) {
         LoginView loginView = new LoginView();
@@ -39,25 +54,107 @@ public class App extends Application {
         stage.setScene(loginScene);
         stage.show();
 
-        loginView.getLoginButton().setOnAction(e -> {
-            String email = loginView.getEmailField().getText();
-            String password = loginView.getPasswordField().getText();
-            Optional<AccessLevel> loginAuthResult = LoginAuth.loginAuth(email, password);
+        // Calibrates password hashing while the user types, instead of during the first login
+        BackgroundExecutor.execute(PasswordCryptography::calibrate);
+
+        loginView.getLoginButton().setOnAction(e -> login(stage, loginView));
+
+        // Discards the result of a running login if the login window is closed
+        // The worker thread is not interrupted, as interrupting a virtual thread
+        // blocked on a socket closes the pooled connection it is reading from
+        stage.setOnCloseRequest(e -> {
+            if (loginTask != null) {
+                loginTask.cancel(false);
+            }
+        });
+    }
 
-            loginAuthResult.ifPresent(accessLevel -> switchToMainView(stage, accessLevel));
+    // Checks the login credentials on a background thread, and switches to the main view if they are correct
+    private void login(Stage stage, LoginView loginView) {
+        LoginTask task = new LoginTask(loginView.getEmailField().getText(), loginView.getPasswordField().getText());
+        loginTask = task;
+
+        // Shows the progress indicator and prevents starting another login while this one is running
+        loginView.getErrorLabel().setText("");
+        loginView.getProgressIndicator().visibleProperty().bind(task.runningProperty());
+        loginView.getLoginButton().disableProperty().bind(task.runningProperty());
+
+        task.setOnSucceeded(e -> {
+            Optional<Session> session = task.getValue();
+            if (session.isPresent()) {
+                migrateDatabase(stage, loginView, session.get());
+            } else {
+                loginView.getErrorLabel().setText("Incorrect email or password.");
+            }
+        });
+        task.setOnFailed(e -> {
+            if (task.getException() instanceof LoginThrottledException) {
+                loginView.getErrorLabel().setText(task.getException().getMessage());
+            } else {
+                AlertUtil.showDatabaseConnectionError("Login failed: " + task.getException().getMessage());
+            }
         });
+
+        BackgroundExecutor.execute(task);
+    }
+
+    // Brings the database schema up to date on a background thread before the main view is created,
+    // unless disabled in the properties file. If the migration fails, the main view is never opened,
+    // as the DAOs would otherwise run against a partially migrated schema
+    private void migrateDatabase(Stage stage, LoginView loginView, Session session) {
+        if (!DatabaseConnection.getBooleanProperty("db.migrate.onStartup", true)) {
+            switchToMainView(stage, session);
+            return;
+        }
+
+        Task<Integer> task = new Task<>() {
+            @Override
+            protected Integer call() throws SQLException {
+                try (Connection conn = ConnectionProvider.borrow()) {
+                    return MigrationRunner.migrate(conn);
+                }
+            }
+        };
+
+        // Keeps the login form disabled while the schema is updated, and after a failed update
+        loginView.getProgressIndicator().visibleProperty().bind(task.runningProperty());
+        loginView.getLoginButton().disableProperty().unbind();
+        loginView.getLoginButton().setDisable(true);
+
+        task.setOnSucceeded(e -> switchToMainView(stage, session));
+        task.setOnFailed(e -> {
+            SessionManager.end(session);
+            loginView.getErrorLabel().setText("The database could not be updated. Restart the application to try again.");
+            AlertUtil.genericError("Database migration failed",
+                    "Failed to update the database schema.\n" + task.getException().getMessage());
+        });
+
+        BackgroundExecutor.execute(task);
+    }
+
+    @Override
+    public void stop() {
+        // Close pooled database connections when the application exits
+        ConnectionProvider.shutdown();
     }
 
     public static void main(String[] args) {
+        // Only migrates the database schema when started with --migrate
+        if (Arrays.asList(args).contains("--migrate")) {
+            System.exit(MigrationRunner.migrateFromCommandLine());
+        }
+
         launch();
     }
 
-    private void switchToMainView(Stage stage, AccessLevel accessLevel) {
+    private void switchToMainView(Stage stage, Session session) {
         // Hide stage before switching scene to avoid window flickering
         stage.hide();
+        stage.setOnCloseRequest(null);
+        loginTask = null;
 
         // Setup MainView with all associated views after logging in, set and show scene centered on screen
-        mainView = new MainView(accessLevel);
+        mainView = new MainView(session);
         Scene mainScene = new Scene(mainView, 1280, 720);
         stage.setScene(mainScene);
         stage.getScene().getWindow().centerOnScreen();
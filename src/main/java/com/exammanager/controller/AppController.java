@@ -1,21 +1,35 @@
 package com.exammanager.controller;
 
 import com.exammanager.dao.*;
-import com.exammanager.login.AccessLevel;
+import com.exammanager.login.LockView;
+import com.exammanager.login.LoginTask;
+import com.exammanager.login.LoginThrottledException;
+import com.exammanager.login.Principal;
+import com.exammanager.login.Session;
+import com.exammanager.login.SessionManager;
 import com.exammanager.service.ExportService;
+import com.exammanager.service.ImportService;
 import com.exammanager.service.ManageUserService;
 import com.exammanager.service.ReportService;
 import com.exammanager.util.AlertUtil;
-import com.exammanager.util.DatabaseConnection;
+import com.exammanager.util.BackgroundExecutor;
+import com.exammanager.util.ConnectionProvider;
 import com.exammanager.view.MainView;
+import javafx.animation.PauseTransition;
 import javafx.application.Platform;
+import javafx.scene.Scene;
 import javafx.scene.control.Alert;
+import javafx.scene.control.Tab;
+import javafx.util.Duration;
 import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
 
 public class AppController {
 
     private MainView mainView;
-    private Connection conn;
 
     private TeacherDAO teacherDao;
     private StudentDAO studentDao;
@@ -25,58 +39,154 @@ public class AppController {
 
     private ReportService reportService;
     private ExportService exportService;
+    private ImportService importService;
 
-    private AccessLevel accessLevel;
+    // Creates the view and controller of each tab which has not been selected yet, by tab
+    private final Map<Tab, Runnable> tabInitializers = new HashMap<>();
+
+    // Cancels or continues loading the table of each tab which has been selected, by tab
+    private final Map<Tab, Runnable> cancelLoading = new HashMap<>();
+    private final Map<Tab, Runnable> resumeLoading = new HashMap<>();
+
+    // The logged-in user, passed on to the controllers
+    private final Principal principal;
+
+    // The session of the logged-in user, replaced if the user logs in again after it expires
+    private Session session;
+
+    // Locks the application when the session expires, so nothing can be changed until the user logs in again
+    private final PauseTransition sessionTimer = new PauseTransition();
+
+    // The lock screen shown while the application is locked
+    private LockView lockView;
 
     /**
      * Controller for the application itself.
      * <p>
-     * This controller-class is responsible for setting up the
-     * shared database connection, passing the DB-connection to
+     * This controller-class is responsible for checking the
+     * database connection, passing the DAOs to
      * the view-specific controllers, connecting the
      * other controllers with their respective views, as well as
      * setting up functionality for the different options in the menu bar.
      *
      * @param mainView the application's main view
+     * @param session the session of the logged-in user
      * @author Bendik
      */
-    public AppController(MainView mainView, AccessLevel accessLevel) {
+    public AppController(MainView mainView, Session session) {
         this.mainView = mainView;
-        this.accessLevel = accessLevel;
+        this.session = session;
+        this.principal = session.getPrincipal();
     }
 
     public void start() {
-        // create shared database connection
-        conn = DatabaseConnection.getConnection();
-
         // setup DAOs if database connection succeeds
-        if (conn != null) {
-            teacherDao = new TeacherDAO(conn);
-            studentDao = new StudentDAO(conn);
-            courseDao = new CourseDAO(conn);
-            examDao = new ExamDAO(conn);
-            departmentDao = new DepartmentDAO(conn);
+        // the DAOs borrow their own pooled connections for each operation, so the test connection is returned right away
+        // the database schema has already been migrated, see App
+        try (Connection test = ConnectionProvider.getConnection()) {
+            if (test != null) {
+                teacherDao = new TeacherDAO();
+                studentDao = new StudentDAO();
+                courseDao = new CourseDAO();
+                examDao = new ExamDAO();
+                departmentDao = new DepartmentDAO();
+            }
+        } catch (SQLException e) {
+            AlertUtil.showDatabaseConnectionError("Failed to connect to the database: " + e.getMessage());
         }
 
-        // initialize controllers for each view
-        new TeacherController(mainView.getTeacherView(), teacherDao, departmentDao, accessLevel);
-        new StudentController(mainView.getStudentView(), studentDao, accessLevel);
-        new CourseController(mainView.getCourseView(), courseDao, teacherDao, accessLevel);
-        new ExamController(mainView.getExamView(), examDao, studentDao, courseDao, accessLevel);
-        new DepartmentController(mainView.getDepartmentView(), departmentDao, accessLevel);
+        // initialize controllers for each view the first time its tab is selected
+        tabInitializers.put(mainView.getTeachersTab(), () -> {
+            TeacherController controller = new TeacherController(mainView.getTeacherView(), teacherDao, departmentDao, principal);
+            cancelLoading.put(mainView.getTeachersTab(), controller::cancelLoading);
+            resumeLoading.put(mainView.getTeachersTab(), controller::resumeLoading);
+        });
+        tabInitializers.put(mainView.getStudentsTab(), () -> {
+            StudentController controller = new StudentController(mainView.getStudentView(), studentDao, principal);
+            cancelLoading.put(mainView.getStudentsTab(), controller::cancelLoading);
+            resumeLoading.put(mainView.getStudentsTab(), controller::resumeLoading);
+        });
+        tabInitializers.put(mainView.getCoursesTab(), () -> {
+            CourseController controller = new CourseController(mainView.getCourseView(), courseDao, teacherDao, principal);
+            cancelLoading.put(mainView.getCoursesTab(), controller::cancelLoading);
+            resumeLoading.put(mainView.getCoursesTab(), controller::resumeLoading);
+        });
+        tabInitializers.put(mainView.getExamsTab(), () -> {
+            ExamController controller = new ExamController(mainView.getExamView(), examDao, studentDao, courseDao, principal);
+            cancelLoading.put(mainView.getExamsTab(), controller::cancelLoading);
+            resumeLoading.put(mainView.getExamsTab(), controller::resumeLoading);
+        });
+        tabInitializers.put(mainView.getDepartmentsTab(), () -> {
+            DepartmentController controller = new DepartmentController(mainView.getDepartmentView(), departmentDao, principal);
+            cancelLoading.put(mainView.getDepartmentsTab(), controller::cancelLoading);
+            resumeLoading.put(mainView.getDepartmentsTab(), controller::resumeLoading);
+        });
+
+        setupTabLoading();
 
         // initialize ReportService for generating reports
         reportService = new ReportService(mainView, courseDao, examDao, studentDao);
 
         // initialize ExportService for exporting the database
-        exportService = new ExportService(mainView, teacherDao, studentDao, courseDao, examDao, departmentDao);
+        exportService = new ExportService(mainView);
+
+        // initialize ImportService for importing an exported database
+        importService = new ImportService(mainView);
 
         setupMenuFunctionality();
+
+        sessionTimer.setOnFinished(event -> {
+            if (SessionManager.isValid(session)) {
+                scheduleSessionExpiry();
+            } else {
+                lock();
+                lockView.getErrorLabel().setText("Your session has expired. Enter your password to continue.");
+            }
+        });
+        scheduleSessionExpiry();
+    }
+
+    // Starts the session timer over, to finish when the current session expires
+    private void scheduleSessionExpiry() {
+        long remainingMillis = session.getExpiresAt().toEpochMilli() - System.currentTimeMillis();
+        sessionTimer.setDuration(Duration.millis(Math.max(0, remainingMillis)));
+        sessionTimer.playFromStart();
+    }
+
+    // Creates the view and controller of a tab, which loads its table, the first time the tab is selected,
+    // starting with the tab selected when the application opens. Tabs which are never selected, including
+    // the tabs hidden by the user's access level, are never created and never query the database.
+    // Cancels loading the table of the tab the user leaves, so its query does not hold up the tab the user opens,
+    // and continues loading it if the user comes back before it has finished
+    private void setupTabLoading() {
+        var selectionModel = mainView.getTabPane().getSelectionModel();
+
+        selectionModel.selectedItemProperty().addListener((observable, oldTab, newTab) -> {
+            if (oldTab != null) {
+                cancelLoading.getOrDefault(oldTab, () -> {}).run();
+            }
+            if (newTab != null) {
+                selectTab(newTab);
+            }
+        });
+
+        if (selectionModel.getSelectedItem() != null) {
+            selectTab(selectionModel.getSelectedItem());
+        }
+    }
+
+    private void selectTab(Tab tab) {
+        Runnable initializer = tabInitializers.remove(tab);
+        if (initializer != null) {
+            initializer.run();
+        } else {
+            resumeLoading.getOrDefault(tab, () -> {}).run();
+        }
     }
 
     private void setupMenuFunctionality() {
         mainView.getCheckDbItem().setOnAction(event -> {
-            try (Connection test = DatabaseConnection.getConnection()) {
+            try (Connection test = ConnectionProvider.getConnection()) {
                 if (test != null) {
                     Alert alert = new Alert(Alert.AlertType.INFORMATION);
                     alert.setTitle("Connection Successful");
@@ -90,19 +200,117 @@ public class AppController {
             }
         });
 
-        mainView.getExportItem().setOnAction(event -> exportService.exportDatabase());
+        mainView.getLockItem().setOnAction(event -> lock());
+
+        mainView.getExportItem().setOnAction(event -> {
+            if (checkSession()) {
+                exportService.exportDatabase();
+            }
+        });
+
+        mainView.getImportItem().setOnAction(event -> {
+            if (checkSession()) {
+                importService.importDatabase();
+            }
+        });
 
         mainView.getExitItem().setOnAction(event -> Platform.exit());
 
         mainView.getCourseReportItem().setOnAction(event -> reportService.generateCourseReport());
 
-        mainView.getStudentReportItem().setOnAction(event -> reportService.generateStudentReport(accessLevel.getEmail()));
+        mainView.getStudentReportItem().setOnAction(event -> reportService.generateStudentReport(principal.email()));
 
-        mainView.getAddUserItem().setOnAction(event -> ManageUserService.addUser());
+        mainView.getAddUserItem().setOnAction(event -> {
+            if (checkSession()) {
+                ManageUserService.addUser();
+            }
+        });
 
-        mainView.getDeleteUserItem().setOnAction(event -> ManageUserService.deleteUser(accessLevel.getEmail()));
+        mainView.getDeleteUserItem().setOnAction(event -> {
+            if (checkSession()) {
+                ManageUserService.deleteUser(principal.email());
+            }
+        });
 
         mainView.getAboutItem().setOnAction(event -> AlertUtil.showAppInformation());
     }
 
+    // Privileged actions verify the session token first, which takes microseconds instead of a new login
+    // If the session has expired, the application is locked until the user logs in again
+    private boolean checkSession() {
+        if (SessionManager.isValid(session)) {
+            return true;
+        }
+
+        AlertUtil.genericError("Session expired", "Your session has expired. Enter your password to continue.");
+        lock();
+        return false;
+    }
+
+    // Replaces the main view with the lock screen until the user enters their password
+    private void lock() {
+        Scene scene = mainView.getScene();
+        if (scene == null) {
+            // Already locked
+            return;
+        }
+        lockView = new LockView(principal.email());
+
+        lockView.getUnlockButton().setOnAction(event -> unlock(scene, lockView));
+        lockView.getPasswordField().setOnAction(event -> unlock(scene, lockView));
+
+        scene.setRoot(lockView);
+        lockView.getPasswordField().requestFocus();
+    }
+
+    private void unlock(Scene scene, LockView lockView) {
+        String password = lockView.getPasswordField().getText();
+        lockView.getPasswordField().clear();
+
+        // Checked against the session without hashing the password or querying the database
+        try {
+            if (SessionManager.unlock(session, password)) {
+                scene.setRoot(mainView);
+                return;
+            }
+        } catch (LoginThrottledException e) {
+            lockView.getErrorLabel().setText(e.getMessage());
+            return;
+        }
+        if (SessionManager.isValid(session)) {
+            lockView.getErrorLabel().setText("Incorrect password.");
+            return;
+        }
+
+        // The session has expired, so the password is checked against the database on a background thread
+        LoginTask task = new LoginTask(principal.email(), password);
+        lockView.getUnlockButton().disableProperty().bind(task.runningProperty());
+        lockView.getErrorLabel().setText("");
+
+        task.setOnSucceeded(event -> {
+            Optional<Session> newSession = task.getValue();
+            // The views were set up for the old principal, so a changed account has to restart the application
+            if (newSession.isPresent() && newSession.get().getPrincipal().equals(principal)) {
+                SessionManager.end(session);
+                session = newSession.get();
+                scheduleSessionExpiry();
+                scene.setRoot(mainView);
+            } else {
+                lockView.getErrorLabel().setText(newSession.isPresent()
+                        ? "The account has changed. Restart the application to log in again."
+                        : "Incorrect password.");
+                newSession.ifPresent(SessionManager::end);
+            }
+        });
+        task.setOnFailed(event -> {
+            if (task.getException() instanceof LoginThrottledException) {
+                lockView.getErrorLabel().setText(task.getException().getMessage());
+            } else {
+                AlertUtil.showDatabaseConnectionError("Unlock failed: " + task.getException().getMessage());
+            }
+        });
+
+        BackgroundExecutor.execute(task);
+    }
+
 }
@@ -4,15 +4,19 @@ import com.exammanager.dao.CourseDAO;
 import com.exammanager.dao.TeacherDAO;
 import com.exammanager.dialog.CourseDialog;
 import com.exammanager.login.AccessLevel;
+import com.exammanager.login.Principal;
 import com.exammanager.model.Course;
 import com.exammanager.model.Teacher;
 import com.exammanager.util.AlertUtil;
+import com.exammanager.util.TrigramIndex;
 import com.exammanager.view.CourseView;
 import javafx.beans.value.ChangeListener;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.collections.transformation.FilteredList;
 
+import java.util.List;
+
 /**
  * Controller class for adding functionality to the CourseView.
  * <p>
@@ -37,27 +41,54 @@ public class CourseController {
     // FilteredList wrapper for the courseList, used to sort courses
     private FilteredList<Course> filteredCourseList = new FilteredList<>(courseList, p -> true);
 
+    // Search index over the searchable columns of the courseList, kept up to date as the list changes
+    private final TrigramIndex<Course> searchIndex = new TrigramIndex<>(course -> List.of(
+            Integer.toString(course.getId()),
+            course.getCourseCode(),
+            course.getTitle(),
+            Integer.toString(course.getCredits()),
+            Integer.toString(course.getTeacherId())
+    ));
+
+    // Loads courses into courseList on a background thread
+    private TableLoader<Course> courseLoader;
+
     // DAOs used for database operations
     private final CourseDAO courseDAO;
     private final TeacherDAO teacherDAO;
 
-    // Access level of the currently logged-in user
-    private final AccessLevel accessLevel;
+    // The currently logged-in user
+    private final Principal principal;
 
-    public CourseController(CourseView courseView, CourseDAO courseDAO, TeacherDAO teacherDAO, AccessLevel accessLevel) {
+    public CourseController(CourseView courseView, CourseDAO courseDAO, TeacherDAO teacherDAO, Principal principal) {
         this.courseView = courseView;
         this.courseDAO = courseDAO;
         this.teacherDAO = teacherDAO;
-        this.accessLevel = accessLevel;
+        this.principal = principal;
 
         initialize();
     }
 
+    /**
+     * Cancels loading the course table, e.g. when the user switches to another tab.
+     */
+    public void cancelLoading() {
+        courseLoader.cancel();
+    }
+
+    /**
+     * Continues loading the course table if loading was cancelled before it finished.
+     */
+    public void resumeLoading() {
+        courseLoader.resume();
+    }
+
     private void initialize() {
-        // Gets courses from the database
+        // Gets courses from the database on a background thread
         // Logs error to terminal if unsuccessful
+        courseLoader = new TableLoader<>(courseView.getCourseTable(), courseList);
         try {
-            courseList.setAll(courseDAO.findAll());
+            courseLoader.load(courseDAO::findAll);
         } catch (Exception e) {
             System.out.println("Failed to get courses: " + e.getMessage());
         }
@@ -65,18 +96,11 @@ public class CourseController {
         // Adds courses to the table in CourseView using the filteredCourseList to allow searching
         courseView.getCourseTable().setItems(filteredCourseList);
 
-        // Adds a listener to the search field and adds logic to allow searching the course table
-        courseView.getSearchField().textProperty().addListener((observable, oldValue, newValue) -> {
-            String searchQuery = (newValue == null || newValue.isEmpty()) ? "" : newValue.trim().toLowerCase();
-            filteredCourseList.setPredicate(course ->
-                    searchQuery.isEmpty() ||
-                    Integer.toString(course.getId()).contains(searchQuery) ||
-                    course.getCourseCode().toLowerCase().contains(searchQuery) ||
-                    course.getTitle().toLowerCase().contains(searchQuery) ||
-                    Integer.toString(course.getCredits()).contains(searchQuery) ||
-                    Integer.toString(course.getTeacherId()).contains(searchQuery)
-            );
-        });
+        // Adds a listener to the search field and searches the course table using the search index
+        searchIndex.bind(courseList);
+        courseView.getSearchField().textProperty().addListener((observable, oldValue, newValue) ->
+                filteredCourseList.setPredicate(searchIndex.search(newValue))
+        );
 
         updateComboBoxSelection();
         setUiElementAvailability();
@@ -87,7 +111,7 @@ public class CourseController {
 
     private void refresh() {
         try {
-            courseList.setAll(courseDAO.findAll());
+            courseLoader.load(courseDAO::findAll);
             updateComboBoxSelection();
         } catch(Exception e) {
             AlertUtil.showDatabaseConnectionError("Error while trying to refresh. No database connection.");
@@ -99,7 +123,7 @@ public class CourseController {
         try {
             courseView.getTeacherIdComboBox().getSelectionModel().clearSelection();
             courseView.getTeacherIdComboBox().getItems().clear();
-            teacherList.setAll(teacherDAO.findAll());
+            teacherDAO.findAllAsync().thenAccept(teacherList::setAll);
         } catch (Exception _) {}
 
         courseView.getTeacherIdComboBox().setItems(teacherList);
@@ -107,7 +131,7 @@ public class CourseController {
 
     private void setUiElementAvailability() {
         // Show CRUD controls for courses only when logged in as an administrator
-        if (accessLevel == AccessLevel.ADMIN) {
+        if (principal.accessLevel() == AccessLevel.ADMIN) {
             courseView.getControlBox().setVisible(true);
         }
     }
@@ -135,8 +159,7 @@ public class CourseController {
                 var resultCourse = result.get();
 
                 try {
-                    courseDAO.updateSingle(resultCourse);
-                    refresh();
+                    courseDAO.updateSingleAsync(resultCourse).thenRun(this::refresh);
                 } catch (Exception e) {
                     AlertUtil.showDatabaseConnectionError("Error updating course. No database connection.");
                 }
@@ -153,8 +176,12 @@ public class CourseController {
 
             if (AlertUtil.confirmationAlert(alertTitleHeader, alertTitleHeader, alertContent)) {
                 try {
-                    courseDAO.deleteList(selectedCourses);
-                    refresh();
+                    courseDAO.deleteListAsync(selectedCourses).thenAccept(result -> {
+                        // Tells the user which courses were not deleted, if any
+                        result.describeUnsuccessfulRows("course").ifPresent(description ->
+                                AlertUtil.genericError("Some courses were not deleted", description));
+                        refresh();
+                    });
                 } catch (Exception e) {
                     AlertUtil.showDatabaseConnectionError("Error deleting course" + plural + ". No database connection.");
                 }
@@ -171,12 +198,11 @@ public class CourseController {
             );
 
             try {
-                courseDAO.addSingle(courseToBeAdded);
+                courseDAO.addSingleAsync(courseToBeAdded).thenRun(this::refresh);
                 courseView.getCourseCodeField().clear();
                 courseView.getTitleField().clear();
                 courseView.getCreditsField().clear();
                 courseView.getTeacherIdComboBox().getSelectionModel().clearSelection();
-                refresh();
             } catch (Exception e) {
                 AlertUtil.showDatabaseConnectionError("Error adding course. No database connection.");
             }
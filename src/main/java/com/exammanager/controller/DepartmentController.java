@@ -1,8 +1,10 @@
 package com.exammanager.controller;
 
+import com.exammanager.dao.BatchResult;
 import com.exammanager.dao.DepartmentDAO;
 import com.exammanager.dialog.DepartmentDialog;
 import com.exammanager.login.AccessLevel;
+import com.exammanager.login.Principal;
 import com.exammanager.model.Department;
 import com.exammanager.util.AlertUtil;
 import com.exammanager.view.DepartmentView;
@@ -30,25 +32,44 @@ public class DepartmentController {
     private final FilteredList<Department> filteredDepartmentList =
             new FilteredList<>(departmentList, p -> true);
 
+    // Loads departments into departmentList on a background thread
+    private TableLoader<Department> departmentLoader;
+
     private final DepartmentDAO departmentDAO;
 
-    private AccessLevel accessLevel;
+    // The currently logged-in user
+    private final Principal principal;
 
-    public DepartmentController(DepartmentView view, DepartmentDAO departmentDAO, AccessLevel accessLevel) {
+    public DepartmentController(DepartmentView view, DepartmentDAO departmentDAO, Principal principal) {
         this.departmentView = view;
         this.departmentDAO = departmentDAO;
-        this.accessLevel = accessLevel;
+        this.principal = principal;
 
         initialize();
     }
 
+    /**
+     * Cancels loading the department table, e.g. when the user switches to another tab.
+     */
+    public void cancelLoading() {
+        departmentLoader.cancel();
+    }
+
+    /**
+     * Continues loading the department table if loading was cancelled before it finished.
+     */
+    public void resumeLoading() {
+        departmentLoader.resume();
+    }
+
 
     private void initialize() {
 
         // Hent data ved oppstart
         // FIXME! GENERATES EXAMPLE DEPARTMENTS IF NO DATABASE CONNECTION
+        departmentLoader = new TableLoader<>(departmentView.getDepartmentTable(), departmentList);
         try {
-            departmentList.setAll(departmentDAO.findAll());
+            departmentLoader.load(departmentDAO::findAll);
         } catch(Exception e) {
             System.out.println("Failed to get departments: " + e.getMessage());
         }
@@ -76,7 +97,7 @@ public class DepartmentController {
     // TODO!
     private void setUiElementAvailability() {
         // Show CRUD controls for departments only when logged in as an administrator
-        if (accessLevel == AccessLevel.ADMIN) {
+        if (principal.accessLevel() == AccessLevel.ADMIN) {
             departmentView.getControlBox().setVisible(true);
         }
     }
@@ -97,8 +118,7 @@ public class DepartmentController {
 
             result.ifPresent(updated -> {
                 try {
-                    departmentDAO.updateSingle(updated);
-                    refreshDepartmentTable();
+                    departmentDAO.updateSingleAsync(updated).thenRun(this::refreshDepartmentTable);
                 } catch (Exception ex) {
                     AlertUtil.showDatabaseConnectionError("Error updating department.");
                 }
@@ -117,8 +137,16 @@ public class DepartmentController {
 
             if (AlertUtil.confirmationAlert(alertTitleHeader, alertTitleHeader, alertContent)) {
                 try {
-                    departmentDAO.deleteList(selectedList);
-                    refreshDepartmentTable();
+                    departmentDAO.deleteListAsync(selectedList).thenAccept(result -> {
+                        // Tells the user which departments were not deleted, if any
+                        result.describeUnsuccessfulRows("department").ifPresent(description -> {
+                            if (result.count(BatchResult.Status.SKIPPED) > 0) {
+                                description += "\nDepartments with employed teachers cannot be deleted.";
+                            }
+                            AlertUtil.genericError("Some departments were not deleted", description);
+                        });
+                        refreshDepartmentTable();
+                    });
                 } catch (Exception ex) {
                     AlertUtil.showDatabaseConnectionError("Error deleting department(s).");
                 }
@@ -134,9 +162,8 @@ public class DepartmentController {
             Department newDept = new Department(name);
 
             try {
-                departmentDAO.addSingle(newDept);
+                departmentDAO.addSingleAsync(newDept).thenRun(this::refreshDepartmentTable);
                 departmentView.getNameField().clear();
-                refreshDepartmentTable();
             } catch (Exception ex) {
                 AlertUtil.showDatabaseConnectionError("Error adding department.");
             }
@@ -154,7 +181,7 @@ public class DepartmentController {
 
     private void refreshDepartmentTable() {
         try {
-            departmentList.setAll(departmentDAO.findAll());
+            departmentLoader.load(departmentDAO::findAll);
         } catch (Exception e) {
             AlertUtil.showDatabaseConnectionError("Error refreshing departments.");
         }
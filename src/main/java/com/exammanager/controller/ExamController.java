@@ -4,16 +4,25 @@ import com.exammanager.dao.CourseDAO;
 import com.exammanager.dao.StudentDAO;
 import com.exammanager.dialog.ExamDialog;
 import com.exammanager.login.AccessLevel;
+import com.exammanager.login.Principal;
 import com.exammanager.model.Course;
 import com.exammanager.model.Exam;
+import com.exammanager.model.ExamDetails;
 import com.exammanager.model.Student;
 import com.exammanager.util.AlertUtil;
+import com.exammanager.util.DatabaseConnection;
+import com.exammanager.util.IntObjectMap;
+import com.exammanager.util.TrigramIndex;
 import com.exammanager.view.ExamView;
 import com.exammanager.dao.ExamDAO;
 import javafx.collections.FXCollections;
+import javafx.collections.ListChangeListener;
 import javafx.collections.ObservableList;
 import javafx.collections.transformation.FilteredList;
 
+import java.util.List;
+import java.util.function.ToIntFunction;
+
 /**
  * Controller class for adding functionality to the ExamView.
  * <p>
@@ -29,8 +38,8 @@ public class ExamController {
     // Reference to the exam view
     private final ExamView examView;
 
-    // List of exams from the database
-    private ObservableList<Exam> examList = FXCollections.observableArrayList();
+    // List of exams from the database, with the name of their student and the title of their course
+    private ObservableList<ExamDetails> examList = FXCollections.observableArrayList();
 
     // List of students from the database
     private ObservableList<Student> studentList = FXCollections.observableArrayList();
@@ -38,38 +47,84 @@ public class ExamController {
     // List of courses form the database
     private ObservableList<Course> courseList = FXCollections.observableArrayList();
 
+    // Students and courses by ID, kept up to date with the lists above
+    // Used to select the same student and course in the combo boxes again after the lists are reloaded
+    private final IntObjectMap<Student> studentsById = new IntObjectMap<>();
+    private final IntObjectMap<Course> coursesById = new IntObjectMap<>();
+
     // FilteredList wrapper for the examList, used to sort exams
-    private FilteredList<Exam> filteredExamList = new FilteredList<Exam>(examList, p -> true);
+    private FilteredList<ExamDetails> filteredExamList = new FilteredList<ExamDetails>(examList, p -> true);
+
+    // Search index over the searchable columns of the examList, used when searching in the application
+    private final TrigramIndex<ExamDetails> searchIndex = new TrigramIndex<>(exam -> List.of(
+            Integer.toString(exam.id()),
+            Integer.toString(exam.courseId()),
+            Integer.toString(exam.studentId()),
+            exam.grade(),
+            exam.studentName(),
+            exam.courseTitle()
+    ));
+
+    // Loads exams into examList one page at a time
+    // Not used when logged in as a student, or when searching in the application
+    private PagedTableLoader<ExamDetails> examPageLoader;
+
+    // Loads all of the exams shown into examList on a background thread, used when examPageLoader is not
+    private TableLoader<ExamDetails> examLoader;
 
     // DAOs used for database operations
     private final ExamDAO examDAO;
     private final StudentDAO studentDAO;
     private final CourseDAO courseDAO;
 
-    // Access level of the currently logged-in user
-    private AccessLevel accessLevel;
+    // The currently logged-in user
+    private final Principal principal;
 
-    public ExamController(ExamView examView, ExamDAO examDAO, StudentDAO studentDAO, CourseDAO courseDAO, AccessLevel accessLevel) {
+    public ExamController(ExamView examView, ExamDAO examDAO, StudentDAO studentDAO, CourseDAO courseDAO, Principal principal) {
         this.examView = examView;
         this.examDAO = examDAO;
         this.studentDAO = studentDAO;
         this.courseDAO = courseDAO;
-        this.accessLevel = accessLevel;
+        this.principal = principal;
 
         initialize();
     }
 
+    /**
+     * Cancels loading the exam table, e.g. when the user switches to another tab.
+     */
+    public void cancelLoading() {
+        if (examPageLoader != null) {
+            examPageLoader.cancel();
+        } else {
+            examLoader.cancel();
+        }
+    }
+
+    /**
+     * Continues loading the exam table if loading was cancelled before it finished.
+     */
+    public void resumeLoading() {
+        if (examPageLoader != null) {
+            examPageLoader.resume();
+        } else {
+            examLoader.resume();
+        }
+    }
+
     private void initialize() {
-        // Gets exams from the database
+        // Students only see their own exams, so only other users need to load exams page by page
+        // unless all exams are loaded and searched in the application
+        if (principal.accessLevel() != AccessLevel.STUDENT && !DatabaseConnection.getBooleanProperty("db.search.clientSide", false)) {
+            examPageLoader = new PagedTableLoader<>(examView.getExamTable(), examList, examDAO.examDetailsPages(), examView.getSortColumns());
+        } else {
+            examLoader = new TableLoader<>(examView.getExamTable(), examList);
+        }
+
+        // Gets exams from the database on a background thread
         // Logs error to terminal if unsuccessful
         try {
-            // If logged in as a student, get all exams by the users email
-            // Otherwise, get all exams
-            if (accessLevel == AccessLevel.STUDENT) {
-                examList.setAll(examDAO.findAllByEmail(accessLevel.getEmail()));
-            } else {
-                examList.setAll(examDAO.findAll());
-            }
+            loadExams();
         } catch (Exception e) {
             System.out.println("Failed to get exams: " + e.getMessage());
         }
@@ -77,27 +132,28 @@ public class ExamController {
         // Adds exams to the table in ExamView using the filteredExamList to allow searching
         examView.getExamTable().setItems(filteredExamList);
 
-        // Adds a listener to the search field and adds logic to allow searching all columns of the teacher table
-        examView.getSearchField().textProperty().addListener((observable, oldValue, newValue) -> {
-            String searchQuery = (newValue == null || newValue.isEmpty()) ? "" : newValue.trim().toLowerCase();
-            filteredExamList.setPredicate(exam ->
-                    searchQuery.isEmpty() ||
-                            Integer.toString(exam.getId()).contains(searchQuery) ||
-                            Integer.toString(exam.getCourseId()).contains(searchQuery) ||
-                            Integer.toString(exam.getStudentId()).contains(searchQuery)
+        // Searches the exam table in the database when the text in the search field changes
+        // Otherwise, the loaded exams are searched using the search index
+        if (examPageLoader != null) {
+            examPageLoader.bindSearch(examView.getSearchField().textProperty());
+        } else {
+            searchIndex.bind(examList);
+            examView.getSearchField().textProperty().addListener((observable, oldValue, newValue) ->
+                    filteredExamList.setPredicate(searchIndex.search(newValue))
             );
-        });
+        }
 
         updateComboBoxSelection();
         setUiElementAvailability();
         initButtonFunctionality();
+        addLookupListeners();
         addComboBoxListeners();
         addTableListener();
     }
 
     private void setUiElementAvailability() {
         // Show CRUD controls for exams only when logged in as a teacher
-        if (accessLevel == AccessLevel.TEACHER) {
+        if (principal.accessLevel() == AccessLevel.TEACHER) {
             examView.getControlBox().setVisible(true);
         }
     }
@@ -115,16 +171,15 @@ public class ExamController {
 
         // Adds functionality to the edit button in ExamView
         examView.getEditSelectedButton().setOnMouseClicked(event -> {
-            Exam selectedExam = examView.getExamTable().getSelectionModel().getSelectedItem();
+            ExamDetails selectedExam = examView.getExamTable().getSelectionModel().getSelectedItem();
 
-            var result = ExamDialog.editExamDialog(selectedExam);
+            var result = ExamDialog.editExamDialog(selectedExam.toExam());
 
             if (result.isPresent()) {
                 var resultExam = result.get();
 
                 try {
-                    examDAO.updateSingle(resultExam);
-                    refresh();
+                    examDAO.updateSingleAsync(resultExam).thenRun(this::refresh);
                 } catch (Exception e) {
                     AlertUtil.showDatabaseConnectionError("Error updating exam. No database connection.");
                 }
@@ -133,7 +188,8 @@ public class ExamController {
 
         // Adds functionality to the delete button in ExamView
         examView.getDeleteSelectedButton().setOnMouseClicked(event -> {
-            ObservableList<Exam> selectedExam = examView.getExamTable().getSelectionModel().getSelectedItems();
+            ObservableList<Exam> selectedExam = FXCollections.observableArrayList(
+                    examView.getExamTable().getSelectionModel().getSelectedItems().stream().map(ExamDetails::toExam).toList());
 
             String alertTitleHeader = "Confirm deletion";
             String plural = selectedExam.size() == 1 ? "" : "s";
@@ -141,8 +197,12 @@ public class ExamController {
 
             if (AlertUtil.confirmationAlert(alertTitleHeader, alertTitleHeader, alertContent)) {
                 try {
-                    examDAO.deleteList(selectedExam);
-                    refresh();
+                    examDAO.deleteListAsync(selectedExam).thenAccept(result -> {
+                        // Tells the user which exams were not deleted, if any
+                        result.describeUnsuccessfulRows("exam").ifPresent(description ->
+                                AlertUtil.genericError("Some exams were not deleted", description));
+                        refresh();
+                    });
                 } catch(Exception e) {
                     AlertUtil.showDatabaseConnectionError("Error deleting exam(s). No database connection.");
                 }
@@ -162,17 +222,36 @@ public class ExamController {
             );
 
             try {
-                examDAO.addSingle(examToBeAdded);
+                examDAO.addSingleAsync(examToBeAdded).thenRun(this::refresh);
                 examView.getStudentIdComboBox().getSelectionModel().clearSelection();
                 examView.getCourseIdComboBox().getSelectionModel().clearSelection();
                 examView.getGradeComboBox().setValue("No grade");
-                refresh();
             } catch (Exception e) {
                 AlertUtil.showDatabaseConnectionError("Error adding exam. No database connection.");
             }
         });
     }
 
+    // Keeps studentsById and coursesById up to date as the students and courses are reloaded
+    private void addLookupListeners() {
+        studentList.addListener((ListChangeListener<Student>) change -> updateLookup(studentsById, change, Student::getId));
+        courseList.addListener((ListChangeListener<Course>) change -> updateLookup(coursesById, change, Course::getId));
+    }
+
+    private <T> void updateLookup(IntObjectMap<T> lookup, ListChangeListener.Change<? extends T> change, ToIntFunction<T> idFunction) {
+        while (change.next()) {
+            for (T removed : change.getRemoved()) {
+                // Only remove the entry if it has not been replaced by an added item with the same ID
+                if (lookup.get(idFunction.applyAsInt(removed)) == removed) {
+                    lookup.remove(idFunction.applyAsInt(removed));
+                }
+            }
+            for (T added : change.getAddedSubList()) {
+                lookup.put(idFunction.applyAsInt(added), added);
+            }
+        }
+    }
+
     private void addComboBoxListeners() {
         var addButton = examView.getAddButton();
         var studentIdComboBox = examView.getStudentIdComboBox();
@@ -197,30 +276,54 @@ public class ExamController {
 
     private void refresh() {
         try {
-            // If logged in as a student, get all exams by the users email
-            // Otherwise, get all exams
-            if (accessLevel == AccessLevel.STUDENT) {
-                examList.setAll(examDAO.findAllByEmail(accessLevel.getEmail()));
-            } else {
-                examList.setAll(examDAO.findAll());
-            }
+            loadExams();
             updateComboBoxSelection();
         } catch (Exception e) {
             AlertUtil.showDatabaseConnectionError("Error while trying to refresh. No database connection.");
         }
     }
 
+    // Loads exams on a background thread, the table is updated once the query has finished
+    private void loadExams() {
+        // If logged in as a student, get all exams by the users email
+        // If searching in the application, get all exams
+        // Otherwise, load the first page of exams, and the rest as the user scrolls
+        if (principal.accessLevel() == AccessLevel.STUDENT) {
+            examLoader.load(() -> examDAO.findExamDetailsByEmail(principal.email()));
+        } else if (examPageLoader == null) {
+            examLoader.load(examDAO::findAllExamDetails);
+        } else {
+            examPageLoader.reload();
+        }
+    }
+
     // Update ComboBoxes with items from the database
+    // The selected student and course are selected again once reloaded, unless they have been deleted
     private void updateComboBoxSelection() {
         try {
-            examView.getStudentIdComboBox().getSelectionModel().clearSelection();
-            examView.getCourseIdComboBox().getSelectionModel().clearSelection();
+            var studentIdComboBox = examView.getStudentIdComboBox();
+            var courseIdComboBox = examView.getCourseIdComboBox();
+            Student selectedStudent = studentIdComboBox.getValue();
+            Course selectedCourse = courseIdComboBox.getValue();
 
-            examView.getStudentIdComboBox().getItems().clear();
-            examView.getCourseIdComboBox().getItems().clear();
+            studentIdComboBox.getSelectionModel().clearSelection();
+            courseIdComboBox.getSelectionModel().clearSelection();
 
-            studentList.setAll(studentDAO.findAll());
-            courseList.setAll(courseDAO.findAll());
+            studentIdComboBox.getItems().clear();
+            courseIdComboBox.getItems().clear();
+
+            studentDAO.findAllAsync().thenAccept(students -> {
+                studentList.setAll(students);
+                if (selectedStudent != null) {
+                    studentIdComboBox.setValue(studentsById.get(selectedStudent.getId()));
+                }
+            });
+            courseDAO.findAllAsync().thenAccept(courses -> {
+                courseList.setAll(courses);
+                if (selectedCourse != null) {
+                    courseIdComboBox.setValue(coursesById.get(selectedCourse.getId()));
+                }
+            });
         } catch (Exception _) {}
 
         examView.getStudentIdComboBox().setItems(studentList);
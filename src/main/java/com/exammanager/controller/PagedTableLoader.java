@@ -0,0 +1,237 @@
+package com.exammanager.controller;
+
+import com.exammanager.dao.Page;
+import com.exammanager.dao.PageRequest;
+import com.exammanager.dao.PagedDAO;
+import com.exammanager.dao.QueryCancellation;
+import javafx.animation.PauseTransition;
+import javafx.beans.value.ObservableValue;
+import javafx.collections.ObservableList;
+import javafx.scene.Node;
+import javafx.scene.control.ProgressIndicator;
+import javafx.scene.control.TableColumn;
+import javafx.scene.control.TableRow;
+import javafx.scene.control.TableView;
+import javafx.util.Duration;
+
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Loads the rows of a {@link TableView} one page at a time from a {@link PagedDAO}.
+ * <p>
+ * The first page is loaded when {@link #reload()} is called, and the following pages are loaded
+ * when the user scrolls close to the last loaded row. Sorting is done by the database: clicking a
+ * column header reloads the table sorted by the database column mapped to that column, and columns
+ * without a mapping cannot be sorted.
+ * <p>
+ * Searching is also done by the database, see {@link #setSearch(String)}.
+ * <p>
+ * Pages are loaded on a background thread. When the table is reloaded, the query for the previous
+ * page is cancelled, and pages requested before the reload are discarded if they still arrive, so the
+ * table never mixes rows from different searches or sort orders. While the first page is loading,
+ * the table shows a progress indicator instead of its empty placeholder.
+ * <p>
+ * Loading can be cancelled with {@link #cancel()}, e.g. when the user switches to another tab,
+ * and is continued by {@link #resume()} when the user comes back.
+ *
+ * @param <T> the type of the rows
+ *
+ * @author Bendik
+ */
+public final class PagedTableLoader<T> {
+
+    /**
+     * The number of rows loaded at a time, unless another page size is given.
+     */
+    public static final int DEFAULT_PAGE_SIZE = 200;
+
+    private static final String DEFAULT_SORT_COLUMN = "id";
+
+    // How long to wait after the last keystroke before searching
+    private static final Duration SEARCH_DELAY = Duration.millis(300);
+
+    private final TableView<T> table;
+    private final ObservableList<T> items;
+    private final PagedDAO<T> dao;
+    private final Map<TableColumn<T, ?>, String> sortColumns;
+    private final int pageSize;
+    private final Node placeholder;
+    private final ProgressIndicator progressIndicator = new ProgressIndicator();
+
+    private PageRequest currentSort;
+    private PageRequest nextPage;
+    private boolean loading;
+    private boolean interrupted;
+    private int generation;
+    private QueryCancellation cancellation = new QueryCancellation();
+
+    /**
+     * Creates a loader for a table, loading {@link #DEFAULT_PAGE_SIZE} rows at a time.
+     * Must be called on the JavaFX application thread.
+     *
+     * @param table the table showing the rows
+     * @param items the list the loaded rows are added to, which the table's items should be or wrap
+     * @param dao the DAO to load pages from
+     * @param sortColumns the database column to sort by for each sortable table column
+     */
+    public PagedTableLoader(TableView<T> table, ObservableList<T> items, PagedDAO<T> dao,
+                            Map<TableColumn<T, ?>, String> sortColumns) {
+        this(table, items, dao, sortColumns, DEFAULT_PAGE_SIZE);
+    }
+
+    /**
+     * Creates a loader for a table. Must be called on the JavaFX application thread.
+     *
+     * @param table the table showing the rows
+     * @param items the list the loaded rows are added to, which the table's items should be or wrap
+     * @param dao the DAO to load pages from
+     * @param sortColumns the database column to sort by for each sortable table column
+     * @param pageSize the number of rows to load at a time
+     */
+    public PagedTableLoader(TableView<T> table, ObservableList<T> items, PagedDAO<T> dao,
+                            Map<TableColumn<T, ?>, String> sortColumns, int pageSize) {
+        this.table = table;
+        this.items = items;
+        this.dao = dao;
+        this.sortColumns = sortColumns;
+        this.pageSize = pageSize;
+        this.placeholder = table.getPlaceholder();
+        this.currentSort = PageRequest.first(DEFAULT_SORT_COLUMN, true, pageSize);
+
+        for (TableColumn<T, ?> column : table.getColumns()) {
+            column.setSortable(sortColumns.containsKey(column));
+        }
+
+        // Sort in the database instead of in the table
+        table.setSortPolicy(tableView -> {
+            PageRequest sort = getRequestedSort();
+            if (!Objects.equals(sort.sortColumn(), currentSort.sortColumn()) || sort.ascending() != currentSort.ascending()) {
+                currentSort = sort.withSearch(currentSort.search());
+                reload();
+            }
+            return true;
+        });
+
+        // Rows are only created for the visible part of the table,
+        // so a row showing one of the last rows means the user has scrolled close to the end
+        table.setRowFactory(tableView -> new TableRow<>() {
+            @Override
+            public void updateIndex(int index) {
+                super.updateIndex(index);
+                if (index >= 0 && index >= tableView.getItems().size() - pageSize / 4) {
+                    loadNextPage();
+                }
+            }
+        });
+    }
+
+    /**
+     * Removes all loaded rows and loads the first page again.
+     */
+    public void reload() {
+        cancelQuery();
+        nextPage = currentSort;
+        items.clear();
+        loadNextPage();
+    }
+
+    /**
+     * Cancels the page being loaded, if any. The rows already loaded are kept.
+     */
+    public void cancel() {
+        if (loading) {
+            interrupted = true;
+        }
+        cancelQuery();
+    }
+
+    /**
+     * Loads the page which was being loaded when {@link #cancel()} was called, if any.
+     */
+    public void resume() {
+        if (interrupted) {
+            interrupted = false;
+            loadNextPage();
+        }
+    }
+
+    /**
+     * Reloads the table with only the rows matching a search query. The query is sent to the
+     * database, so every row is searched, not just the rows loaded so far. Does nothing if the
+     * search query has not changed.
+     *
+     * @param search the search query, or an empty string to show all rows
+     */
+    public void setSearch(String search) {
+        PageRequest request = currentSort.withSearch(search);
+        if (!request.search().equals(currentSort.search())) {
+            currentSort = request;
+            reload();
+        }
+    }
+
+    /**
+     * Searches the table whenever a text value changes, such as the text of a search field.
+     * The search only starts once the text has stopped changing for a short while, so typing
+     * a word sends one query instead of one for every keystroke.
+     *
+     * @param text the text to search for
+     */
+    public void bindSearch(ObservableValue<String> text) {
+        PauseTransition delay = new PauseTransition(SEARCH_DELAY);
+        delay.setOnFinished(event -> setSearch(text.getValue()));
+        text.addListener((observable, oldValue, newValue) -> delay.playFromStart());
+    }
+
+    private void loadNextPage() {
+        if (loading || nextPage == null) {
+            return;
+        }
+
+        loading = true;
+        interrupted = false;
+        int requestGeneration = generation;
+        if (items.isEmpty()) {
+            table.setPlaceholder(progressIndicator);
+        }
+
+        dao.findPageAsync(nextPage, cancellation).whenComplete((page, error) -> {
+            // Discard pages requested before the latest reload
+            if (requestGeneration != generation) {
+                return;
+            }
+            loading = false;
+            table.setPlaceholder(placeholder);
+            if (page != null) {
+                addPage(page);
+            } else {
+                nextPage = null;
+            }
+        });
+    }
+
+    // Discards the page being loaded, so the next page can be requested again
+    private void cancelQuery() {
+        generation++;
+        cancellation.cancel();
+        cancellation = new QueryCancellation();
+        loading = false;
+        table.setPlaceholder(placeholder);
+    }
+
+    private void addPage(Page<T> page) {
+        nextPage = page.next();
+        items.addAll(page.items());
+    }
+
+    private PageRequest getRequestedSort() {
+        for (TableColumn<T, ?> column : table.getSortOrder()) {
+            String sortColumn = sortColumns.get(column);
+            if (sortColumn != null) {
+                return PageRequest.first(sortColumn, column.getSortType() == TableColumn.SortType.ASCENDING, pageSize);
+            }
+        }
+        return PageRequest.first(DEFAULT_SORT_COLUMN, true, pageSize);
+    }
+}
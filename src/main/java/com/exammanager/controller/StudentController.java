@@ -3,14 +3,19 @@ package com.exammanager.controller;
 import com.exammanager.dao.StudentDAO;
 import com.exammanager.dialog.StudentDialog;
 import com.exammanager.login.AccessLevel;
+import com.exammanager.login.Principal;
 import com.exammanager.model.Student;
 import com.exammanager.util.AlertUtil;
+import com.exammanager.util.DatabaseConnection;
+import com.exammanager.util.TrigramIndex;
 import com.exammanager.view.StudentView;
 import javafx.beans.value.ChangeListener;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.collections.transformation.FilteredList;
 
+import java.util.List;
+
 /**
  * Controller class for adding functionality to the StudentView.
  * <p>
@@ -29,47 +34,94 @@ public class StudentController {
     // List of students from the database
     private ObservableList<Student> studentList = FXCollections.observableArrayList();
 
-    // FilteredList wrapper for the studentList, used to sort students
+    // Loads students into studentList one page at a time, not used when searching in the application
+    private PagedTableLoader<Student> studentPageLoader;
+
+    // Loads all students into studentList on a background thread, only used when searching in the application
+    private TableLoader<Student> studentLoader;
+
+    // Whether all students are loaded and searched in the application instead of in the database
+    private final boolean clientSideSearch = DatabaseConnection.getBooleanProperty("db.search.clientSide", false);
+
+    // FilteredList wrapper for the studentList, used when searching in the application
     private FilteredList<Student> filteredStudentList = new FilteredList<>(studentList, p -> true);
 
+    // Search index over the searchable columns of the studentList, used when searching in the application
+    private final TrigramIndex<Student> searchIndex = new TrigramIndex<>(student -> List.of(
+            Integer.toString(student.getId()),
+            student.getFirstName(),
+            student.getLastName(),
+            student.getEmail(),
+            Integer.toString(student.getEnrollmentYear())
+    ));
+
     // DAO used for database operations on students
     private final StudentDAO studentDAO;
 
-    private final AccessLevel accessLevel;
+    // The currently logged-in user
+    private final Principal principal;
 
-    public StudentController(StudentView view, StudentDAO studentDAO, AccessLevel accessLevel) {
+    public StudentController(StudentView view, StudentDAO studentDAO, Principal principal) {
         this.studentView = view;
         this.studentDAO = studentDAO;
-        this.accessLevel = accessLevel;
+        this.principal = principal;
 
         initialize();
     }
 
+    /**
+     * Cancels loading the student table, e.g. when the user switches to another tab.
+     */
+    public void cancelLoading() {
+        if (clientSideSearch) {
+            studentLoader.cancel();
+        } else {
+            studentPageLoader.cancel();
+        }
+    }
+
+    /**
+     * Continues loading the student table if loading was cancelled before it finished.
+     */
+    public void resumeLoading() {
+        if (clientSideSearch) {
+            studentLoader.resume();
+        } else {
+            studentPageLoader.resume();
+        }
+    }
+
     // Victoria & Bendik
     private void initialize() {
-        // Gets students from the database
+        if (clientSideSearch) {
+            studentLoader = new TableLoader<>(studentView.getStudentTable(), studentList);
+
+            // Adds students to the table in StudentView using the filteredStudentList to allow searching
+            studentView.getStudentTable().setItems(filteredStudentList);
+
+            // Searches all columns of the student table using the search index when the text in the search field changes
+            searchIndex.bind(studentList);
+            studentView.getSearchField().textProperty().addListener((observable, oldValue, newValue) ->
+                    filteredStudentList.setPredicate(searchIndex.search(newValue))
+            );
+        } else {
+            studentPageLoader = new PagedTableLoader<>(studentView.getStudentTable(), studentList, studentDAO, studentView.getSortColumns());
+
+            // Adds students to the table in StudentView
+            studentView.getStudentTable().setItems(studentList);
+
+            // Searches the student table in the database when the text in the search field changes
+            studentPageLoader.bindSearch(studentView.getSearchField().textProperty());
+        }
+
+        // Gets students from the database on a background thread
         // Logs error to terminal if unsuccessful
         try {
-            studentList.setAll(studentDAO.findAll());
+            loadStudents();
         } catch (Exception e) {
             System.out.println("Failed to get students: " + e.getMessage());
         }
 
-        // Adds students to the table in StudentView using the filteredTeacherList to allow searching
-        studentView.getStudentTable().setItems(filteredStudentList);
-
-        // Adds a listener to the search field and adds logic to allow searching all columns of the teacher table
-        studentView.getSearchField().textProperty().addListener((observable, oldValue, newValue) -> {
-            String searchQuery = (newValue == null || newValue.isEmpty()) ? "" : newValue.trim().toLowerCase();
-            filteredStudentList.setPredicate(student ->
-                    searchQuery.isEmpty() ||
-                    Integer.toString(student.getId()).contains(searchQuery) ||
-                    student.getFirstName().toLowerCase().contains(searchQuery) ||
-                    student.getLastName().toLowerCase().contains(searchQuery) ||
-                    student.getEmail().toLowerCase().contains(searchQuery) ||
-                    Integer.toString(student.getEnrollmentYear()).contains(searchQuery));
-        });
-
         setUiElementAvailability();
         initButtonFunctionality();
         addTextFieldListeners();
@@ -80,7 +132,7 @@ public class StudentController {
     // Set UI element visibility based on access the access level of the currently logged-in user
     private void setUiElementAvailability() {
         // Show CRUD controls for students only when logged in as an administrator
-        if (accessLevel == AccessLevel.ADMIN) {
+        if (principal.accessLevel() == AccessLevel.ADMIN) {
             studentView.getControlBox().setVisible(true);
         }
     }
@@ -109,8 +161,7 @@ public class StudentController {
                 var resultStudent = result.get();
 
                 try {
-                    studentDAO.updateSingle(resultStudent);
-                    refreshStudentTable();
+                    studentDAO.updateSingleAsync(resultStudent).thenRun(this::refreshStudentTable);
                 } catch (Exception e) {
                     AlertUtil.showDatabaseConnectionError("Error updating student. No database connection.");
                 }
@@ -127,8 +178,12 @@ public class StudentController {
 
             if (AlertUtil.confirmationAlert(alertTitleHeader, alertTitleHeader, alertContent)) {
                 try {
-                    studentDAO.deleteList(selectedStudents);
-                    refreshStudentTable();
+                    studentDAO.deleteListAsync(selectedStudents).thenAccept(result -> {
+                        // Tells the user which students were not deleted, if any
+                        result.describeUnsuccessfulRows("student").ifPresent(description ->
+                                AlertUtil.genericError("Some students were not deleted", description));
+                        refreshStudentTable();
+                    });
                 } catch (Exception e) {
                     AlertUtil.showDatabaseConnectionError("Error deleting student(s). No database connection.");
                 }
@@ -146,12 +201,11 @@ public class StudentController {
             );
 
             try {
-                studentDAO.addSingle(studentToBeAdded);
+                studentDAO.addSingleAsync(studentToBeAdded).thenRun(this::refreshStudentTable);
                 studentView.getFirstNameField().clear();
                 studentView.getLastNameField().clear();
                 studentView.getEmailField().clear();
                 studentView.getEnrollmentYearField().clear();
-                refreshStudentTable();
             } catch (Exception e) {
                 AlertUtil.showDatabaseConnectionError("Error adding student. No database connection.");
             }
@@ -161,12 +215,23 @@ public class StudentController {
     // Bendik
     private void refreshStudentTable() {
         try {
-            studentList.setAll(studentDAO.findAll());
+            loadStudents();
         }  catch (Exception e) {
             AlertUtil.showDatabaseConnectionError("Error while trying to refresh. No database connection.");
         }
     }
 
+    // Bendik
+    // Loads all students when searching in the application
+    // Otherwise, loads the first page of students, and the rest as the user scrolls
+    private void loadStudents() {
+        if (clientSideSearch) {
+            studentLoader.load(studentDAO::findAll);
+        } else {
+            studentPageLoader.reload();
+        }
+    }
+
     // Victoria & Bendik
     // Adds ChangeListeners to TextFields in StudentView
     private void addTextFieldListeners() {
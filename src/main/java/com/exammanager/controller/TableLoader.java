@@ -0,0 +1,135 @@
+package com.exammanager.controller;
+
+import com.exammanager.util.BackgroundExecutor;
+import javafx.collections.ObservableList;
+import javafx.concurrent.Task;
+import javafx.scene.Node;
+import javafx.scene.control.Label;
+import javafx.scene.control.ProgressIndicator;
+import javafx.scene.control.TableView;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+
+/**
+ * Loads all rows of a {@link TableView} with a {@link Task} on a background thread.
+ * <p>
+ * While the rows are loading, the table shows a progress indicator instead of its empty
+ * placeholder, and the rows already in the table stay visible until the new rows arrive.
+ * Starting a new load cancels the previous one, so pressing Refresh twice never lets the
+ * older result overwrite the newer one.
+ * <p>
+ * A load can also be cancelled with {@link #cancel()}, e.g. when the user switches to another
+ * tab, and is started again by {@link #resume()} when the user comes back. A cancelled task
+ * never calls its succeeded handler, so its rows are discarded even if the query still finishes.
+ *
+ * @param <T> the type of the rows
+ *
+ * @author Bendik
+ */
+public class TableLoader<T> {
+
+    private final TableView<?> table;
+    private final ObservableList<T> items;
+    private final Node placeholder;
+    private final ProgressIndicator progressIndicator = new ProgressIndicator();
+
+    private Task<List<T>> task;
+    private Callable<? extends List<T>> query;
+    private boolean interrupted;
+
+    /**
+     * Creates a loader for a table. Must be called on the JavaFX application thread.
+     *
+     * @param table the table showing the rows
+     * @param items the list the loaded rows replace the contents of, which the table's items should be or wrap
+     */
+    public TableLoader(TableView<?> table, ObservableList<T> items) {
+        this.table = table;
+        this.items = items;
+        this.placeholder = table.getPlaceholder();
+    }
+
+    /**
+     * Loads the rows of the table, cancelling the load in progress, if any.
+     *
+     * @param query the query returning the rows, run on a background thread
+     */
+    public void load(Callable<? extends List<T>> query) {
+        cancelTask();
+        this.query = query;
+        this.interrupted = false;
+
+        Task<List<T>> loadTask = new Task<>() {
+            @Override
+            protected List<T> call() throws Exception {
+                return query.call();
+            }
+        };
+
+        // Discard the result of a load which finished just before another load replaced it
+        loadTask.setOnSucceeded(event -> {
+            if (task != loadTask) {
+                return;
+            }
+            items.setAll(loadTask.getValue());
+            table.setPlaceholder(placeholder);
+        });
+        loadTask.setOnFailed(event -> {
+            if (task != loadTask) {
+                return;
+            }
+            Throwable error = loadTask.getException();
+            table.setPlaceholder(new Label("Could not load the table: " + error.getMessage()));
+        });
+
+        task = loadTask;
+        table.setPlaceholder(progressIndicator);
+        BackgroundExecutor.execute(loadTask);
+    }
+
+    /**
+     * Loads the rows of the table again with the last query, if any.
+     */
+    public void reload() {
+        if (query != null) {
+            load(query);
+        }
+    }
+
+    /**
+     * Cancels the load in progress, if any. The rows already in the table are kept.
+     */
+    public void cancel() {
+        if (isLoading()) {
+            interrupted = true;
+        }
+        cancelTask();
+    }
+
+    /**
+     * Loads the rows of the table again if the last load was cancelled before it finished.
+     */
+    public void resume() {
+        if (interrupted) {
+            reload();
+        }
+    }
+
+    /**
+     * @return true if rows are being loaded
+     */
+    public boolean isLoading() {
+        return task != null && !task.isDone();
+    }
+
+    private void cancelTask() {
+        if (task != null) {
+            // The worker thread is not interrupted, as interrupting a virtual thread
+            // blocked on a socket closes the pooled connection it is reading from
+            task.cancel(false);
+            task = null;
+            table.setPlaceholder(placeholder);
+        }
+    }
+}
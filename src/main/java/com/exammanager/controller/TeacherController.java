@@ -3,9 +3,11 @@ package com.exammanager.controller;
 import com.exammanager.dao.DepartmentDAO;
 import com.exammanager.dao.TeacherDAO;
 import com.exammanager.login.AccessLevel;
+import com.exammanager.login.Principal;
 import com.exammanager.model.Department;
 import com.exammanager.util.AlertUtil;
 import com.exammanager.dialog.TeacherDialog;
+import com.exammanager.util.TrigramIndex;
 import javafx.beans.value.ChangeListener;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
@@ -14,6 +16,8 @@ import com.exammanager.model.Teacher;
 import com.exammanager.view.TeacherView;
 import javafx.collections.transformation.FilteredList;
 
+import java.util.List;
+
 /**
  * Controller class for adding functionality to the TeacherView.
  * <p>
@@ -38,27 +42,54 @@ public class TeacherController {
     // FilteredList wrapper for the teacherList, used to sort teachers
     private FilteredList<Teacher> filteredTeacherList = new FilteredList<>(teacherList, p -> true);
 
+    // Search index over the searchable columns of the teacherList, kept up to date as the list changes
+    private final TrigramIndex<Teacher> searchIndex = new TrigramIndex<>(teacher -> List.of(
+            Integer.toString(teacher.getId()),
+            teacher.getFirstName(),
+            teacher.getLastName(),
+            teacher.getDepartment(),
+            teacher.getEmail()
+    ));
+
+    // Loads teachers into teacherList on a background thread
+    private TableLoader<Teacher> teacherLoader;
+
     // DAOs used for database operations
     private final TeacherDAO teacherDAO;
     private final DepartmentDAO departmentDAO;
 
-    // Access level of the currently logged-in user
-    private final AccessLevel accessLevel;
+    // The currently logged-in user
+    private final Principal principal;
 
-    public TeacherController(TeacherView view, TeacherDAO teacherDAO, DepartmentDAO departmentDAO, AccessLevel accessLevel) {
+    public TeacherController(TeacherView view, TeacherDAO teacherDAO, DepartmentDAO departmentDAO, Principal principal) {
         this.teacherView = view;
         this.teacherDAO = teacherDAO;
         this.departmentDAO = departmentDAO;
-        this.accessLevel = accessLevel;
+        this.principal = principal;
 
         initialize();
     }
 
+    /**
+     * Cancels loading the teacher table, e.g. when the user switches to another tab.
+     */
+    public void cancelLoading() {
+        teacherLoader.cancel();
+    }
+
+    /**
+     * Continues loading the teacher table if loading was cancelled before it finished.
+     */
+    public void resumeLoading() {
+        teacherLoader.resume();
+    }
+
     private void initialize() {
-        // Gets teachers from the database
+        // Gets teachers from the database on a background thread
         // Logs error to terminal if unsuccessful
+        teacherLoader = new TableLoader<>(teacherView.getTeacherTable(), teacherList);
         try {
-            teacherList.setAll(teacherDAO.findAll());
+            teacherLoader.load(teacherDAO::findAll);
         } catch(Exception e) {
             System.out.println("Failed to get teachers: " + e.getMessage());
         }
@@ -66,18 +97,11 @@ public class TeacherController {
         // Adds teachers to the table in TeacherView using the filteredTeacherList to allow searching
         teacherView.getTeacherTable().setItems(filteredTeacherList);
 
-        // Adds a listener to the search field and adds logic to allow searching all columns of the teacher table
-        teacherView.getSearchField().textProperty().addListener((observable, oldValue, newValue) -> {
-            String searchQuery = (newValue == null || newValue.isEmpty()) ? "" : newValue.trim().toLowerCase();
-            filteredTeacherList.setPredicate(teacher ->
-                    searchQuery.isEmpty() ||
-                    Integer.toString(teacher.getId()).contains(searchQuery) ||
-                    teacher.getFirstName().toLowerCase().contains(searchQuery) ||
-                    teacher.getLastName().toLowerCase().contains(searchQuery) ||
-                    teacher.getDepartment().toLowerCase().contains(searchQuery) ||
-                    teacher.getEmail().toLowerCase().contains(searchQuery)
-            );
-        });
+        // Adds a listener to the search field and searches all columns of the teacher table using the search index
+        searchIndex.bind(teacherList);
+        teacherView.getSearchField().textProperty().addListener((observable, oldValue, newValue) ->
+                filteredTeacherList.setPredicate(searchIndex.search(newValue))
+        );
 
         updateComboBoxSelection();
         setUiElementAvailability();
@@ -89,7 +113,7 @@ public class TeacherController {
     // Set UI element visibility based on access the access level of the currently logged-in user
     private void setUiElementAvailability() {
         // Show CRUD controls for teachers only when logged in as an administrator
-        if (accessLevel == AccessLevel.ADMIN) {
+        if (principal.accessLevel() == AccessLevel.ADMIN) {
             teacherView.getControlBox().setVisible(true);
         }
     }
@@ -117,8 +141,7 @@ public class TeacherController {
                 var resultTeacher = result.get();
 
                 try {
-                    teacherDAO.updateSingle(resultTeacher);
-                    refresh();
+                    teacherDAO.updateSingleAsync(resultTeacher).thenRun(this::refresh);
                 } catch(Exception e) {
                     AlertUtil.showDatabaseConnectionError("Error updating teacher. No database connection.");
                 }
@@ -135,8 +158,12 @@ public class TeacherController {
 
             if (AlertUtil.confirmationAlert(alertTitleHeader, alertTitleHeader, alertContent)) {
                 try {
-                    teacherDAO.deleteList(selectedTeachers);
-                    refresh();
+                    teacherDAO.deleteListAsync(selectedTeachers).thenAccept(result -> {
+                        // Tells the user which teachers were not deleted, if any
+                        result.describeUnsuccessfulRows("teacher").ifPresent(description ->
+                                AlertUtil.genericError("Some teachers were not deleted", description));
+                        refresh();
+                    });
                 } catch(Exception e) {
                     AlertUtil.showDatabaseConnectionError("Error deleting teacher" + plural + ". No database connection.");
                 }
@@ -153,11 +180,10 @@ public class TeacherController {
             );
 
             try {
-                teacherDAO.addSingle(teacherToBeAdded);
+                teacherDAO.addSingleAsync(teacherToBeAdded).thenRun(this::refresh);
                 teacherView.getFirstNameField().clear();
                 teacherView.getLastNameField().clear();
                 teacherView.getEmailField().clear();
-                refresh();
             } catch (Exception e) {
                 AlertUtil.showDatabaseConnectionError("Error adding teacher. No database connection.");
             }
@@ -195,7 +221,7 @@ public class TeacherController {
 
     private void refresh() {
         try {
-            teacherList.setAll(teacherDAO.findAll());
+            teacherLoader.load(teacherDAO::findAll);
             updateComboBoxSelection();
         } catch (Exception e) {
             AlertUtil.showDatabaseConnectionError("Error while trying to refresh. No database connection.");
@@ -207,7 +233,7 @@ public class TeacherController {
         try {
             teacherView.getDepartmentComboBox().getSelectionModel().clearSelection();
             teacherView.getDepartmentComboBox().getItems().clear();
-            departmentList.setAll(departmentDAO.findAll());
+            departmentDAO.findAllAsync().thenAccept(departmentList::setAll);
         } catch (Exception _) {}
 
         teacherView.getDepartmentComboBox().setItems(departmentList);
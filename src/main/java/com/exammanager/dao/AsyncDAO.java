@@ -0,0 +1,53 @@
+package com.exammanager.dao;
+
+import com.exammanager.util.BackgroundExecutor;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Asynchronous companion to the {@link DAO} interface.
+ * <p>
+ * Provides default methods which run the corresponding {@link DAO} methods on a
+ * background thread using {@link BackgroundExecutor}, and complete the returned
+ * {@link CompletableFuture} on the JavaFX application thread. This keeps the UI
+ * responsive while queries are running.
+ *
+ * @param <T> a generic parameter. Can be any DAO-class.
+ *
+ * @author Bendik
+ */
+public interface AsyncDAO<T> extends DAO<T> {
+
+    public default CompletableFuture<Optional<T>> findByIdAsync(int id) {
+        return BackgroundExecutor.supplyAsync(() -> findById(id));
+    }
+
+    public default CompletableFuture<ObservableList<T>> findAllAsync() {
+        return BackgroundExecutor.supplyAsync(this::findAll);
+    }
+
+    public default CompletableFuture<Void> addSingleAsync(T object) {
+        return BackgroundExecutor.runAsync(() -> addSingle(object));
+    }
+
+    public default CompletableFuture<BatchResult> addAllAsync(Collection<T> objects) {
+        List<T> snapshot = new ArrayList<>(objects);
+        return BackgroundExecutor.supplyAsync(() -> addAll(snapshot));
+    }
+
+    public default CompletableFuture<Void> updateSingleAsync(T object) {
+        return BackgroundExecutor.runAsync(() -> updateSingle(object));
+    }
+
+    public default CompletableFuture<BatchResult> deleteListAsync(ObservableList<T> objects) {
+        // Copy the list first, as it is often a live table selection which may change while deleting
+        ObservableList<T> snapshot = FXCollections.observableArrayList(objects);
+        return BackgroundExecutor.supplyAsync(() -> deleteList(snapshot));
+    }
+}
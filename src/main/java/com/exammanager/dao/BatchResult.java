@@ -0,0 +1,146 @@
+package com.exammanager.dao;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * The result of a batched database operation, such as {@link DAO#deleteList}.
+ * <p>
+ * Contains one {@link Row} for every object the operation was given, in the same order,
+ * with the object's ID and what happened to it. Also contains the error message if the
+ * batch failed and its transaction was rolled back.
+ *
+ * @author Bendik
+ */
+public class BatchResult {
+
+    /**
+     * The outcome of a single row in a batch.
+     */
+    public enum Status {
+        /** The row was written or deleted. */
+        SUCCEEDED,
+        /** The statement ran, but no row matched (e.g. the row was already deleted). */
+        NOT_FOUND,
+        /** The row caused the batch to fail, or the batch failed without telling which row, and was rolled back. */
+        FAILED,
+        /** The row did not fail, but was not written or deleted because another row failed and the batch was rolled back. */
+        ROLLED_BACK,
+        /** The row was not sent to the database (e.g. it failed a check). */
+        SKIPPED
+    }
+
+    /**
+     * The ID of a single row in a batch, along with its outcome.
+     *
+     * @param id the ID of the row
+     * @param status the outcome for the row
+     */
+    public record Row(int id, Status status) {}
+
+    private final List<Row> rows = new ArrayList<>();
+    private String errorMessage;
+
+    void add(int id, Status status) {
+        rows.add(new Row(id, status));
+    }
+
+    void addAll(BatchResult other) {
+        rows.addAll(other.rows);
+        if (other.errorMessage != null) {
+            errorMessage = other.errorMessage;
+        }
+    }
+
+    void setErrorMessage(String errorMessage) {
+        this.errorMessage = errorMessage;
+    }
+
+    /**
+     * @return an unmodifiable list containing the outcome of every row
+     */
+    public List<Row> getRows() {
+        return Collections.unmodifiableList(rows);
+    }
+
+    /**
+     * @param status the status to count
+     * @return the number of rows with the given status
+     */
+    public int count(Status status) {
+        int count = 0;
+        for (Row row : rows) {
+            if (row.status() == status) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @param status the status to find
+     * @return the IDs of the rows with the given status, in the order the rows were given
+     */
+    public List<Integer> getIds(Status status) {
+        List<Integer> ids = new ArrayList<>();
+        for (Row row : rows) {
+            if (row.status() == status) {
+                ids.add(row.id());
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * Describes the rows which were not written or deleted, so the user can be told which rows
+     * of an operation did not go through and why.
+     *
+     * @param noun the name of a single row, e.g. "course"
+     * @return {@link Optional} containing one line for every status other than {@link Status#SUCCEEDED},
+     * with the IDs of the rows, or an empty {@link Optional} if every row succeeded
+     */
+    public Optional<String> describeUnsuccessfulRows(String noun) {
+        List<String> lines = new ArrayList<>();
+        describe(lines, Status.FAILED, noun, "failed: " + errorMessage);
+        describe(lines, Status.ROLLED_BACK, noun, "rolled back, because another " + noun + " failed");
+        describe(lines, Status.NOT_FOUND, noun, "not found, and may already have been deleted");
+        describe(lines, Status.SKIPPED, noun, "skipped");
+
+        if (lines.isEmpty() && errorMessage != null) {
+            lines.add("Failed: " + errorMessage);
+        }
+        return lines.isEmpty() ? Optional.empty() : Optional.of(String.join("\n", lines));
+    }
+
+    private void describe(List<String> lines, Status status, String noun, String outcome) {
+        List<Integer> ids = getIds(status);
+        if (!ids.isEmpty()) {
+            String plural = ids.size() == 1 ? "" : "s";
+            lines.add(ids.size() + " " + noun + plural + " " + outcome + " (ID" + plural + " "
+                    + String.join(", ", ids.stream().map(String::valueOf).toList()) + ")");
+        }
+    }
+
+    /**
+     * @return true if no rows failed
+     */
+    public boolean isSuccessful() {
+        return errorMessage == null;
+    }
+
+    /**
+     * @return the error message of a failed batch, or null if the batch succeeded
+     */
+    public String getErrorMessage() {
+        return errorMessage;
+    }
+
+    @Override
+    public String toString() {
+        return count(Status.SUCCEEDED) + " succeeded, " + count(Status.NOT_FOUND) + " not found, "
+                + count(Status.SKIPPED) + " skipped, " + count(Status.FAILED) + " failed, "
+                + count(Status.ROLLED_BACK) + " rolled back";
+    }
+}
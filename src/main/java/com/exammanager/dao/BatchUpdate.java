@@ -0,0 +1,190 @@
+package com.exammanager.dao;
+
+import com.exammanager.util.DatabaseConnection;
+
+import java.sql.BatchUpdateException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.ToIntFunction;
+
+/**
+ * A class for running one prepared statement for many objects using JDBC batching,
+ * used for batched deletes and bulk inserts.
+ * <p>
+ * Objects are sent to the database in chunks with {@code addBatch}/{@code executeBatch},
+ * using a single prepared statement inside a single transaction. If any chunk fails,
+ * the whole transaction is rolled back. The rows the driver reports as failing are reported
+ * as {@link BatchResult.Status#FAILED}, and the other rows as {@link BatchResult.Status#ROLLED_BACK}.
+ * If the driver does not tell which rows failed, every row is reported as failed.
+ * The chunk size is read from the {@code db.batch.chunkSize} property.
+ *
+ * @author Bendik
+ */
+public abstract class BatchUpdate {
+
+    private static final int DEFAULT_CHUNK_SIZE = 500;
+
+    /**
+     * Binds the parameters of a prepared statement for a single object.
+     *
+     * @param <T> the type of the objects in the batch
+     */
+    @FunctionalInterface
+    public interface Binder<T> {
+        void bind(PreparedStatement stmt, T object) throws SQLException;
+    }
+
+    /**
+     * Stores a generated key on an object after it has been inserted.
+     *
+     * @param <T> the type of the objects in the batch
+     */
+    @FunctionalInterface
+    public interface KeySetter<T> {
+        void setKey(T object, int key);
+    }
+
+    /**
+     * @return the number of rows sent to the database per {@code executeBatch} call
+     */
+    public static int getChunkSize() {
+        return Math.max(1, DatabaseConnection.getIntProperty("db.batch.chunkSize", DEFAULT_CHUNK_SIZE));
+    }
+
+    /**
+     * Runs a statement for every object in a single transaction on the given connection.
+     * The connection's auto-commit mode is restored afterwards.
+     *
+     * @param conn the connection to use
+     * @param sql the statement to run for every object
+     * @param objects the objects to run the statement for
+     * @param idOf returns the ID reported for an object
+     * @param binder binds the statement's parameters for an object
+     * @return a {@link BatchResult} with the outcome of every object
+     * @param <T> the type of the objects in the batch
+     * @throws SQLException if the connection's transaction state could not be changed
+     */
+    public static <T> BatchResult execute(Connection conn, String sql, List<T> objects,
+                                          ToIntFunction<T> idOf, Binder<T> binder) throws SQLException {
+        return run(conn, sql, objects, idOf, binder, null);
+    }
+
+    /**
+     * Inserts every object in a single transaction on the given connection, and stores the
+     * generated key of each inserted row on its object. If the batch fails, the keys are reset to 0.
+     * The connection's auto-commit mode is restored afterwards.
+     * <p>
+     * With MySQL, setting {@code db.rewriteBatchedStatements=true} lets the driver send each
+     * chunk as a single multi-row insert.
+     *
+     * @param conn the connection to use
+     * @param sql the insert statement to run for every object
+     * @param objects the objects to insert
+     * @param idOf returns the ID of an object
+     * @param binder binds the statement's parameters for an object
+     * @param keySetter stores the generated key on an object
+     * @return a {@link BatchResult} with the generated ID and outcome of every object
+     * @param <T> the type of the objects in the batch
+     * @throws SQLException if the connection's transaction state could not be changed
+     */
+    public static <T> BatchResult insert(Connection conn, String sql, List<T> objects, ToIntFunction<T> idOf,
+                                         Binder<T> binder, KeySetter<T> keySetter) throws SQLException {
+        return run(conn, sql, objects, idOf, binder, keySetter);
+    }
+
+    private static <T> BatchResult run(Connection conn, String sql, List<T> objects, ToIntFunction<T> idOf,
+                                       Binder<T> binder, KeySetter<T> keySetter) throws SQLException {
+        BatchResult result = new BatchResult();
+        if (objects.isEmpty()) {
+            return result;
+        }
+
+        int chunkSize = getChunkSize();
+        boolean autoCommit = conn.getAutoCommit();
+        conn.setAutoCommit(false);
+
+        int keys = keySetter != null ? Statement.RETURN_GENERATED_KEYS : Statement.NO_GENERATED_KEYS;
+
+        // The chunk being executed, used to find the failing rows if the batch fails
+        int chunkStart = 0;
+        int chunkEnd = 0;
+
+        try (PreparedStatement stmt = conn.prepareStatement(sql, keys)) {
+            int[] counts = new int[objects.size()];
+
+            for (int start = 0; start < objects.size(); start += chunkSize) {
+                int end = Math.min(start + chunkSize, objects.size());
+                chunkStart = start;
+                chunkEnd = end;
+                for (int i = start; i < end; i++) {
+                    binder.bind(stmt, objects.get(i));
+                    stmt.addBatch();
+                }
+                int[] chunkCounts = stmt.executeBatch();
+                System.arraycopy(chunkCounts, 0, counts, start, chunkCounts.length);
+
+                if (keySetter != null) {
+                    try (ResultSet generatedKeys = stmt.getGeneratedKeys()) {
+                        for (int i = start; i < end && generatedKeys.next(); i++) {
+                            keySetter.setKey(objects.get(i), generatedKeys.getInt(1));
+                        }
+                    }
+                }
+            }
+
+            conn.commit();
+
+            for (int i = 0; i < objects.size(); i++) {
+                boolean changed = counts[i] > 0 || counts[i] == Statement.SUCCESS_NO_INFO;
+                result.add(idOf.applyAsInt(objects.get(i)), changed ? BatchResult.Status.SUCCEEDED : BatchResult.Status.NOT_FOUND);
+            }
+        } catch (SQLException e) {
+            conn.rollback();
+            BatchResult.Status[] statuses = getFailureStatuses(e, objects.size(), chunkStart, chunkEnd);
+            for (int i = 0; i < objects.size(); i++) {
+                if (keySetter != null) {
+                    keySetter.setKey(objects.get(i), 0);
+                }
+                result.add(idOf.applyAsInt(objects.get(i)), statuses[i]);
+            }
+            result.setErrorMessage(e.getMessage());
+        } finally {
+            conn.setAutoCommit(autoCommit);
+        }
+
+        return result;
+    }
+
+    // Finds the rows which caused a rolled back batch to fail, from the update counts of the failing chunk.
+    // Depending on the driver's settings, the counts either cover the whole chunk with the failing rows
+    // marked as EXECUTE_FAILED, or stop just before the first failing row
+    private static BatchResult.Status[] getFailureStatuses(SQLException e, int size, int chunkStart, int chunkEnd) {
+        BatchResult.Status[] statuses = new BatchResult.Status[size];
+        Arrays.fill(statuses, BatchResult.Status.ROLLED_BACK);
+
+        boolean found = false;
+        if (e instanceof BatchUpdateException batchException && batchException.getUpdateCounts() != null) {
+            int[] counts = batchException.getUpdateCounts();
+            for (int i = 0; i < counts.length && chunkStart + i < chunkEnd; i++) {
+                if (counts[i] == Statement.EXECUTE_FAILED) {
+                    statuses[chunkStart + i] = BatchResult.Status.FAILED;
+                    found = true;
+                }
+            }
+            if (!found && chunkStart + counts.length < chunkEnd) {
+                statuses[chunkStart + counts.length] = BatchResult.Status.FAILED;
+                found = true;
+            }
+        }
+
+        if (!found) {
+            Arrays.fill(statuses, BatchResult.Status.FAILED);
+        }
+        return statuses;
+    }
+}
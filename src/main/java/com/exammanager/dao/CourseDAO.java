@@ -2,6 +2,7 @@ package com.exammanager.dao;
 
 import com.exammanager.model.Course;
 import com.exammanager.util.AlertUtil;
+import com.exammanager.util.ConnectionProvider;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 
@@ -9,22 +10,24 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 /**
- * Implementation of the {@link DAO} interface for Course.
+ * Implementation of the {@link AsyncDAO} interface for Course.
  * <p>
  * Provides database operations for the {@link Course} class, including CRUD (Create, Read, Update, Delete) functionality.
+ * Every operation borrows its own connection from {@link ConnectionProvider} and returns it when done,
+ * so a single instance can safely be shared between the JavaFX thread and background threads.
  * <p>
  * @author Bendik
  */
-public class CourseDAO implements DAO<Course> {
+public class CourseDAO implements AsyncDAO<Course> {
 
-    private Connection conn;
-
-    public CourseDAO(Connection conn) {
-        this.conn = conn;
-    }
+    // Rows shared by every user of the table, emptied when the table changes
+    private static final EntityCache<Course> CACHE = new EntityCache<>(Course::getId, "course");
 
     /**
      * Retrieves a course from the database by its ID.
@@ -34,20 +37,22 @@ public class CourseDAO implements DAO<Course> {
      */
     @Override
     public Optional<Course> findById(int id) {
-        if (conn == null) {
-            AlertUtil.showDatabaseConnectionError("Failed to get course. No database connection.");
+        try {
+            return CACHE.findById(id, () -> loadById(id));
+        } catch (SQLException e) {
+            AlertUtil.showDatabaseConnectionError("Error while getting course: " + e.getMessage());
             return Optional.empty();
         }
+    }
 
+    private Optional<Course> loadById(int id) throws SQLException {
         String sql = "SELECT * FROM course WHERE id = ?";
 
-        Optional<Course> course = Optional.empty();
-
-        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+        try (Connection conn = ConnectionProvider.borrow(); PreparedStatement stmt = conn.prepareStatement(sql)) {
             stmt.setInt(1, id);
             ResultSet rs = stmt.executeQuery();
             if (rs.next()) {
-                course = Optional.of(new Course(
+                return Optional.of(new Course(
                         rs.getInt("id"),
                         rs.getString("course_code"),
                         rs.getString("title"),
@@ -55,11 +60,9 @@ public class CourseDAO implements DAO<Course> {
                         rs.getInt("teacher_id")
                 ));
             }
-        } catch (SQLException e) {
-            AlertUtil.showDatabaseConnectionError("Error while getting teacher: " + e.getMessage());
         }
 
-        return course;
+        return Optional.empty();
     }
 
     /**
@@ -70,16 +73,20 @@ public class CourseDAO implements DAO<Course> {
      */
     @Override
     public ObservableList<Course> findAll() {
-        if (conn == null) {
-            AlertUtil.showDatabaseConnectionError("Failed to get courses. No database connection.");
+        try {
+            return FXCollections.observableArrayList(CACHE.findAll(this::loadAll));
+        } catch (SQLException e) {
+            AlertUtil.showDatabaseConnectionError("Error while getting courses: " + e.getMessage());
             return FXCollections.observableArrayList();
         }
+    }
 
+    private List<Course> loadAll() throws SQLException {
         String sql = "SELECT * FROM course";
 
-        ObservableList<Course> courses = FXCollections.observableArrayList();
+        List<Course> courses = new ArrayList<>();
 
-        try (PreparedStatement stmt = conn.prepareStatement(sql); ResultSet rs = stmt.executeQuery()) {
+        try (Connection conn = ConnectionProvider.borrow(); PreparedStatement stmt = conn.prepareStatement(sql); ResultSet rs = stmt.executeQuery()) {
             while (rs.next()) {
                 Course course = new Course(
                         rs.getInt("id"),
@@ -90,8 +97,6 @@ public class CourseDAO implements DAO<Course> {
                 );
                 courses.add(course);
             }
-        } catch (SQLException e) {
-            AlertUtil.showDatabaseConnectionError("Error while getting courses: " + e.getMessage());
         }
 
         return courses;
@@ -104,14 +109,9 @@ public class CourseDAO implements DAO<Course> {
      */
     @Override
     public void addSingle(Course course) {
-        if (conn == null) {
-            AlertUtil.showDatabaseConnectionError("Failed to add course. No database connection.");
-            return;
-        }
-
         String sql = "INSERT INTO course (course_code, title, credits, teacher_id) VALUES (?, ?, ?, ?)";
 
-        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+        try (Connection conn = ConnectionProvider.borrow(); PreparedStatement stmt = conn.prepareStatement(sql)) {
             stmt.setString(1, course.getCourseCode());
             stmt.setString(2, course.getTitle());
             stmt.setInt(3, course.getCredits());
@@ -120,6 +120,45 @@ public class CourseDAO implements DAO<Course> {
         } catch (SQLException e) {
             AlertUtil.showDatabaseConnectionError("Error while adding course: " + e.getMessage());
         }
+
+        TableVersions.changed();
+    }
+
+    /**
+     * Inserts a collection of new courses into the database.
+     * <p>
+     * All courses are inserted with a single batched statement inside one transaction.
+     * The generated ID of each inserted course is set on its object.
+     *
+     * @param courses the courses to be added
+     * @return a {@link BatchResult} with the generated ID and outcome for every course
+     */
+    @Override
+    public BatchResult addAll(Collection<Course> courses) {
+        String sql = "INSERT INTO course (course_code, title, credits, teacher_id) VALUES (?, ?, ?, ?)";
+
+        BatchResult result = new BatchResult();
+
+        try (Connection conn = ConnectionProvider.borrow()) {
+            result = BatchUpdate.insert(conn, sql, new ArrayList<>(courses), Course::getId,
+                    (stmt, course) -> {
+                        stmt.setString(1, course.getCourseCode());
+                        stmt.setString(2, course.getTitle());
+                        stmt.setInt(3, course.getCredits());
+                        stmt.setInt(4, course.getTeacherId());
+                    },
+                    Course::setId);
+        } catch (SQLException e) {
+            result.setErrorMessage(e.getMessage());
+        }
+
+        TableVersions.changed();
+
+        if (!result.isSuccessful()) {
+            AlertUtil.showDatabaseConnectionError("Error while adding courses: " + result.getErrorMessage());
+        }
+
+        return result;
     }
 
     /**
@@ -131,14 +170,9 @@ public class CourseDAO implements DAO<Course> {
      */
     @Override
     public void updateSingle(Course course) {
-        if (conn == null) {
-            AlertUtil.showDatabaseConnectionError("Failed to update course. No database connection.");
-            return;
-        }
-
         String sql = "UPDATE course SET course_code = ?, title = ?, credits = ?, teacher_id = ? WHERE id = ?";
 
-        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+        try (Connection conn = ConnectionProvider.borrow(); PreparedStatement stmt = conn.prepareStatement(sql)) {
             stmt.setString(1, course.getCourseCode());
             stmt.setString(2, course.getTitle());
             stmt.setInt(3, course.getCredits());
@@ -148,30 +182,35 @@ public class CourseDAO implements DAO<Course> {
         } catch (SQLException e) {
             AlertUtil.showDatabaseConnectionError("Error while updating course: " + e.getMessage());
         }
+
+        TableVersions.changed();
     }
 
     /**
-     * Deletes a course in the database.
+     * Deletes a list of courses in the database.
+     * <p>
+     * All courses are deleted with a single batched statement inside one transaction.
+     * <p>
+     * Errors are not shown to the user, but returned in the result, so the caller can report
+     * which courses were not deleted.
      *
      * @param courses {@link ObservableList} of courses to delete
+     * @return a {@link BatchResult} with the outcome for every course
      */
     @Override
-    public void deleteList(ObservableList<Course> courses) {
-        if (conn == null) {
-            AlertUtil.showDatabaseConnectionError("Failed to delete course(s). No database connection.");
-            return;
-        }
-
+    public BatchResult deleteList(ObservableList<Course> courses) {
         String sql = "DELETE FROM course WHERE id = ?";
 
-        for (Course course : courses) {
-            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-                int id = course.getId();
-                stmt.setInt(1, id);
-                stmt.executeUpdate();
-            } catch (SQLException e) {
-                AlertUtil.showDatabaseConnectionError("Error while deleting course(s): " + e.getMessage());
-            }
+        BatchResult result = new BatchResult();
+
+        try (Connection conn = ConnectionProvider.borrow()) {
+            result = BatchUpdate.execute(conn, sql, courses, Course::getId, (stmt, course) -> stmt.setInt(1, course.getId()));
+        } catch (SQLException e) {
+            result.setErrorMessage(e.getMessage());
         }
+
+        TableVersions.changed();
+
+        return result;
     }
 }
@@ -2,6 +2,7 @@ package com.exammanager.dao;
 
 import javafx.collections.ObservableList;
 
+import java.util.Collection;
 import java.util.Optional;
 
 // DAO (Data Access Object) interface for adding CRUD functionality
@@ -24,7 +25,9 @@ public interface DAO<T> {
 
     public void addSingle(T object);
 
+    public BatchResult addAll(Collection<T> objects);
+
     public void updateSingle(T object);
 
-    public void deleteList(ObservableList<T> objects);
+    public BatchResult deleteList(ObservableList<T> objects);
 }
@@ -2,34 +2,32 @@ package com.exammanager.dao;
 
 import com.exammanager.model.Department;
 import com.exammanager.util.AlertUtil;
+import com.exammanager.util.ConnectionProvider;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 /**
- * Implementation of the {@link DAO} interface for Department.
+ * Implementation of the {@link AsyncDAO} interface for Department.
  * <p>
  * Provides database operations for the {@link Department} class, including CRUD (Create, Read, Update, Delete) functionality.
+ * Every operation borrows its own connection from {@link ConnectionProvider} and returns it when done,
+ * so a single instance can safely be shared between the JavaFX thread and background threads.
  * <p>
  * @author Bendik
  */
-public class DepartmentDAO implements DAO<Department> {
+public class DepartmentDAO implements AsyncDAO<Department> {
 
-    private final Connection conn;
-
-    /**
-     * Constructs a DepartmentDAO with the given database connection.
-     *
-     * @param conn the active database connection
-     */
-
-    public DepartmentDAO(Connection conn) {
-        this.conn = conn;
-    }
+    // Rows shared by every user of the table, emptied when the table changes
+    private static final EntityCache<Department> CACHE = new EntityCache<>(Department::getId, "department");
 
     /**
      * Retrieves a department from the database by their ID.
@@ -39,26 +37,26 @@ public class DepartmentDAO implements DAO<Department> {
      */
     @Override
     public Optional<Department> findById(int id) {
-        if (conn == null) {
-            AlertUtil.showDatabaseConnectionError("Failed to get department. No database connection.");
+        try {
+            return CACHE.findById(id, () -> loadById(id));
+        } catch (SQLException e) {
+            AlertUtil.showDatabaseConnectionError("Error while getting department: " + e.getMessage());
             return Optional.empty();
         }
+    }
 
+    private Optional<Department> loadById(int id) throws SQLException {
         String sql = "SELECT * FROM department WHERE id = ?";
 
-        Optional<Department> department = Optional.empty();
-
-        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+        try (Connection conn = ConnectionProvider.borrow(); PreparedStatement stmt = conn.prepareStatement(sql)) {
             stmt.setInt(1, id);
             ResultSet rs = stmt.executeQuery();
             if (rs.next()) {
-                department = Optional.of(new Department(rs.getInt("id"), rs.getString("name")));
+                return Optional.of(new Department(rs.getInt("id"), rs.getString("name")));
             }
-        } catch (Exception e) {
-            AlertUtil.showDatabaseConnectionError("Error while getting department: " + e.getMessage());
         }
 
-        return department;
+        return Optional.empty();
     }
 
     /**
@@ -68,16 +66,11 @@ public class DepartmentDAO implements DAO<Department> {
      * @return {@link Optional} containing a {@link Department} object if successful, otherwise empty
      */
     public Optional<Department> findByName(String name) {
-        if (conn == null) {
-            AlertUtil.showDatabaseConnectionError("Failed to get department. No database connection.");
-            return Optional.empty();
-        }
-
         String sql = "SELECT * FROM department WHERE name = ?";
 
         Optional<Department> department = Optional.empty();
 
-        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+        try (Connection conn = ConnectionProvider.borrow(); PreparedStatement stmt = conn.prepareStatement(sql)) {
             stmt.setString(1, name);
             ResultSet rs = stmt.executeQuery();
             if (rs.next()) {
@@ -98,22 +91,24 @@ public class DepartmentDAO implements DAO<Department> {
      */
     @Override
     public ObservableList<Department> findAll() {
-        if (conn == null) {
-            AlertUtil.showDatabaseConnectionError("Failed to get departments. No database connection.");
+        try {
+            return FXCollections.observableArrayList(CACHE.findAll(this::loadAll));
+        } catch (SQLException e) {
+            AlertUtil.showDatabaseConnectionError("Error while getting departments: " + e.getMessage());
             return FXCollections.observableArrayList();
         }
+    }
 
+    private List<Department> loadAll() throws SQLException {
         String sql = "SELECT * FROM department ORDER BY id";
 
-        ObservableList<Department> departments = FXCollections.observableArrayList();
+        List<Department> departments = new ArrayList<>();
 
-        try (PreparedStatement stmt = conn.prepareStatement(sql); ResultSet rs = stmt.executeQuery()) {
+        try (Connection conn = ConnectionProvider.borrow(); PreparedStatement stmt = conn.prepareStatement(sql); ResultSet rs = stmt.executeQuery()) {
             while (rs.next()) {
                 Department department = new Department(rs.getInt("id"), rs.getString("name"));
                 departments.add(department);
             }
-        } catch (Exception e) {
-            AlertUtil.showDatabaseConnectionError("Error while getting departments: " + e.getMessage());
         }
 
         return departments;
@@ -126,20 +121,51 @@ public class DepartmentDAO implements DAO<Department> {
      */
     @Override
     public void addSingle(Department department) {
-        if (conn == null) {
-            AlertUtil.showDatabaseConnectionError("Failed to add department. No database connection.");
-            return;
-        }
-
         String sql = "INSERT INTO department (id, name) VALUES (?, ?)";
 
-        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+        try (Connection conn = ConnectionProvider.borrow(); PreparedStatement stmt = conn.prepareStatement(sql)) {
             stmt.setInt(1, department.getId());
             stmt.setString(2, department.getName());
             stmt.executeUpdate();
         } catch (Exception e) {
             AlertUtil.showDatabaseConnectionError("Error while adding department: " + e.getMessage());
         }
+
+        TableVersions.changed();
+    }
+
+    /**
+     * Inserts a collection of new departments into the database.
+     * <p>
+     * All departments are inserted with a single batched statement inside one transaction.
+     * The generated ID of each inserted department is set on its object.
+     *
+     * @param departments the departments to be added
+     * @return a {@link BatchResult} with the generated ID and outcome for every department
+     */
+    @Override
+    public BatchResult addAll(Collection<Department> departments) {
+        String sql = "INSERT INTO department (name) VALUES (?)";
+
+        BatchResult result = new BatchResult();
+
+        try (Connection conn = ConnectionProvider.borrow()) {
+            result = BatchUpdate.insert(conn, sql, new ArrayList<>(departments), Department::getId,
+                    (stmt, department) -> {
+                        stmt.setString(1, department.getName());
+                    },
+                    Department::setId);
+        } catch (SQLException e) {
+            result.setErrorMessage(e.getMessage());
+        }
+
+        TableVersions.changed();
+
+        if (!result.isSuccessful()) {
+            AlertUtil.showDatabaseConnectionError("Error while adding departments: " + result.getErrorMessage());
+        }
+
+        return result;
     }
 
     /**
@@ -151,56 +177,62 @@ public class DepartmentDAO implements DAO<Department> {
      */
     @Override
     public void updateSingle(Department department) {
-        if (conn == null) {
-            AlertUtil.showDatabaseConnectionError("Failed to update department. No database connection.");
-            return;
-        }
-
         String sql  = "UPDATE department SET name = ? WHERE id = ?";
 
-        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+        try (Connection conn = ConnectionProvider.borrow(); PreparedStatement stmt = conn.prepareStatement(sql)) {
             stmt.setString(1, department.getName());
             stmt.setInt(2, department.getId());
             stmt.executeUpdate();
         } catch (Exception e) {
             AlertUtil.showDatabaseConnectionError("Error while updating department: " + e.getMessage());
         }
+
+        TableVersions.changed();
     }
 
     /**
-     * Deletes a department in the database.
+     * Deletes a list of departments in the database.
+     * <p>
+     * Departments with registered teachers cannot be deleted, and are skipped. The remaining
+     * departments are deleted with a single batched statement inside one transaction.
+     * <p>
+     * Errors are not shown to the user, but returned in the result, so the caller can report
+     * which departments were not deleted.
      *
-     * @param departments {@link ObservableList} of department to delete
+     * @param departments {@link ObservableList} of departments to delete
+     * @return a {@link BatchResult} with the outcome for every department
      */
     @Override
-    public void deleteList(ObservableList<Department> departments) {
-        if (conn == null) {
-            AlertUtil.showDatabaseConnectionError("Failed to delete department(s). No database connection.");
-            return;
-        }
-
+    public BatchResult deleteList(ObservableList<Department> departments) {
         String sql = "DELETE FROM department WHERE id = ?";
 
-        for (Department department : departments) {
-            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-                // Check if department has registered teachers
-                PreparedStatement departmentEmptyStmt = conn.prepareStatement("SELECT * FROM teacher WHERE department = ?");
-                departmentEmptyStmt.setString(1, department.getName());
-
-                // Delete department if no teachers are registered to it
-                // Otherwise display an error
-                if (!departmentEmptyStmt.executeQuery().isBeforeFirst()) {
-                    int id = department.getId();
-                    stmt.setInt(1, id);
-                    stmt.executeUpdate();
-                } else {
-                    AlertUtil.genericError("Error deleting department", "Cannot delete non-empty departments.\n"
-                    + department.getName() + " currently has employed teachers.");
+        BatchResult result = new BatchResult();
+        List<Department> emptyDepartments = new ArrayList<>();
+
+        try (Connection conn = ConnectionProvider.borrow()) {
+            // Check if departments have registered teachers, reusing one statement for all departments
+            try (PreparedStatement departmentEmptyStmt = conn.prepareStatement("SELECT 1 FROM teacher WHERE department_id = ? LIMIT 1")) {
+                for (Department department : departments) {
+                    departmentEmptyStmt.setInt(1, department.getId());
+                    try (ResultSet rs = departmentEmptyStmt.executeQuery()) {
+                        if (rs.next()) {
+                            result.add(department.getId(), BatchResult.Status.SKIPPED);
+                        } else {
+                            emptyDepartments.add(department);
+                        }
+                    }
                 }
-
-            } catch (Exception e) {
-                AlertUtil.showDatabaseConnectionError("Error while deleting department(s): " + e.getMessage());
             }
+
+            // Delete departments if no teachers are registered to them
+            result.addAll(BatchUpdate.execute(conn, sql, emptyDepartments, Department::getId,
+                    (stmt, department) -> stmt.setInt(1, department.getId())));
+        } catch (Exception e) {
+            result.setErrorMessage(e.getMessage());
         }
+
+        TableVersions.changed();
+
+        return result;
     }
 }
@@ -0,0 +1,144 @@
+package com.exammanager.dao;
+
+import com.exammanager.util.DatabaseConnection;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.function.ToIntFunction;
+
+/**
+ * A cache of the rows of a database table, shared by everything using the table's DAO.
+ * <p>
+ * Holds either the whole table, if it has no more rows than the cache's maximum size, or the
+ * most recently used rows looked up by ID. Before every lookup, the table's version is compared
+ * with the version the rows were cached at, see {@link TableVersions}, and the cache is emptied
+ * if the table has changed. Rows are also reloaded once they are older than the cache's time to
+ * live, in case the table was changed without updating its version.
+ * <p>
+ * If the table versions are not available, nothing is cached and every lookup is loaded from
+ * the database. Safe to use from several threads at once.
+ * <p>
+ * The size and time to live are set with the {@code db.cache.maxEntries} and
+ * {@code db.cache.ttlSeconds} keys of the properties file.
+ *
+ * @param <T> the type of the cached rows
+ *
+ * @author Bendik
+ */
+class EntityCache<T> {
+
+    /**
+     * Loads rows from the database when they are not cached.
+     *
+     * @param <R> the type of the loaded result
+     */
+    @FunctionalInterface
+    interface Loader<R> {
+        R load() throws SQLException;
+    }
+
+    private final String[] tables;
+    private final ToIntFunction<T> idFunction;
+    private final int maxSize;
+    private final long ttlNanos;
+
+    // The whole table in query order, or null if it is not cached
+    private List<T> all;
+
+    // Rows by ID, least recently used first
+    private final Map<Integer, T> byId;
+
+    private long version = -1;
+    private long loadedAt;
+
+    /**
+     * Creates an empty cache.
+     *
+     * @param idFunction returns the ID of a row
+     * @param tables the table of the rows, followed by any tables joined into them
+     */
+    EntityCache(ToIntFunction<T> idFunction, String... tables) {
+        this.tables = tables;
+        this.idFunction = idFunction;
+        this.maxSize = DatabaseConnection.getIntProperty("db.cache.maxEntries", 100_000);
+        this.ttlNanos = DatabaseConnection.getIntProperty("db.cache.ttlSeconds", 300) * 1_000_000_000L;
+        this.byId = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, T> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    /**
+     * Returns every row of the table, loading them if they are not cached.
+     *
+     * @param loader loads every row of the table
+     * @return a new list of the rows, which may be changed by the caller
+     * @throws SQLException if the rows are not cached and loading them fails
+     */
+    synchronized List<T> findAll(Loader<List<T>> loader) throws SQLException {
+        boolean cacheable = validate();
+        if (cacheable && all != null) {
+            return new ArrayList<>(all);
+        }
+
+        List<T> rows = loader.load();
+        if (cacheable && rows.size() <= maxSize) {
+            all = new ArrayList<>(rows);
+            byId.clear();
+            for (T row : rows) {
+                byId.put(idFunction.applyAsInt(row), row);
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Returns a row of the table by its ID, loading it if it is not cached.
+     *
+     * @param id the ID of the row
+     * @param loader loads the row with the ID
+     * @return the row, or an empty {@link Optional} if there is no row with the ID
+     * @throws SQLException if the row is not cached and loading it fails
+     */
+    synchronized Optional<T> findById(int id, Loader<Optional<T>> loader) throws SQLException {
+        boolean cacheable = validate();
+        if (cacheable) {
+            T row = byId.get(id);
+            if (row != null) {
+                return Optional.of(row);
+            }
+            // The whole table is cached, so there is no row with the ID
+            if (all != null) {
+                return Optional.empty();
+            }
+        }
+
+        Optional<T> row = loader.load();
+        if (cacheable) {
+            row.ifPresent(value -> byId.put(id, value));
+        }
+        return row;
+    }
+
+    // Empties the cache if the table has changed or the rows are too old
+    // Returns whether loaded rows may be cached
+    private boolean validate() {
+        OptionalLong currentVersion = TableVersions.get(tables);
+        long now = System.nanoTime();
+
+        if (currentVersion.isEmpty() || currentVersion.getAsLong() != version || now - loadedAt > ttlNanos) {
+            all = null;
+            byId.clear();
+            version = currentVersion.orElse(-1);
+            loadedAt = now;
+        }
+        return currentVersion.isPresent();
+    }
+}
@@ -1,32 +1,45 @@
 package com.exammanager.dao;
 
 import com.exammanager.model.Exam;
+import com.exammanager.model.ExamDetails;
 import com.exammanager.model.Teacher;
 import com.exammanager.util.AlertUtil;
+import com.exammanager.util.BackgroundExecutor;
+import com.exammanager.util.ConnectionProvider;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 
 import java.sql.*;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
 /**
- * Implementation of the {@link DAO} interface for Exam.
+ * Implementation of the {@link AsyncDAO} interface for Exam.
  * <p>
  * Provides database operations for the {@link Exam} class, including CRUD (Create, Read, Update, Delete) functionality.
+ * Exams can also be retrieved as {@link ExamDetails}, joined with their student and course in the same query,
+ * including one page at a time.
+ * Every operation borrows its own connection from {@link ConnectionProvider} and returns it when done,
+ * so a single instance can safely be shared between the JavaFX thread and background threads.
  * <p>
  * @author Bendik
  */
-public class ExamDAO implements DAO<Exam> {
-    private final Connection conn;
+public class ExamDAO implements AsyncDAO<Exam> {
 
-    /**
-     * Constructs a TeacherDAO with the given database connection.
-     *
-     * @param conn the active database connection
-     */
-    public ExamDAO(Connection conn) {
-        this.conn = conn;
-    }
+    private static final Set<String> SORT_COLUMNS = Set.of("id", "student_id", "course_id", "exam_date", "grade");
+
+    // Exams joined with their student and course, wrapped in a derived table so the joined rows can be
+    // filtered, sorted and paged by unqualified column names like a single table.
+    // MySQL merges the derived table into the outer query, so the exam indexes are still used.
+    // Package-private so QueryPlanCheck can check the plans of the queries built from it
+    static final String SELECT_EXAM_DETAILS = "SELECT * FROM (" +
+            "SELECT e.id, e.student_id, s.first_name, s.last_name, s.email AS student_email, " +
+            "e.course_id, c.course_code, c.title AS course_title, e.exam_date, e.grade FROM exam AS e " +
+            "INNER JOIN student AS s ON e.student_id = s.id " +
+            "INNER JOIN course AS c ON e.course_id = c.id) AS exam_details";
 
     /**
      * Retrieves an exam from the database by its ID.
@@ -36,16 +49,11 @@ public class ExamDAO implements DAO<Exam> {
      */
     @Override
     public Optional<Exam> findById(int id) {
-        if (conn == null) {
-            AlertUtil.showDatabaseConnectionError("Failed to get exam. No database connection.");
-            return Optional.empty();
-        }
-
         String sql = "SELECT * FROM exam WHERE id = ?";
 
         Optional<Exam> exam = Optional.empty();
 
-        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+        try (Connection conn = ConnectionProvider.borrow(); PreparedStatement stmt = conn.prepareStatement(sql)) {
             stmt.setInt(1, id);
             ResultSet rs = stmt.executeQuery();
             if (rs.next()) {
@@ -66,37 +74,52 @@ public class ExamDAO implements DAO<Exam> {
     }
 
     /**
-     * Retrieves a list of all exams associated with a student from the database.
+     * Retrieves the details of all graded exams associated with a specific course from the database.
+     * <p>
+     * Exams with no grade are excluded by the query, so the exam table is only read
+     * through its course and grade index.
      *
-     * @param email the email associated with the student whose exams should be retrieved
-     * @return {@link ObservableList} of {@link Exam} objects containing all exams
-     * in the database associated with a specific student if successful,
-     * otherwise an empty {@link ObservableList}
+     * @param courseId the ID of the course whose exams should be retrieved
+     * @return {@link ObservableList} of {@link ExamDetails} objects containing all graded exams
+     * associated with a specific course, ordered by ID, if successful,
+     * or an empty {@link ObservableList} if none are found
      */
-    public ObservableList<Exam> findAllByEmail(String email) {
-        if (conn == null) {
-            AlertUtil.showDatabaseConnectionError("Failed to get exams. No database connection.");
-            return FXCollections.observableArrayList();
+    public ObservableList<ExamDetails> findGradedExamDetailsByCourseId(int courseId) {
+        String sql = SELECT_EXAM_DETAILS + " WHERE course_id = ? AND grade <> 'No grade' ORDER BY id";
+
+        ObservableList<ExamDetails> exams = FXCollections.observableArrayList();
+
+        try (Connection conn = ConnectionProvider.borrow(); PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setInt(1, courseId);
+            ResultSet rs = stmt.executeQuery();
+            while (rs.next()) {
+                exams.add(mapExamDetails(rs));
+            }
+        } catch (SQLException e) {
+            AlertUtil.showDatabaseConnectionError("Error while getting exams: " + e.getMessage());
         }
 
-        String sql = "SELECT e.id, e.student_id, e.course_id, e.exam_date, e.grade FROM exam AS e " +
-                     "INNER JOIN student AS s ON e.student_id = s.id " +
-                     "WHERE s.email = ?";
+        return exams;
+    }
 
-        ObservableList<Exam> exams = FXCollections.observableArrayList();
+    /**
+     * Retrieves the details of all exams associated with a student from the database.
+     *
+     * @param email the email associated with the student whose exams should be retrieved
+     * @return {@link ObservableList} of {@link ExamDetails} objects containing all exams
+     * associated with a specific student, ordered by ID, if successful,
+     * otherwise an empty {@link ObservableList}
+     */
+    public ObservableList<ExamDetails> findExamDetailsByEmail(String email) {
+        String sql = SELECT_EXAM_DETAILS + " WHERE student_email = ? ORDER BY id";
 
-        try (PreparedStatement stmt = conn.prepareStatement(sql) ) {
+        ObservableList<ExamDetails> exams = FXCollections.observableArrayList();
+
+        try (Connection conn = ConnectionProvider.borrow(); PreparedStatement stmt = conn.prepareStatement(sql)) {
             stmt.setString(1, email);
             ResultSet rs = stmt.executeQuery();
             while (rs.next()) {
-                Exam exam = new Exam(
-                        rs.getInt("id"),
-                        rs.getInt("student_id"),
-                        rs.getInt("course_id"),
-                        rs.getDate("exam_date").toLocalDate(),
-                        rs.getString("grade")
-                );
-                exams.add(exam);
+                exams.add(mapExamDetails(rs));
             }
         } catch (SQLException e) {
             AlertUtil.showDatabaseConnectionError("Error while getting exams: " + e.getMessage());
@@ -106,35 +129,29 @@ public class ExamDAO implements DAO<Exam> {
     }
 
     /**
-     * Retrieves a list of all exams associated with a specific course from the database.
+     * Retrieves the details of all exams associated with a student on a background thread.
      *
-     * @param courseId the ID of the course whose exams should be retrieved
-     * @return {@link ObservableList} of {@link Exam} objects containing all exams
-     * associated with a specific course student if successful,
-     * or an empty {@link ObservableList} if none are found
+     * @param email the email associated with the student whose exams should be retrieved
+     * @return {@link CompletableFuture} completed on the JavaFX application thread with the
+     * result of {@link #findExamDetailsByEmail(String)}
      */
-    public ObservableList<Exam> findByCourseId(int courseId) {
-        if (conn == null) {
-            AlertUtil.showDatabaseConnectionError("Failed to get exams. No database connection.");
-            return FXCollections.observableArrayList();
-        }
-
-        String sql = "SELECT * FROM exam WHERE course_id = ?";
+    public CompletableFuture<ObservableList<ExamDetails>> findExamDetailsByEmailAsync(String email) {
+        return BackgroundExecutor.supplyAsync(() -> findExamDetailsByEmail(email));
+    }
 
-        ObservableList<Exam> exams = FXCollections.observableArrayList();
+    /**
+     * Retrieves the details of all exams from the database.
+     *
+     * @return {@link ObservableList} of {@link ExamDetails} objects containing all exams
+     * in the database if successful, otherwise an empty {@link ObservableList}
+     */
+    public ObservableList<ExamDetails> findAllExamDetails() {
+        ObservableList<ExamDetails> exams = FXCollections.observableArrayList();
 
-        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-            stmt.setInt(1, courseId);
-            ResultSet rs = stmt.executeQuery();
+        try (Connection conn = ConnectionProvider.borrow(); PreparedStatement stmt = conn.prepareStatement(SELECT_EXAM_DETAILS);
+             ResultSet rs = stmt.executeQuery()) {
             while (rs.next()) {
-                Exam exam = new Exam(
-                        rs.getInt("id"),
-                        rs.getInt("student_id"),
-                        rs.getInt("course_id"),
-                        rs.getDate("exam_date").toLocalDate(),
-                        rs.getString("grade")
-                );
-                exams.add(exam);
+                exams.add(mapExamDetails(rs));
             }
         } catch (SQLException e) {
             AlertUtil.showDatabaseConnectionError("Error while getting exams: " + e.getMessage());
@@ -143,6 +160,62 @@ public class ExamDAO implements DAO<Exam> {
         return exams;
     }
 
+    /**
+     * Retrieves the details of all exams on a background thread.
+     *
+     * @return {@link CompletableFuture} completed on the JavaFX application thread with the
+     * result of {@link #findAllExamDetails()}
+     */
+    public CompletableFuture<ObservableList<ExamDetails>> findAllExamDetailsAsync() {
+        return BackgroundExecutor.supplyAsync(this::findAllExamDetails);
+    }
+
+    /**
+     * Retrieves a page of exam details from the database, using keyset pagination.
+     * <p>
+     * A search query consisting of digits matches exams with that exam ID, student ID or course ID.
+     * Any other search query matches exams with that grade, and exams whose student's first or last name,
+     * or whose course title, starts with the query.
+     *
+     * @param request the page to retrieve, sorted by one of the exam table's columns
+     * @param cancellation a handle which can be used to cancel the query while it is running
+     * @return a {@link Page} of {@link ExamDetails} objects if successful, otherwise an empty page
+     */
+    public Page<ExamDetails> findExamDetails(PageRequest request, QueryCancellation cancellation) {
+        try (Connection conn = ConnectionProvider.borrow()) {
+            return KeysetPaging.findPage(conn, SELECT_EXAM_DETAILS, SORT_COLUMNS, request, getSearchFilter(request.search()),
+                    ExamDAO::mapExamDetails, cancellation);
+        } catch (SQLException e) {
+            if (!cancellation.isCancelled()) {
+                AlertUtil.showDatabaseConnectionError("Error while getting exams: " + e.getMessage());
+            }
+            return Page.empty();
+        }
+    }
+
+    /**
+     * @return a {@link PagedDAO} retrieving pages of exam details with
+     * {@link #findExamDetails(PageRequest, QueryCancellation)}
+     */
+    public PagedDAO<ExamDetails> examDetailsPages() {
+        return this::findExamDetails;
+    }
+
+    private static ExamDetails mapExamDetails(ResultSet rs) throws SQLException {
+        return new ExamDetails(
+                rs.getInt("id"),
+                rs.getInt("student_id"),
+                rs.getString("first_name"),
+                rs.getString("last_name"),
+                rs.getString("student_email"),
+                rs.getInt("course_id"),
+                rs.getString("course_code"),
+                rs.getString("course_title"),
+                rs.getDate("exam_date").toLocalDate(),
+                rs.getString("grade")
+        );
+    }
+
     /**
      * Retrieves a list of all exams from the database.
      *
@@ -151,16 +224,11 @@ public class ExamDAO implements DAO<Exam> {
      */
     @Override
     public ObservableList<Exam> findAll() {
-        if (conn == null) {
-            AlertUtil.showDatabaseConnectionError("Failed to get exams. No database connection.");
-            return FXCollections.observableArrayList();
-        }
-
         String sql = "SELECT * FROM exam";
 
         ObservableList<Exam> exams = FXCollections.observableArrayList();
 
-        try (PreparedStatement stmt = conn.prepareStatement(sql); ResultSet rs = stmt.executeQuery()) {
+        try (Connection conn = ConnectionProvider.borrow(); PreparedStatement stmt = conn.prepareStatement(sql); ResultSet rs = stmt.executeQuery()) {
             while (rs.next()) {
                 Exam exam = new Exam(
                         rs.getInt("id"),
@@ -178,6 +246,22 @@ public class ExamDAO implements DAO<Exam> {
         return exams;
     }
 
+    private static KeysetPaging.Filter getSearchFilter(String search) {
+        if (search.isEmpty()) {
+            return null;
+        }
+
+        if (search.length() <= 9 && search.chars().allMatch(Character::isDigit)) {
+            int id = Integer.parseInt(search);
+            return new KeysetPaging.Filter("id = ? OR student_id = ? OR course_id = ?", id, id, id);
+        }
+
+        // Student names and course titles are matched by prefix, as in the student table's search
+        String prefix = KeysetPaging.escapeLike(search) + "%";
+        return new KeysetPaging.Filter("grade = ? OR first_name LIKE ? OR last_name LIKE ? OR course_title LIKE ?",
+                search, prefix, prefix, prefix);
+    }
+
     /**
      * Inserts a new exam into the database.
      *
@@ -185,14 +269,9 @@ public class ExamDAO implements DAO<Exam> {
      */
     @Override
     public void addSingle(Exam exam) {
-        if (conn == null) {
-            AlertUtil.showDatabaseConnectionError("Failed to add exam. No database connection.");
-            return;
-        }
-
         String sql = "INSERT INTO exam (student_id, course_id, exam_date, grade) VALUES (?, ?, ?, ?)";
 
-        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+        try (Connection conn = ConnectionProvider.borrow(); PreparedStatement stmt = conn.prepareStatement(sql)) {
             stmt.setInt(1, exam.getStudentId());
             stmt.setInt(2, exam.getCourseId());
             stmt.setDate(3, Date.valueOf(exam.getExamDate()));
@@ -203,6 +282,41 @@ public class ExamDAO implements DAO<Exam> {
         }
     }
 
+    /**
+     * Inserts a collection of new exams into the database.
+     * <p>
+     * All exams are inserted with a single batched statement inside one transaction.
+     * The generated ID of each inserted exam is set on its object.
+     *
+     * @param exams the exams to be added
+     * @return a {@link BatchResult} with the generated ID and outcome for every exam
+     */
+    @Override
+    public BatchResult addAll(Collection<Exam> exams) {
+        String sql = "INSERT INTO exam (student_id, course_id, exam_date, grade) VALUES (?, ?, ?, ?)";
+
+        BatchResult result = new BatchResult();
+
+        try (Connection conn = ConnectionProvider.borrow()) {
+            result = BatchUpdate.insert(conn, sql, new ArrayList<>(exams), Exam::getId,
+                    (stmt, exam) -> {
+                        stmt.setInt(1, exam.getStudentId());
+                        stmt.setInt(2, exam.getCourseId());
+                        stmt.setDate(3, Date.valueOf(exam.getExamDate()));
+                        stmt.setString(4, exam.getGrade());
+                    },
+                    Exam::setId);
+        } catch (SQLException e) {
+            result.setErrorMessage(e.getMessage());
+        }
+
+        if (!result.isSuccessful()) {
+            AlertUtil.showDatabaseConnectionError("Error while adding exams: " + result.getErrorMessage());
+        }
+
+        return result;
+    }
+
     /**
      * Updates an exam in the database.
      * <p>
@@ -212,14 +326,9 @@ public class ExamDAO implements DAO<Exam> {
      */
     @Override
     public void updateSingle(Exam exam) {
-        if (conn == null) {
-            AlertUtil.showDatabaseConnectionError("Failed to update exam. No database connection.");
-            return;
-        }
-
         String sql = "UPDATE exam SET student_id = ?, course_id = ?, exam_date = ?, grade = ? WHERE id = ?";
 
-        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+        try (Connection conn = ConnectionProvider.borrow(); PreparedStatement stmt = conn.prepareStatement(sql)) {
             stmt.setInt(1, exam.getStudentId());
             stmt.setInt(2, exam.getCourseId());
             stmt.setDate(3, Date.valueOf(exam.getExamDate()));
@@ -232,27 +341,28 @@ public class ExamDAO implements DAO<Exam> {
     }
 
     /**
-     * Deletes an exam in the database.
+     * Deletes a list of exams in the database.
+     * <p>
+     * All exams are deleted with a single batched statement inside one transaction.
+     * <p>
+     * Errors are not shown to the user, but returned in the result, so the caller can report
+     * which exams were not deleted.
      *
      * @param exams {@link ObservableList} of exams to delete
+     * @return a {@link BatchResult} with the outcome for every exam
      */
     @Override
-    public void deleteList(ObservableList<Exam> exams) {
-        if (conn == null) {
-            AlertUtil.showDatabaseConnectionError("Failed to delete teacher(s). No database connection.");
-            return;
-        }
-
+    public BatchResult deleteList(ObservableList<Exam> exams) {
         String sql = "DELETE FROM exam WHERE id = ?";
 
-        for (Exam exam : exams) {
-            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-                int id = exam.getId();
-                stmt.setInt(1, id);
-                stmt.executeUpdate();
-            } catch (SQLException e) {
-                AlertUtil.showDatabaseConnectionError("Error while deleting exam(s): " + e.getMessage());
-            }
+        BatchResult result = new BatchResult();
+
+        try (Connection conn = ConnectionProvider.borrow()) {
+            result = BatchUpdate.execute(conn, sql, exams, Exam::getId, (stmt, exam) -> stmt.setInt(1, exam.getId()));
+        } catch (SQLException e) {
+            result.setErrorMessage(e.getMessage());
         }
+
+        return result;
     }
 }
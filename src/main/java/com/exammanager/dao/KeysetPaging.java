@@ -0,0 +1,143 @@
+package com.exammanager.dao;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A helper class for running keyset-paginated queries for the {@link PagedDAO} implementations.
+ * As an abstract class, it contains only static methods and has no constructor.
+ *
+ * @author Bendik
+ */
+abstract class KeysetPaging {
+
+    /**
+     * Maps the current row of a result set to an object.
+     *
+     * @param <T> the type of the object
+     */
+    @FunctionalInterface
+    interface RowMapper<T> {
+        T map(ResultSet rs) throws SQLException;
+    }
+
+    /**
+     * A condition rows must match to be included, e.g. created from a search query.
+     *
+     * @param condition an SQL condition with {@code ?} placeholders
+     * @param parameters the values of the placeholders
+     */
+    record Filter(String condition, List<Object> parameters) {
+
+        Filter(String condition, Object... parameters) {
+            this(condition, List.of(parameters));
+        }
+    }
+
+    /**
+     * Escapes the wildcards of a LIKE pattern, so the value is matched literally.
+     *
+     * @param value the value to escape
+     * @return the escaped value
+     */
+    static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
+    /**
+     * Retrieves a page of rows.
+     * <p>
+     * One row more than the page size is fetched to find out whether there is a next page.
+     * With an index on the sort column, the database only reads the rows on the page.
+     *
+     * @param conn the connection to use
+     * @param select a query selecting all rows from a single table, without WHERE or ORDER BY clauses,
+     *               e.g. {@code SELECT * FROM exam}
+     * @param sortColumns the columns the table may be sorted by, which must include {@code id}
+     * @param request the page to retrieve
+     * @param filter a condition the rows must match, or null to include all rows
+     * @param mapper maps each row to an object
+     * @param cancellation a handle which can be used to cancel the query
+     * @return the page
+     * @param <T> the type of the rows
+     * @throws SQLException if the query fails
+     * @throws IllegalArgumentException if the requested sort column is not allowed
+     */
+    static <T> Page<T> findPage(Connection conn, String select, Set<String> sortColumns, PageRequest request,
+                                Filter filter, RowMapper<T> mapper, QueryCancellation cancellation) throws SQLException {
+        String column = request.sortColumn();
+        // Only known column names may be concatenated into the query
+        if (!sortColumns.contains(column)) {
+            throw new IllegalArgumentException("Cannot sort by column '" + column + "'");
+        }
+
+        boolean sortById = column.equals("id");
+        String comparison = request.ascending() ? ">" : "<";
+        String direction = request.ascending() ? " ASC" : " DESC";
+
+        StringBuilder sql = new StringBuilder(select);
+        if (filter != null) {
+            sql.append(" WHERE (").append(filter.condition()).append(')');
+        }
+        if (!request.isFirst()) {
+            sql.append(filter != null ? " AND " : " WHERE ");
+            if (sortById) {
+                sql.append("id ").append(comparison).append(" ?");
+            } else {
+                sql.append("(").append(column).append(' ').append(comparison).append(" ?")
+                        .append(" OR (").append(column).append(" = ? AND id ").append(comparison).append(" ?))");
+            }
+        }
+        sql.append(" ORDER BY ").append(column).append(direction);
+        if (!sortById) {
+            sql.append(", id").append(direction);
+        }
+        sql.append(" LIMIT ?");
+
+        try (PreparedStatement stmt = conn.prepareStatement(sql.toString())) {
+            int index = 1;
+            if (filter != null) {
+                for (Object parameter : filter.parameters()) {
+                    stmt.setObject(index++, parameter);
+                }
+            }
+            if (!request.isFirst()) {
+                if (sortById) {
+                    stmt.setInt(index++, request.lastId());
+                } else {
+                    stmt.setObject(index++, request.lastSortValue());
+                    stmt.setObject(index++, request.lastSortValue());
+                    stmt.setInt(index++, request.lastId());
+                }
+            }
+            stmt.setInt(index, request.size() + 1);
+
+            List<T> items = new ArrayList<>(request.size());
+            Object lastSortValue = null;
+            int lastId = 0;
+            boolean hasNext = false;
+
+            cancellation.register(stmt);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    if (items.size() == request.size()) {
+                        hasNext = true;
+                        break;
+                    }
+                    items.add(mapper.map(rs));
+                    lastId = rs.getInt("id");
+                    lastSortValue = sortById ? lastId : rs.getObject(column);
+                }
+            } finally {
+                cancellation.unregister();
+            }
+
+            return new Page<>(items, hasNext ? request.after(lastSortValue, lastId) : null);
+        }
+    }
+}
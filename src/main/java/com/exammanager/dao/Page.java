@@ -0,0 +1,22 @@
+package com.exammanager.dao;
+
+import java.util.List;
+
+/**
+ * A page of rows returned by a {@link PagedDAO}.
+ *
+ * @param items the rows on the page
+ * @param next the request for the next page, or null if this is the last page
+ * @param <T> the type of the rows
+ * @author Bendik
+ */
+public record Page<T>(List<T> items, PageRequest next) {
+
+    public static <T> Page<T> empty() {
+        return new Page<>(List.of(), null);
+    }
+
+    public boolean hasNext() {
+        return next != null;
+    }
+}
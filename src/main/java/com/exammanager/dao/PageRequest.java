@@ -0,0 +1,73 @@
+package com.exammanager.dao;
+
+/**
+ * A request for a single page of rows, using keyset pagination.
+ * <p>
+ * Instead of skipping rows with an offset, each page after the first is requested using the
+ * sort value and ID of the last row on the previous page. The database can then seek straight
+ * to the first row of the page using an index, so later pages are as fast to fetch as the first.
+ * Rows are ordered by the sort column, and then by ID to keep the order stable.
+ *
+ * @param sortColumn the database column to sort by
+ * @param ascending true to sort in ascending order, false for descending
+ * @param size the maximum number of rows on the page
+ * @param search a search query the rows must match, or an empty string to include all rows
+ * @param fallbackSearch whether the DAO's broader fallback search is used, set by DAOs when the
+ *                       regular search finds nothing on the first page
+ * @param lastSortValue the sort value of the last row on the previous page, or null for the first page
+ * @param lastId the ID of the last row on the previous page, ignored for the first page
+ * @author Bendik
+ */
+public record PageRequest(String sortColumn, boolean ascending, int size, String search, boolean fallbackSearch,
+                          Object lastSortValue, int lastId) {
+
+    /**
+     * Creates a request for the first page, without a search query.
+     *
+     * @param sortColumn the database column to sort by
+     * @param ascending true to sort in ascending order, false for descending
+     * @param size the maximum number of rows on the page
+     * @return the request
+     */
+    public static PageRequest first(String sortColumn, boolean ascending, int size) {
+        return new PageRequest(sortColumn, ascending, size, "", false, null, 0);
+    }
+
+    /**
+     * Creates a request for the first page with the same sorting and size, including only rows matching a search query.
+     *
+     * @param search the search query, or an empty string to include all rows
+     * @return the request
+     */
+    public PageRequest withSearch(String search) {
+        return new PageRequest(sortColumn, ascending, size, search == null ? "" : search.trim(), false, null, 0);
+    }
+
+    /**
+     * Creates a copy of this request using the fallback search.
+     *
+     * @return the request
+     */
+    public PageRequest withFallbackSearch() {
+        return new PageRequest(sortColumn, ascending, size, search, true, lastSortValue, lastId);
+    }
+
+    /**
+     * Creates a request for the page following a row.
+     *
+     * @param lastSortValue the sort value of the last row on this page
+     * @param lastId the ID of the last row on this page
+     * @return the request for the next page, with the same sorting, size and search
+     */
+    public PageRequest after(Object lastSortValue, int lastId) {
+        return new PageRequest(sortColumn, ascending, size, search, fallbackSearch, lastSortValue, lastId);
+    }
+
+    public boolean isFirst() {
+        return lastSortValue == null;
+    }
+
+    public boolean hasSearch() {
+        return !search.isEmpty();
+    }
+}
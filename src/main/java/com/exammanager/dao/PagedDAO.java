@@ -0,0 +1,37 @@
+package com.exammanager.dao;
+
+import com.exammanager.util.BackgroundExecutor;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Interface for DAOs which can retrieve their rows one page at a time.
+ * <p>
+ * Used for tables which can grow too large to load at once, so the time and memory
+ * needed to show them depend on the page size instead of the size of the table.
+ * Searching is done by the database as part of the page query.
+ *
+ * @param <T> the type of the rows
+ *
+ * @author Bendik
+ */
+public interface PagedDAO<T> {
+
+    /**
+     * Retrieves a page of rows from the database.
+     *
+     * @param request the page to retrieve
+     * @param cancellation a handle which can be used to cancel the query while it is running
+     * @return the page, or an empty page if the query failed or was cancelled
+     * @throws IllegalArgumentException if the table cannot be sorted by the requested column
+     */
+    Page<T> findPage(PageRequest request, QueryCancellation cancellation);
+
+    default Page<T> findPage(PageRequest request) {
+        return findPage(request, new QueryCancellation());
+    }
+
+    default CompletableFuture<Page<T>> findPageAsync(PageRequest request, QueryCancellation cancellation) {
+        return BackgroundExecutor.supplyAsync(() -> findPage(request, cancellation));
+    }
+}
@@ -0,0 +1,58 @@
+package com.exammanager.dao;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * A handle for cancelling a running query from another thread.
+ * <p>
+ * A DAO registers its statement right before executing it. Calling {@link #cancel()} cancels the
+ * registered statement on the database server, and makes registering any later statement throw,
+ * so it is never executed. Used to stop queries whose results are no longer needed, such as
+ * searches the user has kept typing past.
+ *
+ * @author Bendik
+ */
+public class QueryCancellation {
+
+    // The SQL state of a query interrupted by the server, also used for queries cancelled before they started
+    private static final String QUERY_CANCELLED = "70100";
+
+    private Statement statement;
+    private boolean cancelled;
+
+    /**
+     * Registers a statement about to be executed. Throws instead if this handle has already been
+     * cancelled, so the statement is never executed: cancelling a statement which is not running
+     * yet has no effect in MySQL, and the whole query would still run.
+     *
+     * @param statement the statement
+     * @throws SQLException if this handle has been cancelled
+     */
+    synchronized void register(Statement statement) throws SQLException {
+        if (cancelled) {
+            throw new SQLException("The query was cancelled", QUERY_CANCELLED);
+        }
+        this.statement = statement;
+    }
+
+    synchronized void unregister() {
+        statement = null;
+    }
+
+    /**
+     * Cancels the registered statement. Errors are ignored, as the statement may finish at the same time.
+     */
+    public synchronized void cancel() {
+        cancelled = true;
+        if (statement != null) {
+            try {
+                statement.cancel();
+            } catch (SQLException _) {}
+        }
+    }
+
+    public synchronized boolean isCancelled() {
+        return cancelled;
+    }
+}
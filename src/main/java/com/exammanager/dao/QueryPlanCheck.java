@@ -0,0 +1,148 @@
+package com.exammanager.dao;
+
+import com.exammanager.util.ConnectionProvider;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A command line check that the application's most frequent queries keep using their indexes.
+ * <p>
+ * Runs {@code EXPLAIN} for each query against the configured database, and reports a failure if
+ * MySQL plans a full table scan, picks another index than expected, or has to read table rows for
+ * a query that should be answered from the index alone. Exits with status 1 if any query fails,
+ * so it can be run after applying migrations or loading new data.
+ * <p>
+ * MySQL may prefer a table scan for tables with only a handful of rows, so the check is most
+ * useful against a database with realistic amounts of data.
+ *
+ * @author Bendik
+ */
+public abstract class QueryPlanCheck {
+
+    /**
+     * The expected plan for one table of a query.
+     *
+     * @param table the table, or its alias if the query uses one
+     * @param key the index the table should be read through
+     * @param indexOnly whether the table's rows should be read from the index alone
+     */
+    private record Expectation(String table, String key, boolean indexOnly) {}
+
+    /**
+     * A query to check, with sample parameters.
+     */
+    private record PlannedQuery(String name, String sql, List<Object> parameters, List<Expectation> expectations) {}
+
+    private static final List<PlannedQuery> QUERIES = List.of(
+            new PlannedQuery("ExamDAO.findGradedExamDetailsByCourseId",
+                    ExamDAO.SELECT_EXAM_DETAILS + " WHERE course_id = ? AND grade <> 'No grade' ORDER BY id",
+                    List.of(1),
+                    List.of(new Expectation("e", "idx_exam_course_grade", true),
+                            new Expectation("s", "PRIMARY", false),
+                            new Expectation("c", "PRIMARY", false))),
+            new PlannedQuery("ExamDAO.findExamDetailsByEmail",
+                    ExamDAO.SELECT_EXAM_DETAILS + " WHERE student_email = ? ORDER BY id",
+                    List.of("student@email.com"),
+                    List.of(new Expectation("s", "email", false),
+                            new Expectation("e", "idx_exam_student_date", true),
+                            new Expectation("c", "PRIMARY", false))),
+            new PlannedQuery("ExamDAO.findExamDetails",
+                    ExamDAO.SELECT_EXAM_DETAILS + " ORDER BY id ASC LIMIT 201",
+                    List.of(),
+                    List.of(new Expectation("e", "PRIMARY", false),
+                            new Expectation("s", "PRIMARY", false),
+                            new Expectation("c", "PRIMARY", false))),
+            new PlannedQuery("DepartmentDAO.deleteList",
+                    "SELECT 1 FROM teacher WHERE department_id = ? LIMIT 1",
+                    List.of(1),
+                    List.of(new Expectation("teacher", "fk_teacher_department", true))),
+            new PlannedQuery("StudentDAO.findPage (full-text search)",
+                    "SELECT * FROM student WHERE MATCH (first_name, last_name, email) AGAINST (? IN BOOLEAN MODE) " +
+                    "ORDER BY id LIMIT 201",
+                    List.of("alice*"),
+                    List.of(new Expectation("student", "ft_student_search", false)))
+    );
+
+    public static void main(String[] args) {
+        List<String> failures;
+        try (Connection conn = ConnectionProvider.borrow()) {
+            failures = check(conn);
+        } catch (SQLException e) {
+            System.out.println("Failed to check query plans: " + e.getMessage());
+            System.exit(1);
+            return;
+        }
+
+        if (failures.isEmpty()) {
+            System.out.println("All " + QUERIES.size() + " query plans use their expected indexes.");
+        } else {
+            failures.forEach(System.out::println);
+        }
+        System.exit(failures.isEmpty() ? 0 : 1);
+    }
+
+    /**
+     * Explains every checked query and compares the plans with the expected ones.
+     *
+     * @param conn the connection to explain the queries on
+     * @return a description of every plan which did not match, or an empty list if all matched
+     * @throws SQLException if a query could not be explained
+     */
+    public static List<String> check(Connection conn) throws SQLException {
+        List<String> failures = new ArrayList<>();
+
+        for (PlannedQuery query : QUERIES) {
+            try (PreparedStatement stmt = conn.prepareStatement("EXPLAIN " + query.sql())) {
+                for (int i = 0; i < query.parameters().size(); i++) {
+                    stmt.setObject(i + 1, query.parameters().get(i));
+                }
+
+                try (ResultSet rs = stmt.executeQuery()) {
+                    List<Expectation> unmatched = new ArrayList<>(query.expectations());
+                    while (rs.next()) {
+                        Expectation expectation = findExpectation(unmatched, rs.getString("table"));
+                        if (expectation != null) {
+                            unmatched.remove(expectation);
+                            checkRow(query, expectation, rs, failures);
+                        }
+                    }
+                    for (Expectation expectation : unmatched) {
+                        failures.add(query.name() + ": table " + expectation.table() + " is missing from the plan");
+                    }
+                }
+            }
+        }
+
+        return failures;
+    }
+
+    private static Expectation findExpectation(List<Expectation> expectations, String table) {
+        for (Expectation expectation : expectations) {
+            if (expectation.table().equals(table)) {
+                return expectation;
+            }
+        }
+        return null;
+    }
+
+    private static void checkRow(PlannedQuery query, Expectation expectation, ResultSet rs, List<String> failures) throws SQLException {
+        String prefix = query.name() + ": table " + expectation.table();
+        String type = rs.getString("type");
+        String key = rs.getString("key");
+        String extra = rs.getString("Extra");
+
+        if ("ALL".equals(type)) {
+            failures.add(prefix + " is read with a full table scan");
+        } else if (!expectation.key().equals(key)) {
+            failures.add(prefix + " uses index " + key + " instead of " + expectation.key());
+        } else if (expectation.indexOnly() && (extra == null || !Arrays.asList(extra.split("; ")).contains("Using index"))) {
+            failures.add(prefix + " reads table rows instead of only index " + expectation.key());
+        }
+    }
+}
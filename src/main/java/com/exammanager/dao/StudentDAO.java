@@ -2,6 +2,7 @@ package com.exammanager.dao;
 
 import com.exammanager.model.Student;
 import com.exammanager.util.AlertUtil;
+import com.exammanager.util.ConnectionProvider;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 
@@ -9,27 +10,31 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 /**
- * Implementation of the {@link DAO} interface for Student.
+ * Implementation of the {@link AsyncDAO} interface for Student.
  * <p>
- * Provides database operations for the {@link Student} class, including CRUD (Create, Read, Update, Delete) functionality.
+ * Provides database operations for the {@link Student} class, including CRUD (Create, Read, Update, Delete) functionality,
+ * and retrieval of students one page at a time.
+ * Every operation borrows its own connection from {@link ConnectionProvider} and returns it when done,
+ * so a single instance can safely be shared between the JavaFX thread and background threads.
  * <p>
  * @author Bendik
  */
-public class StudentDAO implements DAO<Student> {
+public class StudentDAO implements AsyncDAO<Student>, PagedDAO<Student> {
 
-    private final Connection conn;
+    // Rows shared by every user of the table, emptied when the table changes
+    private static final EntityCache<Student> CACHE = new EntityCache<>(Student::getId, "student");
+
+    private static final Set<String> SORT_COLUMNS = Set.of("id", "first_name", "last_name", "email", "enrollment_year");
+
+    private static volatile Boolean hasFullTextIndex;
 
-    /**
-     * Implementation of the {@link DAO} interface for Student.
-     * <p>
-     * Provides database operations for the {@link Student} class, including CRUD (Create, Read, Update, Delete) functionality.
-     */
-    public StudentDAO(Connection conn) {
-        this.conn = conn;
-    }
 
     /**
      * Retrieves a student from the database by their ID.
@@ -39,20 +44,22 @@ public class StudentDAO implements DAO<Student> {
      */
     @Override
     public Optional<Student> findById(int id) {
-        if (conn == null) {
-            AlertUtil.showDatabaseConnectionError("Failed to get student. No database connection.");
+        try {
+            return CACHE.findById(id, () -> loadById(id));
+        } catch (SQLException e) {
+            AlertUtil.showDatabaseConnectionError("Error while getting student: " + e.getMessage());
             return Optional.empty();
         }
+    }
 
+    private Optional<Student> loadById(int id) throws SQLException {
         String sql = "SELECT * FROM student WHERE id = ?";
 
-        Optional<Student> student = Optional.empty();
-
-        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+        try (Connection conn = ConnectionProvider.borrow(); PreparedStatement stmt = conn.prepareStatement(sql)) {
             stmt.setInt(1, id);
             ResultSet rs = stmt.executeQuery();
             if (rs.next()) {
-                student = Optional.of(new Student(
+                return Optional.of(new Student(
                         rs.getInt("id"),
                         rs.getString("first_name"),
                         rs.getString("last_name"),
@@ -60,11 +67,9 @@ public class StudentDAO implements DAO<Student> {
                         rs.getInt("enrollment_year")
                 ));
             }
-        } catch (SQLException e) {
-            AlertUtil.showDatabaseConnectionError("Error while getting student: " + e.getMessage());
         }
 
-        return student;
+        return Optional.empty();
     }
 
     /**
@@ -74,16 +79,11 @@ public class StudentDAO implements DAO<Student> {
      * @return {@link Optional} containing a {@link Student} object if successful, otherwise empty
      */
     public Optional<Student> findByEmail(String email) {
-        if (conn == null) {
-            AlertUtil.showDatabaseConnectionError("Failed to get student. No database connection.");
-            return Optional.empty();
-        }
-
         String sql = "SELECT * FROM student WHERE email = ?";
 
         Optional<Student> student = Optional.empty();
 
-        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+        try (Connection conn = ConnectionProvider.borrow(); PreparedStatement stmt = conn.prepareStatement(sql)) {
             stmt.setString(1, email);
             ResultSet rs = stmt.executeQuery();
             if (rs.next()) {
@@ -110,15 +110,20 @@ public class StudentDAO implements DAO<Student> {
      */
     @Override
     public ObservableList<Student> findAll() {
-        if (conn == null) {
-            AlertUtil.showDatabaseConnectionError("Failed to get students. No database connection.");
+        try {
+            return FXCollections.observableArrayList(CACHE.findAll(this::loadAll));
+        } catch (SQLException e) {
+            AlertUtil.showDatabaseConnectionError("Error while getting students: " + e.getMessage());
+            return FXCollections.observableArrayList();
         }
+    }
 
+    private List<Student> loadAll() throws SQLException {
         String sql = "SELECT * FROM student";
 
-        ObservableList<Student> students = FXCollections.observableArrayList();
+        List<Student> students = new ArrayList<>();
 
-        try (PreparedStatement stmt = conn.prepareStatement(sql); ResultSet rs = stmt.executeQuery()) {
+        try (Connection conn = ConnectionProvider.borrow(); PreparedStatement stmt = conn.prepareStatement(sql); ResultSet rs = stmt.executeQuery()) {
             while (rs.next()) {
                 Student student = new Student(
                         rs.getInt("id"),
@@ -129,13 +134,113 @@ public class StudentDAO implements DAO<Student> {
                 );
                 students.add(student);
             }
-        } catch (SQLException e) {
-            AlertUtil.showDatabaseConnectionError("Error while getting students: " + e.getMessage());
         }
 
         return students;
     }
 
+    /**
+     * Retrieves a page of students from the database, using keyset pagination.
+     * <p>
+     * A search query consisting of digits matches students with that ID or enrollment year.
+     * Any other search query matches students whose first name, last name or email starts with
+     * the query, which can use the indexes on those columns. If that finds nothing, the query is
+     * searched for anywhere in the names and email instead, using the full-text index if the
+     * database has one.
+     *
+     * @param request the page to retrieve, sorted by one of the student table's columns
+     * @param cancellation a handle which can be used to cancel the query while it is running
+     * @return a {@link Page} of {@link Student} objects if successful, otherwise an empty page
+     */
+    @Override
+    public Page<Student> findPage(PageRequest request, QueryCancellation cancellation) {
+        String select = "SELECT * FROM student";
+        KeysetPaging.RowMapper<Student> mapper = rs -> new Student(
+                rs.getInt("id"),
+                rs.getString("first_name"),
+                rs.getString("last_name"),
+                rs.getString("email"),
+                rs.getInt("enrollment_year")
+        );
+
+        try (Connection conn = ConnectionProvider.borrow()) {
+            Page<Student> page = KeysetPaging.findPage(conn, select, SORT_COLUMNS, request,
+                    getSearchFilter(conn, request), mapper, cancellation);
+
+            if (page.items().isEmpty() && request.isFirst() && request.hasSearch() && !request.fallbackSearch()
+                    && !isNumber(request.search())) {
+                PageRequest fallback = request.withFallbackSearch();
+                page = KeysetPaging.findPage(conn, select, SORT_COLUMNS, fallback,
+                        getSearchFilter(conn, fallback), mapper, cancellation);
+            }
+
+            return page;
+        } catch (SQLException e) {
+            if (!cancellation.isCancelled()) {
+                AlertUtil.showDatabaseConnectionError("Error while getting students: " + e.getMessage());
+            }
+            return Page.empty();
+        }
+    }
+
+    private static KeysetPaging.Filter getSearchFilter(Connection conn, PageRequest request) throws SQLException {
+        String search = request.search();
+        if (search.isEmpty()) {
+            return null;
+        }
+
+        if (isNumber(search)) {
+            int number = Integer.parseInt(search);
+            return new KeysetPaging.Filter("id = ? OR enrollment_year = ?", number, number);
+        }
+
+        if (!request.fallbackSearch()) {
+            String prefix = KeysetPaging.escapeLike(search) + "%";
+            return new KeysetPaging.Filter("first_name LIKE ? OR last_name LIKE ? OR email LIKE ?", prefix, prefix, prefix);
+        }
+
+        String fullTextQuery = toFullTextQuery(search);
+        if (!fullTextQuery.isEmpty() && hasFullTextIndex(conn)) {
+            return new KeysetPaging.Filter("MATCH (first_name, last_name, email) AGAINST (? IN BOOLEAN MODE)", fullTextQuery);
+        }
+
+        String substring = "%" + KeysetPaging.escapeLike(search) + "%";
+        return new KeysetPaging.Filter("first_name LIKE ? OR last_name LIKE ? OR email LIKE ?", substring, substring, substring);
+    }
+
+    private static boolean isNumber(String search) {
+        return search.length() <= 9 && search.chars().allMatch(Character::isDigit);
+    }
+
+    // Requires every word of the search to be the prefix of a word, e.g. "ann ber" becomes "+ann* +ber*"
+    private static String toFullTextQuery(String search) {
+        StringBuilder query = new StringBuilder();
+        for (String word : search.split("\\s+")) {
+            String cleaned = word.replaceAll("[^\\p{L}\\p{N}]", "");
+            if (!cleaned.isEmpty()) {
+                if (!query.isEmpty()) {
+                    query.append(' ');
+                }
+                query.append('+').append(cleaned).append('*');
+            }
+        }
+        return query.toString();
+    }
+
+    // Checks once whether the database has the full-text index used by the fallback search
+    private static boolean hasFullTextIndex(Connection conn) throws SQLException {
+        Boolean result = hasFullTextIndex;
+        if (result == null) {
+            String sql = "SELECT 1 FROM information_schema.STATISTICS " +
+                         "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'student' AND INDEX_TYPE = 'FULLTEXT' LIMIT 1";
+            try (PreparedStatement stmt = conn.prepareStatement(sql); ResultSet rs = stmt.executeQuery()) {
+                result = rs.next();
+            }
+            hasFullTextIndex = result;
+        }
+        return result;
+    }
+
     /**
      * Inserts a new student into the database.
      *
@@ -143,14 +248,9 @@ public class StudentDAO implements DAO<Student> {
      */
     @Override
     public void addSingle(Student student) {
-        if (conn == null) {
-            AlertUtil.showDatabaseConnectionError("Failed to add student. No database connection.");
-            return;
-        }
-
         String sql = "INSERT INTO student (first_name, last_name, email, enrollment_year) VALUES (?, ?, ?, ?)";
 
-        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+        try (Connection conn = ConnectionProvider.borrow(); PreparedStatement stmt = conn.prepareStatement(sql)) {
             stmt.setString(1, student.getFirstName());
             stmt.setString(2, student.getLastName());
             stmt.setString(3, student.getEmail());
@@ -159,6 +259,45 @@ public class StudentDAO implements DAO<Student> {
         } catch (SQLException e) {
             AlertUtil.showDatabaseConnectionError("Error while adding student: " + e.getMessage());
         }
+
+        TableVersions.changed();
+    }
+
+    /**
+     * Inserts a collection of new students into the database.
+     * <p>
+     * All students are inserted with a single batched statement inside one transaction.
+     * The generated ID of each inserted student is set on its object.
+     *
+     * @param students the students to be added
+     * @return a {@link BatchResult} with the generated ID and outcome for every student
+     */
+    @Override
+    public BatchResult addAll(Collection<Student> students) {
+        String sql = "INSERT INTO student (first_name, last_name, email, enrollment_year) VALUES (?, ?, ?, ?)";
+
+        BatchResult result = new BatchResult();
+
+        try (Connection conn = ConnectionProvider.borrow()) {
+            result = BatchUpdate.insert(conn, sql, new ArrayList<>(students), Student::getId,
+                    (stmt, student) -> {
+                        stmt.setString(1, student.getFirstName());
+                        stmt.setString(2, student.getLastName());
+                        stmt.setString(3, student.getEmail());
+                        stmt.setInt(4, student.getEnrollmentYear());
+                    },
+                    Student::setId);
+        } catch (SQLException e) {
+            result.setErrorMessage(e.getMessage());
+        }
+
+        TableVersions.changed();
+
+        if (!result.isSuccessful()) {
+            AlertUtil.showDatabaseConnectionError("Error while adding students: " + result.getErrorMessage());
+        }
+
+        return result;
     }
 
     /**
@@ -170,14 +309,9 @@ public class StudentDAO implements DAO<Student> {
      */
     @Override
     public void updateSingle(Student student) {
-        if (conn == null) {
-            AlertUtil.showDatabaseConnectionError("Failed to update student. No database connection.");
-            return;
-        }
-
         String sql = "UPDATE student SET first_name = ?, last_name = ?, email = ?, enrollment_year = ? WHERE id = ?";
 
-        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+        try (Connection conn = ConnectionProvider.borrow(); PreparedStatement stmt = conn.prepareStatement(sql)) {
             stmt.setString(1, student.getFirstName());
             stmt.setString(2, student.getLastName());
             stmt.setString(3, student.getEmail());
@@ -187,30 +321,35 @@ public class StudentDAO implements DAO<Student> {
         } catch (SQLException e) {
             AlertUtil.showDatabaseConnectionError("Error while updating student: " + e.getMessage());
         }
+
+        TableVersions.changed();
     }
 
     /**
-     * Deletes a student in the database.
+     * Deletes a list of students in the database.
+     * <p>
+     * All students are deleted with a single batched statement inside one transaction.
+     * <p>
+     * Errors are not shown to the user, but returned in the result, so the caller can report
+     * which students were not deleted.
      *
      * @param students {@link ObservableList} of students to delete
+     * @return a {@link BatchResult} with the outcome for every student
      */
     @Override
-    public void deleteList(ObservableList<Student> students) {
-        if (conn == null) {
-            AlertUtil.showDatabaseConnectionError("Failed to delete student(s). No database connection.");
-            return;
-        }
-
+    public BatchResult deleteList(ObservableList<Student> students) {
         String sql = "DELETE FROM student WHERE id = ?";
 
-        for (Student student : students) {
-            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-                int id =  student.getId();
-                stmt.setInt(1, id);
-                stmt.executeUpdate();
-            } catch (SQLException e)  {
-                AlertUtil.showDatabaseConnectionError("Error while deleting student(s): " + e.getMessage());
-            }
+        BatchResult result = new BatchResult();
+
+        try (Connection conn = ConnectionProvider.borrow()) {
+            result = BatchUpdate.execute(conn, sql, students, Student::getId, (stmt, student) -> stmt.setInt(1, student.getId()));
+        } catch (SQLException e) {
+            result.setErrorMessage(e.getMessage());
         }
+
+        TableVersions.changed();
+
+        return result;
     }
 }
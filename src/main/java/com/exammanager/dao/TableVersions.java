@@ -0,0 +1,115 @@
+package com.exammanager.dao;
+
+import com.exammanager.util.ConnectionProvider;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Reads the change versions of the database tables, used by {@link EntityCache} to tell
+ * whether a cached table is still up to date.
+ * <p>
+ * Every insert, update and delete on a cached table increments the table's row in the
+ * {@code table_version} table through a trigger, including changes made outside the
+ * application. Reading all versions is a single query on a table with a handful of rows.
+ * The versions are reused for a short while, so refreshing several tables at once only
+ * reads them once.
+ * <p>
+ * The versions are read without holding a lock, as borrowing a connection can wait while the
+ * pool is busy, e.g. during an export. The read versions are published as an immutable snapshot,
+ * so a slow read only holds up the thread waiting for it, never every cached lookup.
+ *
+ * @author Bendik
+ */
+abstract class TableVersions {
+
+    // How long read versions are reused before being read again
+    private static final long MAX_AGE_NANOS = 250_000_000L;
+
+    /**
+     * The versions read at one point in time.
+     *
+     * @param versions the version of every table, by table name
+     * @param available whether the versions could be read
+     * @param readAt the {@link System#nanoTime()} the read started at
+     * @param changeCount the number of calls to {@link #changed()} before the read started
+     */
+    private record Snapshot(Map<String, Long> versions, boolean available, long readAt, long changeCount) {}
+
+    private static final AtomicLong CHANGE_COUNT = new AtomicLong();
+
+    // Starts out stale, so the first call reads the versions
+    private static volatile Snapshot snapshot = new Snapshot(Map.of(), false, System.nanoTime(), -1);
+
+    /**
+     * Returns the sum of the current versions of the given tables. As versions only
+     * increase, the sum changes whenever any of the tables change.
+     *
+     * @param tables the tables to get the version of
+     * @return the combined version of the tables, or an empty {@link OptionalLong} if the
+     * versions are not available, e.g. because the migration adding them has not been applied
+     */
+    static OptionalLong get(String... tables) {
+        Snapshot current = snapshot;
+        if (current.changeCount() != CHANGE_COUNT.get() || System.nanoTime() - current.readAt() > MAX_AGE_NANOS) {
+            current = read();
+        }
+        if (!current.available()) {
+            return OptionalLong.empty();
+        }
+
+        long version = 0;
+        for (String table : tables) {
+            Long tableVersion = current.versions().get(table);
+            if (tableVersion == null) {
+                return OptionalLong.empty();
+            }
+            version += tableVersion;
+        }
+        return OptionalLong.of(version);
+    }
+
+    /**
+     * Makes the next call to {@link #get(String...)} read the versions again. Called after
+     * the application changes a table, so its own changes are seen right away.
+     */
+    static void changed() {
+        CHANGE_COUNT.incrementAndGet();
+    }
+
+    private static Snapshot read() {
+        // Counted before reading, so a change made while reading makes the result stale again
+        long changeCount = CHANGE_COUNT.get();
+        long readAt = System.nanoTime();
+
+        Map<String, Long> readVersions = new HashMap<>();
+        boolean available;
+        try (Connection conn = ConnectionProvider.borrow();
+             PreparedStatement stmt = conn.prepareStatement("SELECT table_name, version FROM table_version");
+             ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                readVersions.put(rs.getString("table_name"), rs.getLong("version"));
+            }
+            available = true;
+        } catch (SQLException e) {
+            available = false;
+        }
+
+        Snapshot read = new Snapshot(Map.copyOf(readVersions), available, readAt, changeCount);
+        publish(read);
+        return read;
+    }
+
+    // Keeps the snapshot which started reading last, when several threads read at the same time
+    private static synchronized void publish(Snapshot read) {
+        if (read.readAt() - snapshot.readAt() >= 0) {
+            snapshot = read;
+        }
+    }
+}
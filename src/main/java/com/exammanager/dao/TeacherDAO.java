@@ -2,6 +2,7 @@ package com.exammanager.dao;
 
 import com.exammanager.model.Teacher;
 import com.exammanager.util.AlertUtil;
+import com.exammanager.util.ConnectionProvider;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 
@@ -9,27 +10,31 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 /**
- * Implementation of the {@link DAO} interface for Teacher.
+ * Implementation of the {@link AsyncDAO} interface for Teacher.
  * <p>
  * Provides database operations for the {@link Teacher} class, including CRUD (Create, Read, Update, Delete) functionality.
+ * Every operation borrows its own connection from {@link ConnectionProvider} and returns it when done,
+ * so a single instance can safely be shared between the JavaFX thread and background threads.
  * <p>
  * @author Bendik
  */
-public class TeacherDAO implements DAO<Teacher> {
+public class TeacherDAO implements AsyncDAO<Teacher> {
 
-    private final Connection conn;
+    // Rows shared by every user of the table, emptied when the table changes
+    private static final EntityCache<Teacher> CACHE = new EntityCache<>(Teacher::getId, "teacher", "department");
 
-    /**
-     * Constructs a TeacherDAO with the given database connection.
-     *
-     * @param conn the active database connection
-     */
-    public TeacherDAO(Connection conn) {
-        this.conn = conn;
-    }
+    // Teachers reference their department by ID, but the Teacher class holds the department's name
+    private static final String SELECT_TEACHERS = "SELECT t.id, t.first_name, t.last_name, d.name AS department, t.email FROM teacher AS t " +
+                                                  "INNER JOIN department AS d ON t.department_id = d.id";
+
+    // Looks up the ID of the department with the given name
+    private static final String DEPARTMENT_ID = "(SELECT id FROM department WHERE name = ?)";
 
     /**
      * Retrieves a teacher from the database by their ID.
@@ -39,20 +44,22 @@ public class TeacherDAO implements DAO<Teacher> {
      */
     @Override
     public Optional<Teacher> findById(int id) {
-        if (conn == null) {
-            AlertUtil.showDatabaseConnectionError("Failed to get teacher. No database connection.");
+        try {
+            return CACHE.findById(id, () -> loadById(id));
+        } catch (SQLException e) {
+            AlertUtil.showDatabaseConnectionError("Error while getting teacher: " + e.getMessage());
             return Optional.empty();
         }
+    }
 
-        String sql = "SELECT * FROM teacher WHERE id = ?";
-
-        Optional<Teacher> teacher = Optional.empty();
+    private Optional<Teacher> loadById(int id) throws SQLException {
+        String sql = SELECT_TEACHERS + " WHERE t.id = ?";
 
-        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+        try (Connection conn = ConnectionProvider.borrow(); PreparedStatement stmt = conn.prepareStatement(sql)) {
             stmt.setInt(1, id);
             ResultSet rs = stmt.executeQuery();
             if (rs.next()) {
-                teacher = Optional.of(new Teacher(
+                return Optional.of(new Teacher(
                         rs.getInt("id"),
                         rs.getString("first_name"),
                         rs.getString("last_name"),
@@ -60,11 +67,9 @@ public class TeacherDAO implements DAO<Teacher> {
                         rs.getString("email")
                 ));
             }
-        } catch (SQLException e) {
-            AlertUtil.showDatabaseConnectionError("Error while getting teacher: " + e.getMessage());
         }
 
-        return teacher;
+        return Optional.empty();
     }
 
     /**
@@ -75,16 +80,20 @@ public class TeacherDAO implements DAO<Teacher> {
      */
     @Override
     public ObservableList<Teacher> findAll() {
-        if (conn == null) {
-            AlertUtil.showDatabaseConnectionError("Failed to get teachers. No database connection.");
+        try {
+            return FXCollections.observableArrayList(CACHE.findAll(this::loadAll));
+        } catch (SQLException e) {
+            AlertUtil.showDatabaseConnectionError("Error while getting teachers: " + e.getMessage());
             return FXCollections.observableArrayList();
         }
+    }
 
-        String sql = "SELECT * FROM teacher";
+    private List<Teacher> loadAll() throws SQLException {
+        String sql = SELECT_TEACHERS + " ORDER BY t.id";
 
-        ObservableList<Teacher> teachers = FXCollections.observableArrayList();
+        List<Teacher> teachers = new ArrayList<>();
 
-        try (PreparedStatement stmt = conn.prepareStatement(sql); ResultSet rs = stmt.executeQuery()) {
+        try (Connection conn = ConnectionProvider.borrow(); PreparedStatement stmt = conn.prepareStatement(sql); ResultSet rs = stmt.executeQuery()) {
             while (rs.next()) {
                 Teacher teacher = new Teacher(
                         rs.getInt("id"),
@@ -95,8 +104,6 @@ public class TeacherDAO implements DAO<Teacher> {
                 );
                 teachers.add(teacher);
             }
-        } catch (SQLException e) {
-            AlertUtil.showDatabaseConnectionError("Error while getting teachers: " + e.getMessage());
         }
 
         return teachers;
@@ -109,14 +116,9 @@ public class TeacherDAO implements DAO<Teacher> {
      */
     @Override
     public void addSingle(Teacher teacher) {
-        if (conn == null) {
-            AlertUtil.showDatabaseConnectionError("Failed to add teacher. No database connection.");
-            return;
-        }
+        String sql = "INSERT INTO teacher (first_name, last_name, department_id, email) VALUES (?, ?, " + DEPARTMENT_ID + ", ?)";
 
-        String sql = "INSERT INTO teacher (first_name, last_name, department, email) VALUES (?, ?, ?, ?)";
-
-        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+        try (Connection conn = ConnectionProvider.borrow(); PreparedStatement stmt = conn.prepareStatement(sql)) {
             stmt.setString(1, teacher.getFirstName());
             stmt.setString(2, teacher.getLastName());
             stmt.setString(3, teacher.getDepartment());
@@ -125,6 +127,45 @@ public class TeacherDAO implements DAO<Teacher> {
         } catch (SQLException e) {
             AlertUtil.showDatabaseConnectionError("Error while adding teacher: " + e.getMessage());
         }
+
+        TableVersions.changed();
+    }
+
+    /**
+     * Inserts a collection of new teachers into the database.
+     * <p>
+     * All teachers are inserted with a single batched statement inside one transaction.
+     * The generated ID of each inserted teacher is set on its object.
+     *
+     * @param teachers the teachers to be added
+     * @return a {@link BatchResult} with the generated ID and outcome for every teacher
+     */
+    @Override
+    public BatchResult addAll(Collection<Teacher> teachers) {
+        String sql = "INSERT INTO teacher (first_name, last_name, department_id, email) VALUES (?, ?, " + DEPARTMENT_ID + ", ?)";
+
+        BatchResult result = new BatchResult();
+
+        try (Connection conn = ConnectionProvider.borrow()) {
+            result = BatchUpdate.insert(conn, sql, new ArrayList<>(teachers), Teacher::getId,
+                    (stmt, teacher) -> {
+                        stmt.setString(1, teacher.getFirstName());
+                        stmt.setString(2, teacher.getLastName());
+                        stmt.setString(3, teacher.getDepartment());
+                        stmt.setString(4, teacher.getEmail());
+                    },
+                    Teacher::setId);
+        } catch (SQLException e) {
+            result.setErrorMessage(e.getMessage());
+        }
+
+        TableVersions.changed();
+
+        if (!result.isSuccessful()) {
+            AlertUtil.showDatabaseConnectionError("Error while adding teachers: " + result.getErrorMessage());
+        }
+
+        return result;
     }
 
     /**
@@ -136,14 +177,9 @@ public class TeacherDAO implements DAO<Teacher> {
      */
     @Override
     public void updateSingle(Teacher teacher) {
-        if (conn == null) {
-            AlertUtil.showDatabaseConnectionError("Failed to update teacher. No database connection.");
-            return;
-        }
+        String sql = "UPDATE teacher SET first_name = ?, last_name = ?, department_id = " + DEPARTMENT_ID + ", email = ? WHERE id = ?";
 
-        String sql = "UPDATE teacher SET first_name = ?, last_name = ?, department = ?, email = ? WHERE id = ?";
-
-        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+        try (Connection conn = ConnectionProvider.borrow(); PreparedStatement stmt = conn.prepareStatement(sql)) {
             stmt.setString(1, teacher.getFirstName());
             stmt.setString(2, teacher.getLastName());
             stmt.setString(3, teacher.getDepartment());
@@ -153,30 +189,35 @@ public class TeacherDAO implements DAO<Teacher> {
         } catch (SQLException e) {
             AlertUtil.showDatabaseConnectionError("Error while updating teacher: " + e.getMessage());
         }
+
+        TableVersions.changed();
     }
 
     /**
-     * Deletes a teacher in the database.
+     * Deletes a list of teachers in the database.
+     * <p>
+     * All teachers are deleted with a single batched statement inside one transaction.
+     * <p>
+     * Errors are not shown to the user, but returned in the result, so the caller can report
+     * which teachers were not deleted.
      *
      * @param teachers {@link ObservableList} of teachers to delete
+     * @return a {@link BatchResult} with the outcome for every teacher
      */
     @Override
-    public void deleteList(ObservableList<Teacher> teachers) {
-        if (conn == null) {
-            AlertUtil.showDatabaseConnectionError("Failed to delete teacher(s). No database connection.");
-            return;
-        }
-
+    public BatchResult deleteList(ObservableList<Teacher> teachers) {
         String sql = "DELETE FROM teacher WHERE id = ?";
 
-        for (Teacher teacher : teachers) {
-            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-                int id = teacher.getId();
-                stmt.setInt(1, id);
-                stmt.executeUpdate();
-            } catch (SQLException e) {
-                AlertUtil.showDatabaseConnectionError("Error while deleting teacher(s): " + e.getMessage());
-            }
+        BatchResult result = new BatchResult();
+
+        try (Connection conn = ConnectionProvider.borrow()) {
+            result = BatchUpdate.execute(conn, sql, teachers, Teacher::getId, (stmt, teacher) -> stmt.setInt(1, teacher.getId()));
+        } catch (SQLException e) {
+            result.setErrorMessage(e.getMessage());
         }
+
+        TableVersions.changed();
+
+        return result;
     }
 }
@@ -0,0 +1,99 @@
+package com.exammanager.dialog;
+
+import com.exammanager.service.ExportOptions;
+import javafx.beans.binding.BooleanBinding;
+import javafx.geometry.Insets;
+import javafx.geometry.Pos;
+import javafx.scene.control.*;
+import javafx.scene.layout.GridPane;
+import javafx.stage.Modality;
+
+import java.util.Optional;
+
+/**
+ * A class for creating a dialog window for choosing how the database is exported.
+ * <p>
+ * Lets the user choose between CSV-files and binary snapshots, and for CSV-files, whether
+ * they are compressed and whether they are split into part files of a fixed size.
+ *
+ * @author Bendik
+ */
+public class ExportOptionsDialog {
+
+    private static final int DEFAULT_PART_SIZE_MB = 100;
+
+    /**
+     * Creates a modal dialog window for choosing the export options.
+     * <p>
+     * @return returns a {@link Optional} containing the chosen options if 'Export' is clicked,
+     * otherwise returns an empty {@link Optional}
+     */
+    public static Optional<ExportOptions> exportOptionsDialog() {
+        Dialog<ExportOptions> dialog = new Dialog<>();
+        dialog.initModality(Modality.APPLICATION_MODAL);
+        dialog.setTitle("Export Database");
+        dialog.setHeaderText("Choose export options");
+        dialog.resizableProperty().setValue(false);
+
+        // dialog content
+        GridPane gridPane = new GridPane();
+        gridPane.setAlignment(Pos.CENTER);
+        gridPane.setHgap(10);
+        gridPane.setVgap(10);
+        gridPane.setPadding(new Insets(10));
+
+        // format label & combobox
+        gridPane.add(new Label("Format:"), 0, 0);
+        ComboBox<ExportOptions.Format> formatBox = new ComboBox<>();
+        formatBox.getItems().addAll(ExportOptions.Format.values());
+        formatBox.setValue(ExportOptions.Format.CSV);
+        formatBox.setPrefWidth(150);
+        gridPane.add(formatBox, 1, 0);
+
+        // compression and splitting only apply to CSV-files
+        BooleanBinding snapshotSelected = formatBox.valueProperty().isEqualTo(ExportOptions.Format.SNAPSHOT);
+
+        // compression label & combobox
+        gridPane.add(new Label("Compression:"), 0, 1);
+        ComboBox<ExportOptions.Compression> compressionBox = new ComboBox<>();
+        compressionBox.getItems().addAll(ExportOptions.Compression.values());
+        compressionBox.setValue(ExportOptions.Compression.NONE);
+        compressionBox.setPrefWidth(150);
+        compressionBox.disableProperty().bind(snapshotSelected);
+        gridPane.add(compressionBox, 1, 1);
+
+        // split checkbox & part size spinner
+        CheckBox splitCheckBox = new CheckBox("Split into parts of (MB):");
+        splitCheckBox.disableProperty().bind(snapshotSelected);
+        gridPane.add(splitCheckBox, 0, 2);
+        Spinner<Integer> partSizeSpinner = new Spinner<>(1, 100_000, DEFAULT_PART_SIZE_MB, 10);
+        partSizeSpinner.setEditable(true);
+        partSizeSpinner.setPrefWidth(150);
+        partSizeSpinner.disableProperty().bind(splitCheckBox.selectedProperty().not().or(snapshotSelected));
+        gridPane.add(partSizeSpinner, 1, 2);
+
+        dialog.getDialogPane().setContent(gridPane);
+
+        ButtonType closeButton = new ButtonType("Cancel", ButtonType.CANCEL.getButtonData());
+        ButtonType exportButton = new ButtonType("Export", ButtonType.OK.getButtonData());
+        dialog.getDialogPane().getButtonTypes().addAll(exportButton, closeButton);
+
+        // sets the return value of the dialog
+        // returns the chosen options if export button is clicked
+        // otherwise returns null
+        dialog.setResultConverter(button -> {
+            if (button == exportButton) {
+                if (formatBox.getValue() == ExportOptions.Format.SNAPSHOT) {
+                    return new ExportOptions(ExportOptions.Format.SNAPSHOT, ExportOptions.Compression.NONE, 0);
+                }
+
+                long partSizeBytes = splitCheckBox.isSelected() ? partSizeSpinner.getValue() * 1024L * 1024L : 0;
+                return new ExportOptions(ExportOptions.Format.CSV, compressionBox.getValue(), partSizeBytes);
+            } else {
+                return null;
+            }
+        });
+
+        return dialog.showAndWait();
+    }
+}
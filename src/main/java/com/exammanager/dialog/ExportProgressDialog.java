@@ -0,0 +1,129 @@
+package com.exammanager.dialog;
+
+import javafx.animation.KeyFrame;
+import javafx.animation.Timeline;
+import javafx.geometry.Insets;
+import javafx.geometry.Pos;
+import javafx.scene.control.*;
+import javafx.scene.layout.GridPane;
+import javafx.stage.Modality;
+import javafx.stage.Window;
+import javafx.util.Duration;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A class for creating a dialog window showing the progress of a database export.
+ * <p>
+ * Shows the number of rows written for each table, along with the overall completion.
+ * The export threads only update a row counter per table, which the dialog reads a few
+ * times per second on the JavaFX application thread, so writing rows never waits for the UI.
+ * Closing the dialog does not cancel the export.
+ *
+ * @author Bendik
+ */
+public class ExportProgressDialog {
+
+    private static final Duration REFRESH_INTERVAL = Duration.millis(200);
+
+    private final Dialog<Void> dialog = new Dialog<>();
+    private final Timeline timeline;
+
+    private final AtomicLong[] rowCounters;
+    private final Label[] rowLabels;
+    private final String[] statuses;
+    private final ProgressBar overallProgress = new ProgressBar(0);
+    private final Label overallLabel = new Label();
+    private int finishedCount;
+
+    /**
+     * Creates a dialog window for an export of the given tables.
+     * <p>
+     * @param owner the window owning the dialog
+     * @param tableNames the names of the tables being exported
+     */
+    public ExportProgressDialog(Window owner, List<String> tableNames) {
+        dialog.initOwner(owner);
+        dialog.initModality(Modality.NONE);
+        dialog.setTitle("Exporting Database");
+        dialog.setHeaderText("Exporting " + tableNames.size() + " tables");
+
+        GridPane gridPane = new GridPane();
+        gridPane.setAlignment(Pos.CENTER);
+        gridPane.setHgap(10);
+        gridPane.setVgap(10);
+        gridPane.setPadding(new Insets(10));
+
+        rowCounters = new AtomicLong[tableNames.size()];
+        rowLabels = new Label[tableNames.size()];
+        statuses = new String[tableNames.size()];
+        for (int i = 0; i < tableNames.size(); i++) {
+            rowCounters[i] = new AtomicLong();
+            rowLabels[i] = new Label();
+            rowLabels[i].setMinWidth(180);
+            statuses[i] = "";
+            gridPane.add(new Label(tableNames.get(i) + ":"), 0, i);
+            gridPane.add(rowLabels[i], 1, i);
+        }
+
+        overallProgress.setPrefWidth(300);
+        gridPane.add(overallProgress, 0, tableNames.size(), 2, 1);
+        gridPane.add(overallLabel, 0, tableNames.size() + 1, 2, 1);
+
+        dialog.getDialogPane().setContent(gridPane);
+        dialog.getDialogPane().getButtonTypes().add(ButtonType.CLOSE);
+
+        timeline = new Timeline(new KeyFrame(REFRESH_INTERVAL, event -> refresh()));
+        timeline.setCycleCount(Timeline.INDEFINITE);
+        dialog.setOnHidden(event -> timeline.stop());
+
+        refresh();
+    }
+
+    /**
+     * Returns the counter the export of a table should update with the number of rows written.
+     * May be updated from any thread.
+     * <p>
+     * @param index the index of the table
+     * @return the table's row counter
+     */
+    public AtomicLong getRowCounter(int index) {
+        return rowCounters[index];
+    }
+
+    public void show() {
+        timeline.play();
+        dialog.show();
+    }
+
+    /**
+     * Marks the export of a table as finished. Must be called on the JavaFX application thread.
+     * <p>
+     * @param index the index of the table
+     * @param succeeded whether the table was exported successfully
+     */
+    public void tableFinished(int index, boolean succeeded) {
+        statuses[index] = succeeded ? " (done)" : " (failed)";
+        finishedCount++;
+        refresh();
+    }
+
+    public void close() {
+        timeline.stop();
+        dialog.close();
+    }
+
+    private void refresh() {
+        long totalRows = 0;
+        for (int i = 0; i < rowCounters.length; i++) {
+            long rows = rowCounters[i].get();
+            totalRows += rows;
+            rowLabels[i].setText(String.format("%,d rows%s", rows, statuses[i]));
+        }
+
+        overallProgress.setProgress(rowCounters.length == 0 ? 1 : (double) finishedCount / rowCounters.length);
+        overallLabel.setText(String.format("%d of %d tables finished, %,d rows written",
+                finishedCount, rowCounters.length, totalRows));
+    }
+}
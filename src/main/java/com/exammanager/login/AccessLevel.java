@@ -3,25 +3,12 @@ package com.exammanager.login;
 /**
  * An enum defining the different access levels of the application.
  * Used to define to level of access the currently logged-in user should have.
+ * The logged-in user themselves is a {@link Principal}.
  * <p>
  * @author Bendik
  */
 public enum AccessLevel {
-    ADMIN(""),
-    TEACHER(""),
-    STUDENT("");
-
-    private String email;
-
-    AccessLevel(String email) {
-        this.email = email;
-    }
-
-    public String getEmail() {
-        return email;
-    }
-
-    public void setEmail(String email) {
-        this.email = email;
-    }
-}
\ No newline at end of file
+    ADMIN,
+    TEACHER,
+    STUDENT
+}
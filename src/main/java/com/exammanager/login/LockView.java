@@ -0,0 +1,75 @@
+package com.exammanager.login;
+
+import javafx.geometry.Insets;
+import javafx.geometry.Pos;
+import javafx.scene.control.Button;
+import javafx.scene.control.Label;
+import javafx.scene.control.PasswordField;
+import javafx.scene.layout.*;
+import javafx.scene.paint.Color;
+
+/**
+ * A view shown instead of the main view while the application is locked.
+ * <p>
+ * Asks the logged-in user for their password to unlock the application. The view exposes
+ * getter methods for its UI components so that the {@link com.exammanager.controller.AppController}
+ * can handle unlocking.
+ *
+ * @author Bendik
+ */
+public class LockView extends StackPane {
+
+    private final PasswordField passwordField;
+    private final Button unlockButton;
+    private final Label errorLabel;
+
+    /**
+     * @param email the email of the logged-in user
+     */
+    public LockView(String email) {
+        Label title = new Label("Exam Manager is locked");
+        title.setStyle("-fx-font-size: 30px; -fx-font-weight: bold; -fx-text-fill: #2c3e50;");
+
+        Label userLabel = new Label("Enter the password for " + email + " to unlock.");
+
+        passwordField = new PasswordField();
+        passwordField.setPromptText("Password");
+        passwordField.setMaxWidth(300);
+        passwordField.setStyle(
+                "-fx-background-radius: 10; -fx-padding: 10; -fx-border-radius: 10; -fx-border-color: #cccccc;"
+        );
+
+        unlockButton = new Button("Unlock");
+        unlockButton.setStyle(
+                "-fx-background-color: #4a90e2; " +
+                        "-fx-text-fill: white; " +
+                        "-fx-font-weight: bold; " +
+                        "-fx-background-radius: 10; " +
+                        "-fx-padding: 10 20;"
+        );
+
+        errorLabel = new Label();
+        errorLabel.setStyle("-fx-text-fill: red; -fx-font-size: 14px;");
+
+        VBox formBox = new VBox(15, title, userLabel, passwordField, unlockButton, errorLabel);
+        formBox.setAlignment(Pos.CENTER);
+        formBox.setPadding(new Insets(30));
+        formBox.setStyle("-fx-background-color: white;");
+
+        setPadding(new Insets(40));
+        setBackground(new Background(new BackgroundFill(Color.web("#cfe0fc"), CornerRadii.EMPTY, Insets.EMPTY)));
+        getChildren().add(formBox);
+    }
+
+    public PasswordField getPasswordField() {
+        return passwordField;
+    }
+
+    public Button getUnlockButton() {
+        return unlockButton;
+    }
+
+    public Label getErrorLabel() {
+        return errorLabel;
+    }
+}
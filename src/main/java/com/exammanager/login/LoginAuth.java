@@ -1,58 +1,146 @@
 package com.exammanager.login;
 
-import com.exammanager.util.AlertUtil;
+import com.exammanager.util.ConnectionProvider;
 import com.exammanager.util.DatabaseConnection;
 import com.exammanager.util.PasswordCryptography;
 
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
-import java.util.Arrays;
-import java.util.Base64;
+import java.sql.SQLException;
+import java.util.Locale;
 import java.util.Optional;
 
 /**
  * A class for handling login. Contains a public method loginAuth used
- * to check login credentials, two private helper methods for validating
- * emails and passwords, and a private static class for holding account details.
+ * to check login credentials, private helper methods for validating
+ * emails and replacing outdated password hashes, and a private static class
+ * for holding account details.
+ * <p>
+ * Hashing the password is deliberately slow, so logins are checked on a background
+ * thread with {@link LoginTask} instead of on the JavaFX application thread.
+ * <p>
+ * To keep bursts of failed logins from keeping the CPU busy hashing, failed logins are
+ * throttled both per email address and for this computer as a whole, see {@link LoginThrottle}.
+ * The limits are set with the {@code login.throttle.*} keys of the properties file.
+ * Wrong passwords on the lock screen count against the same per-email limit, see
+ * {@link SessionManager#unlock(Session, String)}.
  * <p>
  * @author Bendik
  */
 public class LoginAuth {
 
+    // Failed logins per email address
+    private static final LoginThrottle EMAIL_THROTTLE = new LoginThrottle(
+            DatabaseConnection.getIntProperty("login.throttle.emailAttempts", 5),
+            DatabaseConnection.getIntProperty("login.throttle.windowSeconds", 600),
+            1,
+            DatabaseConnection.getIntProperty("login.throttle.maxDelaySeconds", 900));
+
+    // Failed logins for any email address, from the computer the application runs on
+    private static final LoginThrottle HOST_THROTTLE = new LoginThrottle(
+            DatabaseConnection.getIntProperty("login.throttle.hostAttempts", 50),
+            DatabaseConnection.getIntProperty("login.throttle.windowSeconds", 600),
+            1,
+            DatabaseConnection.getIntProperty("login.throttle.maxDelaySeconds", 900));
+
+    private static final String HOST_KEY = "host";
+
     /**
      * Handles login. Takes an email and a password as arguments. First
      * checks if the email is associated with an existing user account. If
      * the email is correct, it then hashes the password and matches it to the
-     * stored hash associated with the account.
+     * stored hash associated with the account. If the stored hash was created
+     * with outdated parameters, it is replaced with a new hash of the password,
+     * see {@link PasswordCryptography#needsRehash(String)}.
+     * <p>
+     * If the email has no account, a dummy hash is checked instead, so the login takes
+     * as long as for an existing account. Logins for an email or this computer which have
+     * failed too often recently are rejected without checking the password.
+     * <p>
+     * The connection is returned to the pool before the password is hashed.
      * <p>
      * @param email the email address of the user trying to log in
      * @param password the password of the user trying to log in
-     * @return a {@link Optional} containing the access level of the account if the
+     * @return a {@link Optional} containing the {@link Principal} of the account if the
      * email and passwords are correct, otherwise returns an empty {@link Optional}
+     * @throws SQLException if the account could not be retrieved from the database
+     * @throws LoginThrottledException if too many logins have failed recently
      */
-    public static Optional<AccessLevel> loginAuth(String email, String password) {
-        Connection conn = DatabaseConnection.getConnection();
-        if (conn == null) {
-            return Optional.empty();
+    public static Optional<Principal> loginAuth(String email, String password) throws SQLException, LoginThrottledException {
+        String emailKey = toEmailKey(email);
+
+        long now = System.nanoTime();
+        long remainingBlock = Math.max(EMAIL_THROTTLE.remainingBlock(emailKey, now), HOST_THROTTLE.remainingBlock(HOST_KEY, now));
+        if (remainingBlock > 0) {
+            // Rounded up, so the user is never told to retry before the block has ended
+            throw new LoginThrottledException((remainingBlock + 999_999_999) / 1_000_000_000);
         }
 
-        Optional<UserDetails> userDetails = validateUser(conn, email);
+        Optional<UserDetails> userDetails;
+
+        try (Connection conn = ConnectionProvider.borrow()) {
+            userDetails = validateUser(conn, email);
+        }
 
         if (userDetails.isPresent()) {
             String hash = userDetails.get().hash;
             String salt = userDetails.get().salt;
 
-            if (validatePassword(password, hash, salt)) {
-                return Optional.of(userDetails.get().accessLevel);
+            if (PasswordCryptography.verifyPassword(password, salt, hash)) {
+                if (PasswordCryptography.needsRehash(hash)) {
+                    rehashPassword(email, password, hash);
+                }
+                EMAIL_THROTTLE.reset(emailKey);
+                return Optional.of(new Principal(email, userDetails.get().accessLevel));
             }
+        } else {
+            PasswordCryptography.verifyDummyPassword(password);
         }
-        // TODO! TEST THIS
-        AlertUtil.genericError("Login failed.", "Incorrect email or password.");
+
+        now = System.nanoTime();
+        EMAIL_THROTTLE.recordFailure(emailKey, now);
+        HOST_THROTTLE.recordFailure(HOST_KEY, now);
         return Optional.empty();
     }
 
-    private static Optional<UserDetails> validateUser(Connection conn, String email) {
+    /**
+     * Rejects an attempt to unlock the lock screen if too many logins or unlocks have failed
+     * recently for the email address.
+     *
+     * @param email the email address of the logged-in user
+     * @throws LoginThrottledException if too many attempts have failed recently
+     */
+    static void checkUnlockThrottle(String email) throws LoginThrottledException {
+        long remainingBlock = EMAIL_THROTTLE.remainingBlock(toEmailKey(email), System.nanoTime());
+        if (remainingBlock > 0) {
+            throw new LoginThrottledException((remainingBlock + 999_999_999) / 1_000_000_000);
+        }
+    }
+
+    /**
+     * Counts a wrong password entered on the lock screen against the email address.
+     *
+     * @param email the email address of the logged-in user
+     */
+    static void recordUnlockFailure(String email) {
+        EMAIL_THROTTLE.recordFailure(toEmailKey(email), System.nanoTime());
+    }
+
+    /**
+     * Forgets the failed logins and unlocks of the email address after a successful unlock.
+     *
+     * @param email the email address of the logged-in user
+     */
+    static void resetUnlockThrottle(String email) {
+        EMAIL_THROTTLE.reset(toEmailKey(email));
+    }
+
+    private static String toEmailKey(String email) {
+        return email.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static Optional<UserDetails> validateUser(Connection conn, String email) throws SQLException {
         String sql = "SELECT hash, salt, access_level FROM user WHERE email = ?";
 
         try (PreparedStatement stmt = conn.prepareStatement(sql)) {
@@ -64,25 +152,30 @@ public class LoginAuth {
                 // TODO! CHECK THIS
                 AccessLevel accessLevel = AccessLevel.valueOf(rs.getString("access_level"));
 
-                accessLevel.setEmail(email);
-
                 UserDetails userDetails = new UserDetails(email, hash, salt, accessLevel);
                 return Optional.of(userDetails);
             }
-        } catch (Exception e) {
-            AlertUtil.showDatabaseConnectionError(e.getMessage());
         }
 
         return Optional.empty();
     }
 
-    private static boolean validatePassword(String password, String databaseHash, String salt) {
-        String passwordHashString = PasswordCryptography.hashPassword(password, salt);
-
-        byte[] hashBytes = Base64.getDecoder().decode(passwordHashString);
-        byte[] databaseHashBytes = Base64.getDecoder().decode(databaseHash);
-
-        return Arrays.equals(hashBytes, databaseHashBytes);
+    // Replaces the stored hash of an account, unless it has been changed since it was read
+    // Failing to replace it does not fail the login, as the stored hash is still valid
+    private static void rehashPassword(String email, String password, String oldHash) {
+        String salt = PasswordCryptography.generateSalt();
+        String hash = PasswordCryptography.hashPassword(password, salt);
+
+        String sql = "UPDATE user SET hash = ?, salt = ? WHERE email = ? AND hash = ?";
+        try (Connection conn = ConnectionProvider.borrow(); PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setString(1, hash);
+            stmt.setString(2, salt);
+            stmt.setString(3, email);
+            stmt.setString(4, oldHash);
+            stmt.executeUpdate();
+        } catch (SQLException e) {
+            System.out.println("Failed to update password hash: " + e.getMessage());
+        }
     }
 
     private static class UserDetails {
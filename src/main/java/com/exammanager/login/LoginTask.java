@@ -0,0 +1,41 @@
+package com.exammanager.login;
+
+import javafx.concurrent.Task;
+
+import java.util.Optional;
+
+/**
+ * A task for checking login credentials on a background thread.
+ * <p>
+ * Looking up the account and hashing the password with {@link LoginAuth#loginAuth(String, String)}
+ * takes long enough to freeze the login window, so it is run as a task instead, e.g. with
+ * {@link com.exammanager.util.BackgroundExecutor#execute(Runnable)}. The task's handlers are
+ * called on the JavaFX application thread once the result arrives. A cancelled task never
+ * calls its succeeded handler, so closing the login window while logging in discards the result.
+ * <p>
+ * A successful login starts a new {@link Session}, see {@link SessionManager}.
+ * <p>
+ * @author Bendik
+ */
+public class LoginTask extends Task<Optional<Session>> {
+
+    private final String email;
+    private final String password;
+
+    public LoginTask(String email, String password) {
+        this.email = email;
+        this.password = password;
+    }
+
+    /**
+     * @return {@link Optional} containing the new session if the email and password
+     * are correct, otherwise an empty {@link Optional}
+     * @throws Exception if the account could not be retrieved from the database,
+     * or there have been too many failed logins
+     */
+    @Override
+    protected Optional<Session> call() throws Exception {
+        return LoginAuth.loginAuth(email, password)
+                .map(principal -> SessionManager.start(principal, password));
+    }
+}
@@ -0,0 +1,142 @@
+package com.exammanager.login;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Limits how often logins may fail for a key, such as an email address or the computer
+ * the application runs on, so a burst of failed logins cannot keep the CPU busy hashing.
+ * <p>
+ * Failures are counted in a sliding window, estimated from the number of failures in the
+ * current and the previous window. Once a key has more failures than it is allowed in the
+ * window, every further failure blocks it for twice as long as the one before, up to a
+ * maximum delay. Blocked logins are rejected before any password is hashed.
+ * <p>
+ * The state of each key is an immutable snapshot replaced with compare-and-set, so checking
+ * a key never waits for a lock, and logins for other keys are never held up.
+ * Safe to use from several threads at once.
+ *
+ * @author Bendik
+ */
+class LoginThrottle {
+
+    // Keys are only pruned once there are more than this many
+    private static final int PRUNE_THRESHOLD = 10_000;
+
+    /**
+     * The failures of a key.
+     *
+     * @param start when the current window started
+     * @param count the number of failures in the current window
+     * @param previousCount the number of failures in the previous window
+     * @param blockedUntil when the key may log in again, which is in the past if it is not blocked
+     */
+    private record Window(long start, int count, int previousCount, long blockedUntil) {
+
+        // Moves the window forward to contain the given time
+        private Window roll(long now, long windowNanos) {
+            long elapsed = now - start;
+            if (elapsed < windowNanos) {
+                return this;
+            }
+            if (elapsed < 2 * windowNanos) {
+                return new Window(start + windowNanos, 0, count, blockedUntil);
+            }
+            return new Window(now, 0, 0, blockedUntil);
+        }
+
+        // The estimated number of failures in the window ending now
+        private double failures(long now, long windowNanos) {
+            double previousWeight = 1 - (double) (now - start) / windowNanos;
+            return previousCount * previousWeight + count;
+        }
+    }
+
+    private final Map<String, AtomicReference<Window>> windows = new ConcurrentHashMap<>();
+    private final int allowedFailures;
+    private final long windowNanos;
+    private final long baseDelayNanos;
+    private final long maxDelayNanos;
+
+    /**
+     * Creates a throttle with no failures.
+     *
+     * @param allowedFailures the number of failures a key may have in the window before being blocked
+     * @param windowSeconds the length of the sliding window
+     * @param baseDelaySeconds how long the first failure above the allowed number blocks the key
+     * @param maxDelaySeconds the longest a key is blocked after a single failure
+     */
+    LoginThrottle(int allowedFailures, int windowSeconds, int baseDelaySeconds, int maxDelaySeconds) {
+        this.allowedFailures = allowedFailures;
+        this.windowNanos = windowSeconds * 1_000_000_000L;
+        this.baseDelayNanos = baseDelaySeconds * 1_000_000_000L;
+        this.maxDelayNanos = maxDelaySeconds * 1_000_000_000L;
+    }
+
+    /**
+     * Returns how long a key must wait before it may log in again.
+     *
+     * @param key the key
+     * @param now the current {@link System#nanoTime()}
+     * @return the remaining time in nanoseconds, or 0 if the key is not blocked
+     */
+    long remainingBlock(String key, long now) {
+        AtomicReference<Window> reference = windows.get(key);
+        if (reference == null) {
+            return 0;
+        }
+        return Math.max(0, reference.get().blockedUntil() - now);
+    }
+
+    /**
+     * Counts a failed login for a key, blocking it if it has failed too often.
+     *
+     * @param key the key
+     * @param now the current {@link System#nanoTime()}
+     */
+    void recordFailure(String key, long now) {
+        if (windows.size() > PRUNE_THRESHOLD) {
+            prune(now);
+        }
+
+        AtomicReference<Window> reference = windows.computeIfAbsent(key, k -> new AtomicReference<>(new Window(now, 0, 0, now)));
+        while (true) {
+            Window current = reference.get();
+            Window rolled = current.roll(now, windowNanos);
+            Window counted = new Window(rolled.start(), rolled.count() + 1, rolled.previousCount(), rolled.blockedUntil());
+
+            long blockedUntil = counted.blockedUntil();
+            double failures = counted.failures(now, windowNanos);
+            if (failures > allowedFailures) {
+                // Doubles the delay for every failure above the allowed number, stopping at the maximum
+                long delay = baseDelayNanos;
+                for (int i = 1; i < failures - allowedFailures && delay < maxDelayNanos; i++) {
+                    delay *= 2;
+                }
+                blockedUntil = now + Math.min(delay, maxDelayNanos);
+            }
+
+            if (reference.compareAndSet(current, new Window(counted.start(), counted.count(), counted.previousCount(), blockedUntil))) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Forgets the failures of a key, e.g. after a successful login.
+     *
+     * @param key the key
+     */
+    void reset(String key) {
+        windows.remove(key);
+    }
+
+    // Removes keys which are not blocked and have no failures in the last two windows
+    private void prune(long now) {
+        windows.values().removeIf(reference -> {
+            Window window = reference.get();
+            return window.blockedUntil() - now <= 0 && now - window.start() >= 2 * windowNanos;
+        });
+    }
+}
@@ -0,0 +1,27 @@
+package com.exammanager.login;
+
+/**
+ * Thrown by {@link LoginAuth#loginAuth(String, String)} when a login is rejected because
+ * there have been too many failed logins for the email address or on this computer, and by
+ * {@link SessionManager#unlock(Session, String)} when unlocking is rejected for the same reason.
+ *
+ * @author Bendik
+ */
+public class LoginThrottledException extends Exception {
+
+    private static final long serialVersionUID = 1L;
+
+    private final long retryAfterSeconds;
+
+    /**
+     * @param retryAfterSeconds how many seconds to wait before logging in again
+     */
+    public LoginThrottledException(long retryAfterSeconds) {
+        super("Too many failed logins. Try again in " + retryAfterSeconds + " second" + (retryAfterSeconds == 1 ? "" : "s") + ".");
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
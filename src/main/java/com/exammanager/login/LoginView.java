@@ -6,6 +6,7 @@ import javafx.scene.Scene;
 import javafx.scene.control.Button;
 import javafx.scene.control.Label;
 import javafx.scene.control.PasswordField;
+import javafx.scene.control.ProgressIndicator;
 import javafx.scene.control.TextField;
 import javafx.scene.layout.*;
 import javafx.scene.paint.Color;
@@ -18,6 +19,8 @@ public class LoginView extends VBox {
     private TextField emailField;
     private TextField passwordField;
     private Button loginButton;
+    private ProgressIndicator progressIndicator;
+    private Label errorLabel;
 
     public LoginView() {
         // ----------------------------
@@ -53,13 +56,18 @@ public class LoginView extends VBox {
                         "-fx-padding: 10 20;"
         );
 
-        Label errorLabel = new Label();
+        // Shown while the login is checked in the background
+        progressIndicator = new ProgressIndicator();
+        progressIndicator.setPrefSize(30, 30);
+        progressIndicator.setVisible(false);
+
+        errorLabel = new Label();
         errorLabel.setStyle("-fx-text-fill: red; -fx-font-size: 14px;");
 
         // ----------------------------
         // Form container
         // ----------------------------
-        VBox formBox = new VBox(15, title, emailField, passwordField, loginButton, errorLabel);
+        VBox formBox = new VBox(15, title, emailField, passwordField, loginButton, progressIndicator, errorLabel);
         formBox.setAlignment(Pos.CENTER);
         formBox.setPadding(new Insets(30));
         formBox.setPrefWidth(600);
@@ -78,16 +86,6 @@ public class LoginView extends VBox {
         );
         root.setBackground(new Background(bgFill));
 
-        // ----------------------------
-        // Login action
-        // ----------------------------
-        loginButton.setOnAction(e -> {
-            String email = emailField.getText();
-            String password = passwordField.getText();
-
-
-        });
-
         getChildren().add(formBox);
     }
 
@@ -102,4 +100,12 @@ public class LoginView extends VBox {
     public Button getLoginButton() {
         return loginButton;
     }
+
+    public ProgressIndicator getProgressIndicator() {
+        return progressIndicator;
+    }
+
+    public Label getErrorLabel() {
+        return errorLabel;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,21 @@
+package com.exammanager.login;
+
+/**
+ * The identity of a logged-in user, created by {@link LoginAuth} after a successful login.
+ * <p>
+ * Immutable, so it can be passed to the views and controllers of a session without another
+ * login or session in the same application changing who they act for.
+ *
+ * @param email the email address of the user's account
+ * @param accessLevel the access level of the user's account
+ *
+ * @author Bendik
+ */
+public record Principal(String email, AccessLevel accessLevel) {
+
+    public Principal {
+        if (email == null || accessLevel == null) {
+            throw new IllegalArgumentException("A principal needs both an email and an access level");
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.exammanager.login;
+
+import java.time.Instant;
+
+/**
+ * The session of a logged-in user, created by {@link SessionManager} after a successful login.
+ * <p>
+ * A session is immutable, and belongs to the {@link Principal} who logged in. Its token is
+ * signed by the {@link SessionManager}, so the session can be verified again, e.g. before a
+ * privileged action or when unlocking the lock screen, without hashing the password or
+ * querying the database.
+ * <p>
+ * @author Bendik
+ */
+public final class Session {
+
+    private final Principal principal;
+    private final Instant issuedAt;
+    private final Instant expiresAt;
+    private final String token;
+
+    // Verifies the password when unlocking, without the cost of the stored password hash
+    private final byte[] unlockVerifier;
+
+    Session(Principal principal, Instant issuedAt, Instant expiresAt, String token, byte[] unlockVerifier) {
+        this.principal = principal;
+        this.issuedAt = issuedAt;
+        this.expiresAt = expiresAt;
+        this.token = token;
+        this.unlockVerifier = unlockVerifier;
+    }
+
+    public Principal getPrincipal() {
+        return principal;
+    }
+
+    public Instant getIssuedAt() {
+        return issuedAt;
+    }
+
+    public Instant getExpiresAt() {
+        return expiresAt;
+    }
+
+    /**
+     * @return the signed token identifying the session, which can be checked with
+     * {@link SessionManager#verify(String)}
+     */
+    public String getToken() {
+        return token;
+    }
+
+    public boolean isExpired() {
+        return !Instant.now().isBefore(expiresAt);
+    }
+
+    byte[] getUnlockVerifier() {
+        return unlockVerifier;
+    }
+}
@@ -0,0 +1,187 @@
+package com.exammanager.login;
+
+import com.exammanager.util.DatabaseConnection;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A class for starting, verifying and ending the sessions of logged-in users.
+ * As an abstract class, it contains only static methods and has no constructor.
+ * <p>
+ * Every session gets a token containing the user's email, access level, issue time and
+ * expiry time, signed with HMAC-SHA256. The signing key is generated randomly when the
+ * application starts and never leaves memory, so tokens cannot be forged, and sessions end
+ * when the application exits. Verifying a token takes microseconds, so it can be done before
+ * every privileged action, or by every window of the application, instead of logging in again.
+ * <p>
+ * The password entered at login is also kept as a keyed HMAC in the session, so the lock
+ * screen can be unlocked without the deliberately slow password hash or a database query.
+ * Sessions expire after {@code login.session.timeoutMinutes}, set in the properties file,
+ * after which the user must log in with the stored password hash again.
+ * <p>
+ * Safe to use from several threads at once.
+ *
+ * @author Bendik
+ */
+public abstract class SessionManager {
+
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private static final SecretKeySpec KEY = generateKey();
+
+    // Mac instances are not thread-safe, so every thread signing tokens gets its own
+    private static final ThreadLocal<Mac> MAC = ThreadLocal.withInitial(SessionManager::createMac);
+
+    private static final Duration TIMEOUT = Duration.ofMinutes(DatabaseConnection.getIntProperty("login.session.timeoutMinutes", 480));
+
+    // Sessions which have not been ended, by token
+    private static final Map<String, Session> ACTIVE_SESSIONS = new ConcurrentHashMap<>();
+
+    /**
+     * Starts a session for a user whose password has been checked.
+     *
+     * @param principal the user
+     * @param password the password the user logged in with, used to unlock the session
+     * @return the new session
+     */
+    public static Session start(Principal principal, String password) {
+        Instant issuedAt = Instant.now();
+        Instant expiresAt = issuedAt.plus(TIMEOUT);
+
+        // The random nonce makes every token unique, even for the same user and time
+        byte[] nonce = new byte[16];
+        new SecureRandom().nextBytes(nonce);
+
+        String payload = String.join(".",
+                ENCODER.encodeToString(principal.email().getBytes(StandardCharsets.UTF_8)),
+                principal.accessLevel().name(),
+                Long.toString(issuedAt.toEpochMilli()),
+                Long.toString(expiresAt.toEpochMilli()),
+                ENCODER.encodeToString(nonce));
+        String token = payload + "." + ENCODER.encodeToString(sign(payload));
+
+        Session session = new Session(principal, issuedAt, expiresAt, token, unlockVerifier(token, password));
+        ACTIVE_SESSIONS.put(token, session);
+        return session;
+    }
+
+    /**
+     * Verifies a session token.
+     *
+     * @param token the token to verify
+     * @return {@link Optional} containing the session of the token if the token is correctly signed,
+     * the session has not expired and has not been ended, otherwise an empty {@link Optional}
+     */
+    public static Optional<Session> verify(String token) {
+        int signatureStart = token.lastIndexOf('.');
+        if (signatureStart < 0) {
+            return Optional.empty();
+        }
+
+        byte[] signature;
+        try {
+            signature = DECODER.decode(token.substring(signatureStart + 1));
+        } catch (IllegalArgumentException e) {
+            return Optional.empty();
+        }
+
+        // The signature is checked before anything else, so forged tokens are rejected without a lookup
+        if (!MessageDigest.isEqual(signature, sign(token.substring(0, signatureStart)))) {
+            return Optional.empty();
+        }
+
+        Session session = ACTIVE_SESSIONS.get(token);
+        if (session == null) {
+            return Optional.empty();
+        }
+        if (session.isExpired()) {
+            ACTIVE_SESSIONS.remove(token);
+            return Optional.empty();
+        }
+        return Optional.of(session);
+    }
+
+    /**
+     * Checks whether a session is still valid, e.g. before a privileged action.
+     *
+     * @param session the session to check
+     * @return true if the session's token verifies, otherwise false
+     */
+    public static boolean isValid(Session session) {
+        return verify(session.getToken()).isPresent();
+    }
+
+    /**
+     * Checks the password entered on the lock screen against the password the session was started with.
+     * <p>
+     * Checking the password is cheap, so wrong passwords count against the same per-email limit as
+     * failed logins, see {@link LoginAuth}. Otherwise, the lock screen of an unattended computer
+     * could be used to guess the password much faster than the login window.
+     *
+     * @param session the locked session
+     * @param password the entered password
+     * @return true if the session is still valid and the password matches, otherwise false
+     * @throws LoginThrottledException if too many logins or unlocks have failed recently for the user
+     */
+    public static boolean unlock(Session session, String password) throws LoginThrottledException {
+        if (!isValid(session)) {
+            return false;
+        }
+
+        String email = session.getPrincipal().email();
+        LoginAuth.checkUnlockThrottle(email);
+
+        if (MessageDigest.isEqual(session.getUnlockVerifier(), unlockVerifier(session.getToken(), password))) {
+            LoginAuth.resetUnlockThrottle(email);
+            return true;
+        }
+        LoginAuth.recordUnlockFailure(email);
+        return false;
+    }
+
+    /**
+     * Ends a session, so its token no longer verifies.
+     *
+     * @param session the session to end
+     */
+    public static void end(Session session) {
+        ACTIVE_SESSIONS.remove(session.getToken());
+    }
+
+    private static byte[] unlockVerifier(String token, String password) {
+        return sign("unlock." + token + "." + password);
+    }
+
+    private static byte[] sign(String data) {
+        return MAC.get().doFinal(data.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Mac createMac() {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(KEY);
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HMAC-SHA256 is not available", e);
+        }
+    }
+
+    private static SecretKeySpec generateKey() {
+        byte[] key = new byte[32];
+        new SecureRandom().nextBytes(key);
+        return new SecretKeySpec(key, ALGORITHM);
+    }
+}
@@ -70,7 +70,7 @@ public class Course {
 
     //Victoria
     //Setters (Change data. Put something in the box.)
-    public void setId(int courseId) {
+    public void setId(int id) {
         this.id = id;
     }
 
@@ -0,0 +1,39 @@
+package com.exammanager.model;
+
+import java.time.LocalDate;
+
+/**
+ * An exam together with the name and email of the student who took it, and the code
+ * and title of the course it is for.
+ * <p>
+ * Read-only rows returned by the joined exam queries of {@link com.exammanager.dao.ExamDAO},
+ * so the exam table and reports get the student and course of every exam from the same
+ * query as the exam itself. To change an exam, convert it with {@link #toExam()}.
+ *
+ * @param id the ID of the exam
+ * @param studentId the ID of the student who took the exam
+ * @param studentFirstName the first name of the student
+ * @param studentLastName the last name of the student
+ * @param studentEmail the email of the student
+ * @param courseId the ID of the course the exam is for
+ * @param courseCode the code of the course
+ * @param courseTitle the title of the course
+ * @param examDate the date of the exam
+ * @param grade the grade of the exam, or "No grade"
+ *
+ * @author Bendik
+ */
+public record ExamDetails(int id, int studentId, String studentFirstName, String studentLastName, String studentEmail,
+                          int courseId, String courseCode, String courseTitle, LocalDate examDate, String grade) {
+
+    public String studentName() {
+        return studentFirstName + " " + studentLastName;
+    }
+
+    /**
+     * @return an {@link Exam} with the same ID, student, course, date and grade
+     */
+    public Exam toExam() {
+        return new Exam(id, studentId, courseId, examDate, grade);
+    }
+}
@@ -32,6 +32,10 @@ public sealed class Person permits Teacher, Student {
         return id;
     }
 
+    public void setId(int id) {
+        this.id = id;
+    }
+
     public String getFirstName() {
         return firstName;
     }
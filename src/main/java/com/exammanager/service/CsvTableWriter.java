@@ -0,0 +1,183 @@
+package com.exammanager.service;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * A writer for the exported CSV-files of a table, which compresses the output and splits it into
+ * part files according to the given {@link ExportOptions}.
+ * <p>
+ * Compression happens while the rows are written, so no separate compression pass is needed.
+ * Each part file starts with the table's header and rows are never split across parts, so every
+ * part can be imported on its own. Because the size is checked between rows, and compressed data
+ * is buffered before it reaches the file, parts may grow slightly larger than the configured size.
+ *
+ * @author Bendik
+ */
+final class CsvTableWriter implements TableWriter {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final File dir;
+    private final TableSchema table;
+    private final List<TableSchema.Column> columns;
+    private final ExportOptions options;
+
+    private CountingOutputStream fileOut;
+    private Writer out;
+    private int part;
+
+    CsvTableWriter(File dir, TableSchema table, ExportOptions options) throws IOException {
+        this.dir = dir;
+        this.table = table;
+        this.columns = table.getColumns();
+        this.options = options;
+        openPart();
+    }
+
+    /**
+     * Returns the name of an exported file, e.g. {@code exam.csv}, {@code exam.csv.gz} or {@code exam.002.csv.gz}.
+     *
+     * @param table the exported table
+     * @param options the export options
+     * @param part the number of the part, starting at 1, ignored if the export is not split
+     * @return the file name
+     */
+    static String getFileName(TableSchema table, ExportOptions options, int part) {
+        String name = options.isSplit()
+                ? String.format("%s.%03d.csv", table.getTableName(), part)
+                : table.getFileName();
+        return name + options.compression().getExtension();
+    }
+
+    /**
+     * Returns a pattern matching the names of every file {@link #getFileName(TableSchema, ExportOptions, int)}
+     * can return for a table. The first group is the number of the part, or null if the export is not split,
+     * and the second group is the compression extension, or null if the file is not compressed.
+     *
+     * @param table the exported table
+     * @return the pattern
+     */
+    static Pattern getFilePattern(TableSchema table) {
+        return Pattern.compile(Pattern.quote(table.getTableName()) + "(?:\\.(\\d+))?\\.csv(\\.gz)?");
+    }
+
+    @Override
+    public void writeRow(ResultSet rs) throws SQLException, IOException {
+        // Start a new part file if the current one is full
+        if (options.isSplit() && fileOut.count >= options.partSizeBytes()) {
+            out.close();
+            openPart();
+        }
+
+        for (int i = 0; i < columns.size(); i++) {
+            if (i > 0) {
+                out.write(',');
+            }
+            writeValue(rs, i + 1, columns.get(i).type());
+        }
+        out.write('\n');
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+
+    private void openPart() throws IOException {
+        part++;
+        File file = new File(dir, getFileName(table, options, part));
+        fileOut = new CountingOutputStream(new BufferedOutputStream(Files.newOutputStream(file.toPath()), BUFFER_SIZE));
+
+        OutputStream stream = switch (options.compression()) {
+            case NONE -> fileOut;
+            case GZIP -> new GZIPOutputStream(fileOut, BUFFER_SIZE);
+        };
+        out = new BufferedWriter(new OutputStreamWriter(stream, StandardCharsets.UTF_8));
+
+        out.write(table.getColumnList());
+        out.write('\n');
+    }
+
+    private void writeValue(ResultSet rs, int column, TableSchema.ColumnType type) throws SQLException, IOException {
+        switch (type) {
+            case INT -> {
+                int value = rs.getInt(column);
+                if (!rs.wasNull()) {
+                    out.write(Integer.toString(value));
+                }
+            }
+            case DATE -> {
+                Date value = rs.getDate(column);
+                if (value != null) {
+                    out.write(value.toString());
+                }
+            }
+            case STRING, ENUM -> {
+                String value = rs.getString(column);
+                if (value != null) {
+                    writeString(value);
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes a string value, quoting it if it contains separators, quotes, line breaks
+     * or surrounding whitespace that would otherwise be lost when the file is read back.
+     */
+    private void writeString(String value) throws IOException {
+        boolean quote = !value.isEmpty()
+                && (Character.isWhitespace(value.charAt(0)) || Character.isWhitespace(value.charAt(value.length() - 1)));
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+
+        if (!quote) {
+            out.write(value);
+            return;
+        }
+
+        out.write('"');
+        out.write(value.replace("\"", "\"\""));
+        out.write('"');
+    }
+
+    /**
+     * Counts the bytes written to a part file, after compression.
+     */
+    private static class CountingOutputStream extends FilterOutputStream {
+        private long count;
+
+        private CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+    }
+}
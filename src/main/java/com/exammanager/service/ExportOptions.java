@@ -0,0 +1,68 @@
+package com.exammanager.service;
+
+/**
+ * Options for how {@link ExportService} writes the exported files.
+ *
+ * @param format the format of the exported files
+ * @param compression the compression applied to each CSV-file
+ * @param partSizeBytes the approximate maximum size of each CSV-file in bytes, or 0 to write each table to a single file
+ * @author Bendik
+ */
+public record ExportOptions(Format format, Compression compression, long partSizeBytes) {
+
+    /**
+     * Plain CSV-files written to a single file per table.
+     */
+    public static final ExportOptions DEFAULT = new ExportOptions(Format.CSV, Compression.NONE, 0);
+
+    /**
+     * The file formats supported by the export.
+     */
+    public enum Format {
+        CSV("CSV"),
+        SNAPSHOT("Binary snapshot");
+
+        private final String displayName;
+
+        Format(String displayName) {
+            this.displayName = displayName;
+        }
+
+        @Override
+        public String toString() {
+            return displayName;
+        }
+    }
+
+    /**
+     * The compression formats supported by the export.
+     */
+    public enum Compression {
+        NONE("None", ""),
+        GZIP("Gzip", ".gz");
+
+        private final String displayName;
+        private final String extension;
+
+        Compression(String displayName, String extension) {
+            this.displayName = displayName;
+            this.extension = extension;
+        }
+
+        /**
+         * @return the extension appended to the names of compressed files, or an empty string if uncompressed
+         */
+        public String getExtension() {
+            return extension;
+        }
+
+        @Override
+        public String toString() {
+            return displayName;
+        }
+    }
+
+    public boolean isSplit() {
+        return format == Format.CSV && partSizeBytes > 0;
+    }
+}
@@ -1,57 +1,70 @@
 package com.exammanager.service;
 
-import com.exammanager.dao.*;
-import com.exammanager.model.*;
+import com.exammanager.dialog.ExportOptionsDialog;
+import com.exammanager.dialog.ExportProgressDialog;
 import com.exammanager.util.AlertUtil;
+import com.exammanager.util.BackgroundExecutor;
+import com.exammanager.util.ConnectionProvider;
 import com.exammanager.view.MainView;
 import javafx.stage.DirectoryChooser;
 import javafx.stage.Window;
 
-import java.io.BufferedWriter;
 import java.io.File;
-import java.nio.charset.StandardCharsets;
+import java.io.IOException;
 import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
 
 /**
  * A service class for handling export of the application's entire database.
- * Contains a constructor which takes in the applications main view, as well
- * as all applicable DAOs to initialize the export service, and a method
+ * Contains a constructor which takes in the applications main view, and a method
  * for exporting the database tables as separate CSV-files.
  * <p>
+ * Tables are streamed straight from the database to the files, one row at a time,
+ * so memory use stays the same regardless of how large the tables are. The tables
+ * are exported in parallel, each on its own connection.
+ * <p>
  * @author Bendik
  */
 public class ExportService {
 
     private final MainView mainView;
 
-    private final TeacherDAO teacherDao;
-    private final StudentDAO studentDao;
-    private final CourseDAO courseDao;
-    private final ExamDAO examDao;
-    private final DepartmentDAO departmentDao;
-
-    public ExportService(MainView mainView, TeacherDAO teacherDAO, StudentDAO studentDAO, CourseDAO courseDAO, ExamDAO examDAO, DepartmentDAO departmentDAO) {
+    public ExportService(MainView mainView) {
         this.mainView = mainView;
-        this.teacherDao = teacherDAO;
-        this.studentDao = studentDAO;
-        this.courseDao = courseDAO;
-        this.examDao = examDAO;
-        this.departmentDao = departmentDAO;
     }
 
     /**
      * A method for exporting the application's entire database.
-     * Checks that all DAOs are initialized, then asks the user for a file-path
-     * to export the database. Once the file-path has been set, it exports all
-     * database tables as separate, appropriately named, CSV-files.
+     * Asks the user for a file-path to export the database. Once the file-path has been set,
+     * it asks for the export options, then exports all database tables as separate, appropriately
+     * named, CSV-files, optionally compressed and split into parts, or as binary snapshots.
+     * <p>
+     * Each table is written to a temporary directory inside the chosen directory, and its files are
+     * only moved into place once the whole table has been written. The files of an earlier export
+     * of the table are replaced at the same time, so the directory only ever contains one export of
+     * each table, and a failed export leaves the earlier export of the table as it was.
+     * <p>
+     * Each table is exported on its own background thread and pooled connection, so the export
+     * takes roughly as long as the largest table. The number of tables exported at the same time
+     * is limited to leave a connection free for the rest of the application. Progress is shown
+     * in an {@link ExportProgressDialog}.
      */
     public void exportDatabase() {
-        if (teacherDao == null || studentDao == null || courseDao == null || examDao == null || departmentDao == null) {
-            AlertUtil.showDatabaseConnectionError("Cannot export database without an active database connection");
-            return;
-        }
-
         Window owner = mainView.getScene().getWindow();
         DirectoryChooser directoryChooser = new DirectoryChooser();
         directoryChooser.setTitle("Select Export Directory");
@@ -60,72 +73,174 @@ public class ExportService {
             return;
         }
 
-        try {
-            // Export Departments
-            List<Department> departments = departmentDao.findAll();
-            File departmentsCsv = new File(dir, "department.csv");
-            try (BufferedWriter w = Files.newBufferedWriter(departmentsCsv.toPath(), StandardCharsets.UTF_8)) {
-                w.write("id, name");
-                w.newLine();
-                for (Department department : departments) {
-                    w.write(department.getId() + "," +  department.getName());
-                    w.newLine();
+        Optional<ExportOptions> options = ExportOptionsDialog.exportOptionsDialog();
+        if (options.isEmpty()) {
+            return;
+        }
+
+        List<TableSchema> tables = List.of(TableSchema.values());
+        ExportProgressDialog progressDialog = new ExportProgressDialog(owner,
+                tables.stream().map(TableSchema::getTableName).toList());
+        Semaphore permits = new Semaphore(getParallelism(tables.size()));
+        long startTime = System.nanoTime();
+
+        List<CompletableFuture<Long>> futures = new ArrayList<>();
+        for (int i = 0; i < tables.size(); i++) {
+            int index = i;
+            TableSchema table = tables.get(i);
+            AtomicLong rowCounter = progressDialog.getRowCounter(index);
+
+            futures.add(BackgroundExecutor.supplyAsync(() -> exportTableFile(dir, table, options.get(), rowCounter, permits))
+                    .whenComplete((rows, e) -> progressDialog.tableFinished(index, e == null)));
+        }
+
+        progressDialog.show();
+
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).handle((result, error) -> {
+            progressDialog.close();
+
+            long totalRows = 0;
+            StringBuilder errors = new StringBuilder();
+            for (int i = 0; i < tables.size(); i++) {
+                try {
+                    totalRows += futures.get(i).join();
+                } catch (CompletionException e) {
+                    Throwable cause = e.getCause() != null ? e.getCause() : e;
+                    errors.append(tables.get(i).getTableName()).append(": ").append(cause.getMessage()).append('\n');
                 }
             }
 
-            // Export Teachers
-            List<Teacher> teachers = teacherDao.findAll();
-            File teacherCsv = new File(dir, "teacher.csv");
-            try (BufferedWriter w = Files.newBufferedWriter(teacherCsv.toPath(), StandardCharsets.UTF_8)) {
-                w.write("id, first_name, last_name, department, email");
-                w.newLine();
-                for (Teacher teacher : teachers) {
-                    w.write(teacher.getId() + "," + teacher.getFirstName() + "," + teacher.getLastName() + "," + teacher.getDepartment() + "," + teacher.getEmail());
-                    w.newLine();
-                }
+            if (!errors.isEmpty()) {
+                AlertUtil.genericError("Export failed", "Failed to export the database.\n" + errors);
+            } else {
+                double seconds = (System.nanoTime() - startTime) / 1_000_000_000.0;
+                AlertUtil.showInformation("Export finished",
+                        String.format("Finished exporting %,d rows in %.1f seconds.", totalRows, seconds));
             }
+            return null;
+        });
+    }
 
-            // Export Students
-            List<Student> students = studentDao.findAll();
-            File studentCsv = new File(dir, "student.csv");
-            try (BufferedWriter w = Files.newBufferedWriter(studentCsv.toPath(), StandardCharsets.UTF_8)) {
-                w.write("id, first_name, last_name, email, enrollment_year");
-                w.newLine();
-                for (Student student : students) {
-                    w.write(student.getId() + "," + student.getFirstName() + "," + student.getLastName() + "," + student.getEmail() + "," + student.getEnrollmentYear());
-                    w.newLine();
-                }
+    private static int getParallelism(int tableCount) {
+        int maxConnections = ConnectionProvider.getPool().getMaxSize() - 1;
+        return Math.max(1, Math.min(tableCount, maxConnections));
+    }
+
+    private static long exportTableFile(File dir, TableSchema table, ExportOptions options, AtomicLong rowCounter, Semaphore permits) {
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Export was interrupted", e);
+        }
+
+        Path tempDir = null;
+        try {
+            tempDir = Files.createTempDirectory(dir.toPath(), "." + table.getTableName() + "-export-");
+
+            long rows;
+            try (Connection conn = ConnectionProvider.borrow();
+                 TableWriter w = createWriter(tempDir.toFile(), table, options)) {
+                rows = exportTable(conn, table, w, rowCounter);
+                w.finish();
             }
 
-            // Export Courses
-            List<Course> courses = courseDao.findAll();
-            File coursesCsv = new File(dir, "course.csv");
-            try (BufferedWriter w = Files.newBufferedWriter(coursesCsv.toPath(), StandardCharsets.UTF_8)) {
-                w.write("id, course_code, title, credits, teacher_id");
-                w.newLine();
-                for (Course course : courses) {
-                    w.write(course.getId() + "," + course.getCourseCode() + "," + course.getTitle() + "," + course.getCredits() + "," + course.getTeacherId());
-                    w.newLine();
-                }
+            replaceOldFiles(dir, tempDir, table);
+            return rows;
+        } catch (IOException | SQLException e) {
+            throw new RuntimeException(e.getMessage(), e);
+        } finally {
+            permits.release();
+            if (tempDir != null) {
+                deleteTempDirectory(tempDir);
+            }
+        }
+    }
+
+    // Moves the newly written files of a table over the files of an earlier export in the same directory,
+    // and deletes the earlier files which were not replaced, in any format. Otherwise parts left over from
+    // a larger export, or files with another extension, would be imported along with the new files
+    private static void replaceOldFiles(File dir, Path tempDir, TableSchema table) throws IOException {
+        Pattern csvPattern = CsvTableWriter.getFilePattern(table);
+        String snapshotName = SnapshotFormat.getFileName(table);
+
+        File[] oldFiles = dir.listFiles((parent, name) -> csvPattern.matcher(name).matches() || name.equals(snapshotName));
+        File[] newFiles = tempDir.toFile().listFiles();
+        if (oldFiles == null || newFiles == null) {
+            throw new IOException("Could not read the export directory " + dir.getPath());
+        }
+
+        Set<String> newNames = new HashSet<>();
+        for (File file : newFiles) {
+            Files.move(file.toPath(), dir.toPath().resolve(file.getName()), StandardCopyOption.REPLACE_EXISTING);
+            newNames.add(file.getName());
+        }
+
+        for (File file : oldFiles) {
+            if (file.isFile() && !newNames.contains(file.getName())) {
+                Files.delete(file.toPath());
             }
+        }
+    }
 
-            // Export Exams
-            List<Exam> exams = examDao.findAll();
-            File examCsv = new File(dir, "exam.csv");
-            try (BufferedWriter w = Files.newBufferedWriter(examCsv.toPath(), StandardCharsets.UTF_8)) {
-                w.write("id, student_id, course_id, exam_date, grade");
-                w.newLine();
-                for (Exam exam : exams) {
-                    w.write(exam.getId() + "," + exam.getStudentId() + "," + exam.getCourseId() + "," + exam.getExamDate() + "," + exam.getGrade());
-                    w.newLine();
+    // Deletes the temporary directory of a table along with any files left in it by a failed export
+    private static void deleteTempDirectory(Path tempDir) {
+        File[] files = tempDir.toFile().listFiles();
+        try {
+            if (files != null) {
+                for (File file : files) {
+                    Files.deleteIfExists(file.toPath());
                 }
             }
+            Files.deleteIfExists(tempDir);
+        } catch (IOException e) {
+            System.out.println("Failed to delete the temporary export directory " + tempDir + ": " + e.getMessage());
+        }
+    }
+
+    private static TableWriter createWriter(File dir, TableSchema table, ExportOptions options) throws IOException {
+        return switch (options.format()) {
+            case CSV -> new CsvTableWriter(dir, table, options);
+            case SNAPSHOT -> new SnapshotWriter(new File(dir, SnapshotFormat.getFileName(table)), table);
+        };
+    }
+
+    /**
+     * Writes the rows of a table to the given writer.
+     * <p>
+     * The rows are read with a forward-only, read-only result set using MySQL's streaming
+     * mode, which fetches one row at a time instead of loading the whole table. The connection
+     * cannot be used for other statements until the table has been written.
+     *
+     * @param conn the connection to read from
+     * @param table the table to export
+     * @param w the writer to write the rows to
+     * @param rowCounter a counter updated with the number of rows written so far
+     * @return the number of rows written
+     * @throws SQLException if reading the table fails
+     * @throws IOException if writing fails
+     */
+    static long exportTable(Connection conn, TableSchema table, TableWriter w, AtomicLong rowCounter) throws SQLException, IOException {
+        String sql = "SELECT " + table.getColumnList() + " FROM " + table.getTableName() + " ORDER BY id";
+        long rows = 0;
+
+        try (PreparedStatement stmt = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            stmt.setFetchSize(Integer.MIN_VALUE);
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    w.writeRow(rs);
 
-            AlertUtil.showInformation("Export finished", "Finished exporting the database.");
-        } catch (Exception e) {
-            AlertUtil.genericError("Export failed", "Failed to export the database.\n" + e.getMessage());
+                    if ((++rows & 1023) == 0) {
+                        rowCounter.set(rows);
+                    }
+                }
+            }
         }
 
+        rowCounter.set(rows);
+
+        return rows;
     }
 
 }
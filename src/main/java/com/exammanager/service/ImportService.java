@@ -0,0 +1,461 @@
+package com.exammanager.service;
+
+import com.exammanager.dao.BatchResult;
+import com.exammanager.dao.BatchUpdate;
+import com.exammanager.util.AlertUtil;
+import com.exammanager.util.BackgroundExecutor;
+import com.exammanager.util.ConnectionProvider;
+import com.exammanager.util.CsvReader;
+import com.exammanager.view.MainView;
+import javafx.stage.DirectoryChooser;
+import javafx.stage.Window;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * A service class for importing CSV-files created by {@link ExportService} back into the database.
+ * Contains a constructor which takes in the application's main view, and a method for
+ * importing the database tables from a directory of CSV-files.
+ * <p>
+ * Files are streamed with {@link CsvReader} and inserted in foreign key order using batched
+ * statements, one transaction per chunk. Foreign keys are validated against in-memory sets
+ * of the IDs already in the database and the IDs imported so far, so rows referencing missing
+ * rows are rejected without failing the whole chunk. Plain, gzip-compressed and split
+ * exports are all supported, as well as binary snapshots. Teacher exports made before teachers
+ * referenced their department by ID are also supported, and their department names are looked
+ * up in the database.
+ * <p>
+ * @author Bendik
+ */
+public class ImportService {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final MainView mainView;
+    private final int chunkSize;
+
+    public ImportService(MainView mainView) {
+        this.mainView = mainView;
+        this.chunkSize = BatchUpdate.getChunkSize();
+    }
+
+    /**
+     * A method for importing a previously exported database.
+     * Asks the user for the directory containing the exported CSV-files, then imports
+     * every table file found in that directory on a background thread. Once finished,
+     * displays how many rows were imported, rejected or failed for each table, along with
+     * the overall throughput in rows per second.
+     */
+    public void importDatabase() {
+        Window owner = mainView.getScene().getWindow();
+        DirectoryChooser directoryChooser = new DirectoryChooser();
+        directoryChooser.setTitle("Select Import Directory");
+        File dir = directoryChooser.showDialog(owner);
+        if (dir == null) {
+            return;
+        }
+
+        Map<TableSchema, List<File>> tables = new EnumMap<>(TableSchema.class);
+        try {
+            for (TableSchema table : TableSchema.values()) {
+                List<File> files = findTableFiles(dir, table);
+                if (!files.isEmpty()) {
+                    tables.put(table, files);
+                }
+            }
+        } catch (IOException e) {
+            AlertUtil.genericError("Import failed", "The selected directory does not contain one consistent export.\n"
+                    + e.getMessage() + "\nExport the database again into an empty directory, then import it from there.");
+            return;
+        }
+
+        if (tables.isEmpty()) {
+            AlertUtil.genericError("Import failed", "No exported CSV-files found in " + dir.getPath());
+            return;
+        }
+
+        BackgroundExecutor.supplyAsync(() -> {
+            try {
+                return importTables(tables);
+            } catch (IOException | SQLException e) {
+                throw new RuntimeException(e.getMessage(), e);
+            }
+        }).thenAccept(report -> AlertUtil.showInformation("Import finished", report)
+        ).exceptionally(e -> {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            AlertUtil.genericError("Import failed", "Failed to import the database.\n" + cause.getMessage());
+            return null;
+        });
+    }
+
+    /**
+     * Finds the exported files of a table, either a single file such as {@code exam.csv}, or part
+     * files such as {@code exam.001.csv}, optionally gzip-compressed, or a binary snapshot such as
+     * {@code exam.snapshot}. A table with both a snapshot and CSV-files is rejected, as there is no
+     * way to tell which of the two exports is the one the user wants to import.
+     * <p>
+     * The CSV-files must be one consistent export: either a single file or parts numbered from 1
+     * without gaps, all with the same extension. Otherwise files from different exports are mixed,
+     * and importing them would insert rows twice or fail on duplicate keys.
+     *
+     * @param dir the directory to search
+     * @param table the table to find files for
+     * @return the files in the order they were written
+     * @throws IOException if the directory could not be read, or does not contain one consistent export of the table
+     */
+    static List<File> findTableFiles(File dir, TableSchema table) throws IOException {
+        Pattern pattern = CsvTableWriter.getFilePattern(table);
+        File[] files = dir.listFiles((parent, name) -> pattern.matcher(name).matches());
+        if (files == null) {
+            throw new IOException("Could not read the import directory " + dir.getPath());
+        }
+
+        List<File> singleFiles = new ArrayList<>();
+        TreeMap<Integer, File> parts = new TreeMap<>();
+        Set<String> extensions = new HashSet<>();
+
+        for (File file : files) {
+            if (!file.isFile()) {
+                continue;
+            }
+            Matcher matcher = pattern.matcher(file.getName());
+            matcher.matches();
+            extensions.add(matcher.group(2) != null ? matcher.group(2) : "");
+
+            if (matcher.group(1) == null) {
+                singleFiles.add(file);
+            } else if (parts.put(Integer.parseInt(matcher.group(1)), file) != null) {
+                throw new IOException("The " + table.getTableName() + " table has more than one part " + matcher.group(1) + ".");
+            }
+        }
+
+        File snapshot = new File(dir, SnapshotFormat.getFileName(table));
+        if (snapshot.isFile()) {
+            if (!extensions.isEmpty()) {
+                throw new IOException("The " + table.getTableName() + " table has both a snapshot and CSV-files.");
+            }
+            return List.of(snapshot);
+        }
+
+        if (extensions.size() > 1) {
+            throw new IOException("The " + table.getTableName() + " table has both compressed and uncompressed files.");
+        }
+        if (!singleFiles.isEmpty() && !parts.isEmpty()) {
+            throw new IOException("The " + table.getTableName() + " table has both a single file and part files.");
+        }
+
+        // Parts are numbered from 1, so the last part number is the number of parts if none are missing
+        if (!parts.isEmpty() && parts.lastKey() != parts.size()) {
+            throw new IOException("The " + table.getTableName() + " table is missing parts, or has parts from another export.");
+        }
+
+        return parts.isEmpty() ? singleFiles : new ArrayList<>(parts.values());
+    }
+
+    private String importTables(Map<TableSchema, List<File>> tables) throws IOException, SQLException {
+        long startTime = System.nanoTime();
+        long totalRows = 0;
+        StringBuilder report = new StringBuilder();
+
+        try (Connection conn = ConnectionProvider.borrow()) {
+            ForeignKeys keys = new ForeignKeys(conn);
+
+            for (Map.Entry<TableSchema, List<File>> entry : tables.entrySet()) {
+                TableSchema table = entry.getKey();
+                TableReport tableReport = new TableReport();
+                for (File file : entry.getValue()) {
+                    importFile(conn, file, table, keys, tableReport);
+                }
+                totalRows += tableReport.imported;
+
+                report.append(table.getTableName()).append(": ")
+                        .append(tableReport.imported).append(" imported, ")
+                        .append(tableReport.rejected).append(" rejected, ")
+                        .append(tableReport.failed).append(" failed\n");
+                if (tableReport.firstError != null) {
+                    report.append("    ").append(tableReport.firstError).append('\n');
+                }
+            }
+        }
+
+        double seconds = Math.max((System.nanoTime() - startTime) / 1_000_000_000.0, 0.001);
+        report.append(String.format("%nImported %d rows in %.1f seconds (%.0f rows/second).",
+                totalRows, seconds, totalRows / seconds));
+
+        return report.toString();
+    }
+
+    private void importFile(Connection conn, File file, TableSchema table, ForeignKeys keys,
+                            TableReport tableReport) throws IOException, SQLException {
+        if (file.getName().endsWith(SnapshotFormat.EXTENSION)) {
+            importSnapshot(conn, file, table, keys, tableReport);
+        } else {
+            importCsv(conn, file, table, keys, tableReport);
+        }
+    }
+
+    private void importCsv(Connection conn, File file, TableSchema table, ForeignKeys keys,
+                           TableReport tableReport) throws IOException, SQLException {
+        List<Object[]> chunk = new ArrayList<>(chunkSize);
+
+        InputStream in = Files.newInputStream(file.toPath());
+        if (file.getName().endsWith(".gz")) {
+            try {
+                in = new GZIPInputStream(in, BUFFER_SIZE);
+            } catch (IOException e) {
+                in.close();
+                throw e;
+            }
+        }
+
+        try (CsvReader csv = new CsvReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            // Read the header
+            if (!csv.next()) {
+                return;
+            }
+            List<TableSchema.Column> columns = getFileColumns(csv, table);
+
+            while (csv.next()) {
+                Object[] row;
+                try {
+                    row = parseRow(csv, columns);
+                    keys.resolveDepartmentName(columns, row);
+                    keys.validate(table, row);
+                } catch (IllegalArgumentException e) {
+                    tableReport.rejected++;
+                    tableReport.recordError(file.getName() + ", line " + csv.getLineNumber() + ": " + e.getMessage());
+                    continue;
+                }
+
+                addToChunk(conn, table, chunk, row, keys, tableReport);
+            }
+
+            insertChunk(conn, table, chunk, keys, tableReport);
+        }
+    }
+
+    /**
+     * Imports a binary snapshot. The values are already typed, so only foreign keys are validated.
+     */
+    private void importSnapshot(Connection conn, File file, TableSchema table, ForeignKeys keys,
+                                TableReport tableReport) throws IOException, SQLException {
+        List<Object[]> chunk = new ArrayList<>(chunkSize);
+        long rowNumber = 0;
+
+        try (SnapshotReader snapshot = new SnapshotReader(file, table)) {
+            while (snapshot.next()) {
+                rowNumber++;
+                Object[] row = snapshot.getRow();
+                try {
+                    keys.resolveDepartmentName(snapshot.getColumns(), row);
+                    keys.validate(table, row);
+                } catch (IllegalArgumentException e) {
+                    tableReport.rejected++;
+                    tableReport.recordError(file.getName() + ", row " + rowNumber + ": " + e.getMessage());
+                    continue;
+                }
+
+                addToChunk(conn, table, chunk, row, keys, tableReport);
+            }
+
+            insertChunk(conn, table, chunk, keys, tableReport);
+        }
+    }
+
+    private void addToChunk(Connection conn, TableSchema table, List<Object[]> chunk, Object[] row, ForeignKeys keys,
+                            TableReport tableReport) throws SQLException {
+        chunk.add(row);
+        if (chunk.size() == chunkSize) {
+            insertChunk(conn, table, chunk, keys, tableReport);
+            chunk.clear();
+        }
+    }
+
+    // Returns the columns named by the header of a file, which are the table's current columns unless the file
+    // is an older export, such as a teacher export holding department names instead of department IDs
+    private static List<TableSchema.Column> getFileColumns(CsvReader header, TableSchema table) {
+        for (List<TableSchema.Column> columns : table.getImportableColumns()) {
+            if (header.getFieldCount() == columns.size() && hasColumnNames(header, columns)) {
+                return columns;
+            }
+        }
+        return table.getColumns();
+    }
+
+    private static boolean hasColumnNames(CsvReader header, List<TableSchema.Column> columns) {
+        for (int i = 0; i < columns.size(); i++) {
+            if (!header.getString(i).trim().equals(columns.get(i).name())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private Object[] parseRow(CsvReader csv, List<TableSchema.Column> columns) {
+        if (csv.getFieldCount() != columns.size()) {
+            throw new IllegalArgumentException("Expected " + columns.size() + " fields, found " + csv.getFieldCount());
+        }
+
+        Object[] row = new Object[columns.size()];
+        for (int i = 0; i < columns.size(); i++) {
+            TableSchema.Column column = columns.get(i);
+            row[i] = switch (column.type()) {
+                case INT -> csv.getInt(i);
+                case DATE -> Date.valueOf(csv.getString(i));
+                case STRING -> csv.getString(i);
+                case ENUM -> {
+                    String value = csv.getString(i);
+                    if (!column.values().contains(value)) {
+                        throw new IllegalArgumentException("Invalid " + column.name() + " '" + value + "'");
+                    }
+                    yield value;
+                }
+            };
+        }
+        return row;
+    }
+
+    private void insertChunk(Connection conn, TableSchema table, List<Object[]> chunk, ForeignKeys keys,
+                             TableReport tableReport) throws SQLException {
+        if (chunk.isEmpty()) {
+            return;
+        }
+
+        BatchResult result = BatchUpdate.execute(conn, table.getInsertSql(), chunk, row -> (Integer) row[0],
+                (stmt, row) -> {
+                    for (int i = 0; i < row.length; i++) {
+                        stmt.setObject(i + 1, row[i]);
+                    }
+                });
+
+        if (result.isSuccessful()) {
+            tableReport.imported += chunk.size();
+            for (Object[] row : chunk) {
+                keys.add(table, row);
+            }
+        } else {
+            tableReport.failed += chunk.size();
+            tableReport.recordError(result.getErrorMessage());
+        }
+    }
+
+    /**
+     * Keys which imported rows may reference, loaded from the database and extended
+     * with every successfully imported row.
+     */
+    private static class ForeignKeys {
+        private final Set<Integer> departmentIds = new HashSet<>();
+        private final Set<Integer> teacherIds = new HashSet<>();
+        private final Set<Integer> studentIds = new HashSet<>();
+        private final Set<Integer> courseIds = new HashSet<>();
+
+        // Department IDs by name, for teacher exports made before teachers referenced departments by ID
+        private final Map<String, Integer> departmentIdsByName = new HashMap<>();
+        private final Connection conn;
+
+        private ForeignKeys(Connection conn) throws SQLException {
+            this.conn = conn;
+            loadIds(conn, "SELECT id FROM department", departmentIds);
+            loadIds(conn, "SELECT id FROM teacher", teacherIds);
+            loadIds(conn, "SELECT id FROM student", studentIds);
+            loadIds(conn, "SELECT id FROM course", courseIds);
+        }
+
+        private static void loadIds(Connection conn, String sql, Set<Integer> ids) throws SQLException {
+            try (PreparedStatement stmt = conn.prepareStatement(sql); ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    ids.add(rs.getInt(1));
+                }
+            }
+        }
+
+        /**
+         * Replaces the department name of a row from an older teacher export with the department's ID,
+         * looked up the same way {@link com.exammanager.dao.TeacherDAO} does. Rows with other columns are
+         * left unchanged.
+         *
+         * @throws IllegalArgumentException if no department has the name
+         */
+        private void resolveDepartmentName(List<TableSchema.Column> columns, Object[] row) throws SQLException {
+            if (columns != TableSchema.LEGACY_TEACHER_COLUMNS) {
+                return;
+            }
+
+            String name = (String) row[3];
+            Integer id = departmentIdsByName.get(name);
+            if (id == null) {
+                try (PreparedStatement stmt = conn.prepareStatement("SELECT id FROM department WHERE name = ?")) {
+                    stmt.setString(1, name);
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        require(rs.next(), "Unknown department '" + name + "'");
+                        id = rs.getInt(1);
+                    }
+                }
+                departmentIdsByName.put(name, id);
+            }
+            row[3] = id;
+        }
+
+        private void validate(TableSchema table, Object[] row) {
+            switch (table) {
+                case TEACHER -> require(departmentIds.contains((Integer) row[3]), "Unknown department ID " + row[3]);
+                case COURSE -> require(teacherIds.contains((Integer) row[4]), "Unknown teacher ID " + row[4]);
+                case EXAM -> {
+                    require(studentIds.contains((Integer) row[1]), "Unknown student ID " + row[1]);
+                    require(courseIds.contains((Integer) row[2]), "Unknown course ID " + row[2]);
+                }
+                default -> {}
+            }
+        }
+
+        private void add(TableSchema table, Object[] row) {
+            switch (table) {
+                case DEPARTMENT -> departmentIds.add((Integer) row[0]);
+                case TEACHER -> teacherIds.add((Integer) row[0]);
+                case STUDENT -> studentIds.add((Integer) row[0]);
+                case COURSE -> courseIds.add((Integer) row[0]);
+                default -> {}
+            }
+        }
+
+        private static void require(boolean condition, String message) {
+            if (!condition) {
+                throw new IllegalArgumentException(message);
+            }
+        }
+    }
+
+    private static class TableReport {
+        long imported;
+        long rejected;
+        long failed;
+        String firstError;
+
+        private void recordError(String error) {
+            if (firstError == null) {
+                firstError = error;
+            }
+        }
+    }
+}
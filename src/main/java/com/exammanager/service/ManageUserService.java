@@ -2,11 +2,13 @@ package com.exammanager.service;
 
 import com.exammanager.login.AccessLevel;
 import com.exammanager.util.AlertUtil;
-import com.exammanager.util.DatabaseConnection;
+import com.exammanager.util.BackgroundExecutor;
+import com.exammanager.util.ConnectionProvider;
 import com.exammanager.util.PasswordCryptography;
 import javafx.beans.value.ChangeListener;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
+import javafx.concurrent.Task;
 import javafx.event.ActionEvent;
 import javafx.geometry.Pos;
 import javafx.scene.control.*;
@@ -17,6 +19,7 @@ import javafx.stage.Modality;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.util.Optional;
 
 /**
@@ -38,35 +41,41 @@ public abstract class ManageUserService {
      * new user account to be added. Once details have been entered correctly and
      * the 'Add' button is clicked, a new password salt is generated, the password
      * is hashed, and account details are added to the 'user' table in the database.
+     * <p>
+     * Hashing the password is deliberately slow, so the password is hashed and the account
+     * is added on a background thread, like logins in {@link com.exammanager.login.LoginTask}.
      */
     public static void addUser() {
-        Connection conn = DatabaseConnection.getConnection();
-        if (conn == null) {
-            return;
-        }
-
         Optional<UserDetails> dialogResult = addUserDialog();
         if (dialogResult.isEmpty()) {
             return;
         }
+        UserDetails user = dialogResult.get();
+
+        Task<Void> task = new Task<>() {
+            @Override
+            protected Void call() throws SQLException {
+                String salt = PasswordCryptography.generateSalt();
+                String hash = PasswordCryptography.hashPassword(user.password, salt);
+
+                String sql = "INSERT INTO user (email, hash, salt, access_level) VALUES (?, ?, ?, ?);";
+                try (Connection conn = ConnectionProvider.borrow(); PreparedStatement stmt = conn.prepareStatement(sql)) {
+                    stmt.setString(1, user.email);
+                    stmt.setString(2, hash);
+                    stmt.setString(3, salt);
+                    stmt.setString(4, user.accessLevel.name());
+                    stmt.executeUpdate();
+                }
+                return null;
+            }
+        };
 
-        String salt = PasswordCryptography.generateSalt();
-
-        String hash = PasswordCryptography.hashPassword(dialogResult.get().password, salt);
-
-        String sql = "INSERT INTO user (email, hash, salt, access_level) VALUES (?, ?, ?, ?);";
-        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-            stmt.setString(1, dialogResult.get().email);
-            stmt.setString(2, hash);
-            stmt.setString(3, salt);
-            stmt.setString(4, dialogResult.get().accessLevel.name());
-            stmt.executeUpdate();
-        } catch (Exception e) {
-            AlertUtil.showDatabaseConnectionError("Error while adding user: " + e.getMessage());
-            return;
-        }
+        task.setOnSucceeded(event ->
+                AlertUtil.showInformation("User Added", "User '" + user.email + "' added successfully."));
+        task.setOnFailed(event ->
+                AlertUtil.showDatabaseConnectionError("Error while adding user: " + task.getException().getMessage()));
 
-        AlertUtil.showInformation("User Added", "User '" + dialogResult.get().email + "' added successfully.");
+        BackgroundExecutor.execute(task);
     }
 
     /**
@@ -78,18 +87,20 @@ public abstract class ManageUserService {
      * @param currentUserEmail the email of the currently logged-in account
      */
     public static void deleteUser(String currentUserEmail) {
-        Connection conn = DatabaseConnection.getConnection();
-        if (conn == null) {
-            return;
-        }
-
         String sql = "SELECT email FROM user";
 
         ObservableList<String> users = FXCollections.observableArrayList();
 
-        try (PreparedStatement stmt = conn.prepareStatement(sql); ResultSet rs = stmt.executeQuery()) {
-            while (rs.next()) {
-                users.add(rs.getString("email"));
+        // The connection is returned to the pool before the dialog is shown, so it is not held while the user decides
+        try (Connection conn = ConnectionProvider.getConnection()) {
+            if (conn == null) {
+                return;
+            }
+
+            try (PreparedStatement stmt = conn.prepareStatement(sql); ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    users.add(rs.getString("email"));
+                }
             }
             // Remove the currently logged-in user's email from the list
             users.removeIf(user -> user.equals(currentUserEmail));
@@ -110,9 +121,15 @@ public abstract class ManageUserService {
 
         sql =  "DELETE FROM user WHERE email = ?;";
 
-        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-            stmt.setString(1, dialogResult.get());
-            stmt.executeUpdate();
+        try (Connection conn = ConnectionProvider.getConnection()) {
+            if (conn == null) {
+                return;
+            }
+
+            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                stmt.setString(1, dialogResult.get());
+                stmt.executeUpdate();
+            }
         } catch (Exception e) {
             AlertUtil.showDatabaseConnectionError("Error while deleting user: " + e.getMessage());
             return;
@@ -4,7 +4,7 @@ import com.exammanager.dao.CourseDAO;
 import com.exammanager.dao.ExamDAO;
 import com.exammanager.dao.StudentDAO;
 import com.exammanager.model.Course;
-import com.exammanager.model.Exam;
+import com.exammanager.model.ExamDetails;
 import com.exammanager.model.Student;
 import com.exammanager.util.AlertUtil;
 import com.exammanager.view.MainView;
@@ -77,10 +77,9 @@ public class ReportService {
             return;
         }
 
-        ObservableList<Exam> exams = examDAO.findByCourseId(dialogResult.get().getId());
-
-        // Exclude all exams with no grade from the report
-        exams.removeIf(exam -> exam.getGrade().equals("No grade"));
+        // Exams with no grade are excluded from the report
+        // The exams are joined with their students in the same query
+        ObservableList<ExamDetails> exams = examDAO.findGradedExamDetailsByCourseId(dialogResult.get().getId());
 
         String fileName = dialogResult.get().getTitle() + " report.txt";
         File courseReport = new File(dir, fileName);
@@ -91,16 +90,18 @@ public class ReportService {
             w.newLine();
             w.write("Course Title: " + dialogResult.get().getTitle());
             w.newLine();
-            for (Exam exam : exams) {
+            for (ExamDetails exam : exams) {
                 w.write("----------------");
                 w.newLine();
-                w.write("Exam ID: " + exam.getId());
+                w.write("Exam ID: " + exam.id());
+                w.newLine();
+                w.write("Student ID: " + exam.studentId());
                 w.newLine();
-                w.write("Student ID: " + exam.getStudentId());
+                w.write("Student Name: " + exam.studentName());
                 w.newLine();
-                w.write("Date: " + exam.getExamDate());
+                w.write("Date: " + exam.examDate());
                 w.newLine();
-                w.write("Grade: " + exam.getGrade());
+                w.write("Grade: " + exam.grade());
                 w.newLine();
             }
             AlertUtil.showInformation("Report Finished", "Finished generating course report.");
@@ -137,10 +138,10 @@ public class ReportService {
             return;
         }
 
-        ObservableList<Exam> exams = examDAO.findAllByEmail(email);
+        ObservableList<ExamDetails> exams = examDAO.findExamDetailsByEmail(email);
 
         // Exclude exams with no grade
-        exams.removeIf(exam -> exam.getGrade().equals("No grade"));
+        exams.removeIf(exam -> exam.grade().equals("No grade"));
 
         String fileName = "report card.txt";
         File reportCard = new File(dir, fileName);
@@ -151,16 +152,18 @@ public class ReportService {
             w.newLine();
             w.write("Name: " + studentResult.get().getFirstName() + " " + studentResult.get().getLastName());
             w.newLine();
-            for (Exam exam : exams) {
+            for (ExamDetails exam : exams) {
                 w.write("----------------");
                 w.newLine();
-                w.write("Exam ID: " + exam.getId());
+                w.write("Exam ID: " + exam.id());
+                w.newLine();
+                w.write("Student ID: " + exam.studentId());
                 w.newLine();
-                w.write("Student ID: " + exam.getStudentId());
+                w.write("Course: " + exam.courseCode() + " " + exam.courseTitle());
                 w.newLine();
-                w.write("Date: " + exam.getExamDate());
+                w.write("Date: " + exam.examDate());
                 w.newLine();
-                w.write("Grade: " + exam.getGrade());
+                w.write("Grade: " + exam.grade());
                 w.newLine();
             }
             AlertUtil.showInformation("Report Card Finished", "Finished generating report card.");
@@ -0,0 +1,57 @@
+package com.exammanager.service;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Constants describing the binary snapshot format written by {@link SnapshotWriter} and
+ * read by {@link SnapshotReader}.
+ * <p>
+ * A snapshot file holds a single table. Values are stored column by column in blocks of rows,
+ * which keeps memory use bounded while still letting each column be read and written as one
+ * run of fixed-width values. All numbers are big-endian.
+ * <pre>
+ * file:    magic "EXSN" | version (int16) | table name | column count (int16) | columns | blocks | end
+ * column:  name | type (int8) | for ENUM: value count (int8) and the values as strings
+ * string:  length in bytes (int32) | UTF-8 bytes
+ * block:   row count (int32, greater than 0) | the values of each column in order:
+ *          INT     row count * int32
+ *          DATE    row count * int32, days since 1970-01-01
+ *          ENUM    row count * int8, index into the column's values
+ *          STRING  dictionary size (int32) | dictionary strings | row count * int32, index into the dictionary
+ * end:     int32 0 | total row count (int64)
+ * </pre>
+ * Null values are stored as {@link #NULL_INT} in INT and DATE columns, and as -1 in ENUM and STRING columns.
+ * The version must be increased whenever the layout changes.
+ *
+ * @author Bendik
+ */
+final class SnapshotFormat {
+
+    static final byte[] MAGIC = "EXSN".getBytes(StandardCharsets.US_ASCII);
+    static final short VERSION = 1;
+    static final String EXTENSION = ".snapshot";
+
+    static final int BLOCK_ROWS = 64 * 1024;
+    static final int BUFFER_SIZE = 1024 * 1024;
+
+    static final int NULL_INT = Integer.MIN_VALUE;
+
+    private SnapshotFormat() {}
+
+    /**
+     * @param table the table
+     * @return the name of the table's snapshot file, e.g. {@code exam.snapshot}
+     */
+    static String getFileName(TableSchema table) {
+        return table.getTableName() + EXTENSION;
+    }
+
+    static byte getTypeCode(TableSchema.ColumnType type) {
+        return switch (type) {
+            case INT -> 1;
+            case STRING -> 2;
+            case DATE -> 3;
+            case ENUM -> 4;
+        };
+    }
+}
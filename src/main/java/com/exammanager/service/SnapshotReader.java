@@ -0,0 +1,267 @@
+package com.exammanager.service;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A reader for a table's binary snapshot, in the format described by {@link SnapshotFormat}.
+ * <p>
+ * Reads one block of columns at a time through a {@link FileChannel}, and returns the rows
+ * as arrays of values in the same form {@link ImportService} creates when parsing CSV-files.
+ * The snapshot must have the current format version, and the same columns as the table or
+ * as an older export of it, see {@link TableSchema#getImportableColumns()}.
+ *
+ * @author Bendik
+ */
+final class SnapshotReader implements AutoCloseable {
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(SnapshotFormat.BUFFER_SIZE);
+
+    private List<TableSchema.Column> columns;
+    private int[][] intValues;
+    private byte[][] byteValues;
+    private String[][] dictionaries;
+    private int blockRows;
+    private int position;
+    private long rowsRead;
+
+    SnapshotReader(File file, TableSchema table) throws IOException {
+        channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        buffer.limit(0);
+        try {
+            readHeader(file, table);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Moves to the next row.
+     *
+     * @return true if there was another row, false at the end of the snapshot
+     * @throws IOException if reading fails or the snapshot is corrupt
+     */
+    public boolean next() throws IOException {
+        if (position + 1 < blockRows) {
+            position++;
+            rowsRead++;
+            return true;
+        }
+
+        if (!readBlock()) {
+            return false;
+        }
+        position = 0;
+        rowsRead++;
+        return true;
+    }
+
+    /**
+     * @return the values of the current row, as {@link Integer}, {@link String} and {@link Date} objects
+     */
+    public Object[] getRow() {
+        Object[] row = new Object[columns.size()];
+        for (int i = 0; i < row.length; i++) {
+            TableSchema.Column column = columns.get(i);
+            row[i] = switch (column.type()) {
+                case INT -> {
+                    int value = intValues[i][position];
+                    yield value == SnapshotFormat.NULL_INT ? null : value;
+                }
+                case DATE -> {
+                    int value = intValues[i][position];
+                    yield value == SnapshotFormat.NULL_INT ? null : Date.valueOf(LocalDate.ofEpochDay(value));
+                }
+                case ENUM -> {
+                    int index = byteValues[i][position];
+                    yield index < 0 ? null : column.values().get(index);
+                }
+                case STRING -> {
+                    int index = intValues[i][position];
+                    yield index < 0 ? null : dictionaries[i][index];
+                }
+            };
+        }
+        return row;
+    }
+
+    /**
+     * @return the columns of the snapshot, either the table's current columns or the columns of an older export
+     */
+    public List<TableSchema.Column> getColumns() {
+        return columns;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private void readHeader(File file, TableSchema table) throws IOException {
+        byte[] magic = new byte[SnapshotFormat.MAGIC.length];
+        getBytes(magic, magic.length);
+        if (!Arrays.equals(magic, SnapshotFormat.MAGIC)) {
+            throw new IOException(file.getName() + " is not a snapshot file");
+        }
+
+        fill(Short.BYTES);
+        short version = buffer.getShort();
+        if (version != SnapshotFormat.VERSION) {
+            throw new IOException(file.getName() + " has unsupported snapshot version " + version);
+        }
+
+        String tableName = getString();
+        fill(Short.BYTES);
+        int columnCount = buffer.getShort();
+
+        List<String> names = new ArrayList<>(columnCount);
+        List<Byte> types = new ArrayList<>(columnCount);
+        List<List<String>> values = new ArrayList<>(columnCount);
+        for (int i = 0; i < columnCount; i++) {
+            names.add(getString());
+            fill(2);
+            types.add(buffer.get());
+            int valueCount = buffer.get();
+            String[] columnValues = new String[valueCount];
+            for (int j = 0; j < valueCount; j++) {
+                columnValues[j] = getString();
+            }
+            values.add(List.of(columnValues));
+        }
+
+        if (tableName.equals(table.getTableName())) {
+            for (List<TableSchema.Column> candidate : table.getImportableColumns()) {
+                if (matches(candidate, names, types, values)) {
+                    columns = candidate;
+                    break;
+                }
+            }
+        }
+        if (columns == null) {
+            throw new IOException(file.getName() + " does not match the columns of table " + table.getTableName());
+        }
+
+        intValues = new int[columns.size()][0];
+        byteValues = new byte[columns.size()][0];
+        dictionaries = new String[columns.size()][];
+    }
+
+    private static boolean matches(List<TableSchema.Column> columns, List<String> names, List<Byte> types,
+                                   List<List<String>> values) {
+        if (columns.size() != names.size()) {
+            return false;
+        }
+        for (int i = 0; i < columns.size(); i++) {
+            TableSchema.Column column = columns.get(i);
+            if (!column.name().equals(names.get(i))
+                    || SnapshotFormat.getTypeCode(column.type()) != types.get(i)
+                    || !column.values().equals(values.get(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean readBlock() throws IOException {
+        fill(Integer.BYTES);
+        blockRows = buffer.getInt();
+        if (blockRows == 0) {
+            fill(Long.BYTES);
+            long totalRows = buffer.getLong();
+            if (totalRows != rowsRead) {
+                throw new IOException("Snapshot is corrupt, expected " + totalRows + " rows but read " + rowsRead);
+            }
+            return false;
+        }
+
+        for (int i = 0; i < columns.size(); i++) {
+            switch (columns.get(i).type()) {
+                case INT, DATE -> getInts(i);
+                case ENUM -> {
+                    if (byteValues[i].length < blockRows) {
+                        byteValues[i] = new byte[blockRows];
+                    }
+                    getBytes(byteValues[i], blockRows);
+                }
+                case STRING -> {
+                    fill(Integer.BYTES);
+                    String[] dictionary = new String[buffer.getInt()];
+                    for (int j = 0; j < dictionary.length; j++) {
+                        dictionary[j] = getString();
+                    }
+                    dictionaries[i] = dictionary;
+                    getInts(i);
+                }
+            }
+        }
+        return true;
+    }
+
+    private void getInts(int column) throws IOException {
+        if (intValues[column].length < blockRows) {
+            intValues[column] = new int[blockRows];
+        }
+
+        int[] values = intValues[column];
+        int offset = 0;
+        while (offset < blockRows) {
+            int n = Math.min(blockRows - offset, buffer.remaining() / Integer.BYTES);
+            if (n == 0) {
+                fill(Integer.BYTES);
+                continue;
+            }
+            buffer.asIntBuffer().get(values, offset, n);
+            buffer.position(buffer.position() + n * Integer.BYTES);
+            offset += n;
+        }
+    }
+
+    private String getString() throws IOException {
+        fill(Integer.BYTES);
+        byte[] bytes = new byte[buffer.getInt()];
+        getBytes(bytes, bytes.length);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private void getBytes(byte[] values, int count) throws IOException {
+        int offset = 0;
+        while (offset < count) {
+            int n = Math.min(count - offset, buffer.remaining());
+            if (n == 0) {
+                fill(1);
+                continue;
+            }
+            buffer.get(values, offset, n);
+            offset += n;
+        }
+    }
+
+    /**
+     * Reads from the file until at least the given number of bytes are available in the buffer.
+     */
+    private void fill(int bytes) throws IOException {
+        if (buffer.remaining() >= bytes) {
+            return;
+        }
+
+        buffer.compact();
+        while (buffer.position() < bytes) {
+            if (channel.read(buffer) < 0) {
+                throw new EOFException("Unexpected end of snapshot");
+            }
+        }
+        buffer.flip();
+    }
+}
@@ -0,0 +1,206 @@
+package com.exammanager.service;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A writer for a table's binary snapshot, in the format described by {@link SnapshotFormat}.
+ * <p>
+ * Rows are collected column by column into a block, which is written through a {@link FileChannel}
+ * once full. Strings are dictionary-encoded per block, so repeated values such as common
+ * first names are only stored once per block.
+ *
+ * @author Bendik
+ */
+final class SnapshotWriter implements TableWriter {
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(SnapshotFormat.BUFFER_SIZE);
+
+    private final List<TableSchema.Column> columns;
+    private final int[][] intValues;
+    private final byte[][] byteValues;
+    private final List<Map<String, Integer>> dictionaries;
+    private int blockRows;
+    private long totalRows;
+
+    SnapshotWriter(File file, TableSchema table) throws IOException {
+        this.columns = table.getColumns();
+        this.intValues = new int[columns.size()][];
+        this.byteValues = new byte[columns.size()][];
+        this.dictionaries = new ArrayList<>();
+
+        for (int i = 0; i < columns.size(); i++) {
+            TableSchema.ColumnType type = columns.get(i).type();
+            if (type == TableSchema.ColumnType.ENUM) {
+                byteValues[i] = new byte[SnapshotFormat.BLOCK_ROWS];
+            } else {
+                intValues[i] = new int[SnapshotFormat.BLOCK_ROWS];
+            }
+            dictionaries.add(type == TableSchema.ColumnType.STRING ? new LinkedHashMap<>() : null);
+        }
+
+        channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        try {
+            writeHeader(table);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    @Override
+    public void writeRow(ResultSet rs) throws SQLException, IOException {
+        for (int i = 0; i < columns.size(); i++) {
+            TableSchema.Column column = columns.get(i);
+            switch (column.type()) {
+                case INT -> {
+                    int value = rs.getInt(i + 1);
+                    intValues[i][blockRows] = rs.wasNull() ? SnapshotFormat.NULL_INT : value;
+                }
+                case DATE -> {
+                    LocalDate value = rs.getObject(i + 1, LocalDate.class);
+                    intValues[i][blockRows] = value == null ? SnapshotFormat.NULL_INT : (int) value.toEpochDay();
+                }
+                case ENUM -> {
+                    String value = rs.getString(i + 1);
+                    int index = value == null ? -1 : column.values().indexOf(value);
+                    if (value != null && index < 0) {
+                        throw new IOException("Unknown " + column.name() + " '" + value + "'");
+                    }
+                    byteValues[i][blockRows] = (byte) index;
+                }
+                case STRING -> {
+                    String value = rs.getString(i + 1);
+                    Map<String, Integer> dictionary = dictionaries.get(i);
+                    intValues[i][blockRows] = value == null ? -1 : dictionary.computeIfAbsent(value, key -> dictionary.size());
+                }
+            }
+        }
+
+        totalRows++;
+        if (++blockRows == SnapshotFormat.BLOCK_ROWS) {
+            writeBlock();
+        }
+    }
+
+    // Writes the last block and the end marker with the total row count, without which the snapshot cannot be read
+    @Override
+    public void finish() throws IOException {
+        if (blockRows > 0) {
+            writeBlock();
+        }
+        ensure(Integer.BYTES + Long.BYTES);
+        buffer.putInt(0);
+        buffer.putLong(totalRows);
+        flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private void writeHeader(TableSchema table) throws IOException {
+        ensure(SnapshotFormat.MAGIC.length + Short.BYTES);
+        buffer.put(SnapshotFormat.MAGIC);
+        buffer.putShort(SnapshotFormat.VERSION);
+        putString(table.getTableName());
+
+        ensure(Short.BYTES);
+        buffer.putShort((short) columns.size());
+        for (TableSchema.Column column : columns) {
+            putString(column.name());
+            ensure(2);
+            buffer.put(SnapshotFormat.getTypeCode(column.type()));
+            buffer.put((byte) column.values().size());
+            for (String value : column.values()) {
+                putString(value);
+            }
+        }
+    }
+
+    private void writeBlock() throws IOException {
+        ensure(Integer.BYTES);
+        buffer.putInt(blockRows);
+
+        for (int i = 0; i < columns.size(); i++) {
+            switch (columns.get(i).type()) {
+                case INT, DATE -> putInts(intValues[i], blockRows);
+                case ENUM -> putBytes(byteValues[i], blockRows);
+                case STRING -> {
+                    Map<String, Integer> dictionary = dictionaries.get(i);
+                    ensure(Integer.BYTES);
+                    buffer.putInt(dictionary.size());
+                    for (String value : dictionary.keySet()) {
+                        putString(value);
+                    }
+                    putInts(intValues[i], blockRows);
+                    dictionary.clear();
+                }
+            }
+        }
+
+        blockRows = 0;
+    }
+
+    private void putString(String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        ensure(Integer.BYTES);
+        buffer.putInt(bytes.length);
+        putBytes(bytes, bytes.length);
+    }
+
+    private void putInts(int[] values, int count) throws IOException {
+        int offset = 0;
+        while (offset < count) {
+            int n = Math.min(count - offset, buffer.remaining() / Integer.BYTES);
+            if (n == 0) {
+                flush();
+                continue;
+            }
+            buffer.asIntBuffer().put(values, offset, n);
+            buffer.position(buffer.position() + n * Integer.BYTES);
+            offset += n;
+        }
+    }
+
+    private void putBytes(byte[] values, int count) throws IOException {
+        int offset = 0;
+        while (offset < count) {
+            int n = Math.min(count - offset, buffer.remaining());
+            if (n == 0) {
+                flush();
+                continue;
+            }
+            buffer.put(values, offset, n);
+            offset += n;
+        }
+    }
+
+    private void ensure(int bytes) throws IOException {
+        if (buffer.remaining() < bytes) {
+            flush();
+        }
+    }
+
+    private void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
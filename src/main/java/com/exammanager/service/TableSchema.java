@@ -0,0 +1,137 @@
+package com.exammanager.service;
+
+import java.util.List;
+
+/**
+ * An enum describing the database tables handled by the import and export services.
+ * <p>
+ * Constants are declared in foreign key order, so tables can be loaded from top to
+ * bottom without violating foreign key constraints. Each table lists its columns in
+ * the order they are written to and read from exported files.
+ * <p>
+ * Files exported before a table's columns changed can still be imported if the table lists
+ * their columns as well, see {@link #getImportableColumns()}.
+ *
+ * @author Bendik
+ */
+public enum TableSchema {
+    DEPARTMENT("department",
+            new Column("id", ColumnType.INT),
+            new Column("name", ColumnType.STRING)),
+    TEACHER("teacher",
+            new Column("id", ColumnType.INT),
+            new Column("first_name", ColumnType.STRING),
+            new Column("last_name", ColumnType.STRING),
+            new Column("department_id", ColumnType.INT),
+            new Column("email", ColumnType.STRING)),
+    STUDENT("student",
+            new Column("id", ColumnType.INT),
+            new Column("first_name", ColumnType.STRING),
+            new Column("last_name", ColumnType.STRING),
+            new Column("email", ColumnType.STRING),
+            new Column("enrollment_year", ColumnType.INT)),
+    COURSE("course",
+            new Column("id", ColumnType.INT),
+            new Column("course_code", ColumnType.STRING),
+            new Column("title", ColumnType.STRING),
+            new Column("credits", ColumnType.INT),
+            new Column("teacher_id", ColumnType.INT)),
+    EXAM("exam",
+            new Column("id", ColumnType.INT),
+            new Column("student_id", ColumnType.INT),
+            new Column("course_id", ColumnType.INT),
+            new Column("exam_date", ColumnType.DATE),
+            new Column("grade", List.of("A", "B", "C", "D", "E", "F", "No grade")));
+
+    /**
+     * The types of values stored in the columns of the exported tables.
+     */
+    public enum ColumnType {
+        INT,
+        STRING,
+        DATE,
+        ENUM
+    }
+
+    /**
+     * A column of a table.
+     *
+     * @param name the column's name in the database
+     * @param type the type of the column's values
+     * @param values the allowed values of an {@link ColumnType#ENUM} column, in declaration order, otherwise empty
+     */
+    public record Column(String name, ColumnType type, List<String> values) {
+
+        public Column(String name, ColumnType type) {
+            this(name, type, List.of());
+        }
+
+        public Column(String name, List<String> values) {
+            this(name, ColumnType.ENUM, List.copyOf(values));
+        }
+    }
+
+    /**
+     * The columns of teacher exports made before teachers referenced their department by ID,
+     * which hold the department's name in place of its ID.
+     */
+    public static final List<Column> LEGACY_TEACHER_COLUMNS = List.of(
+            new Column("id", ColumnType.INT),
+            new Column("first_name", ColumnType.STRING),
+            new Column("last_name", ColumnType.STRING),
+            new Column("department", ColumnType.STRING),
+            new Column("email", ColumnType.STRING));
+
+    private final String tableName;
+    private final List<Column> columns;
+
+    TableSchema(String tableName, Column... columns) {
+        this.tableName = tableName;
+        this.columns = List.of(columns);
+    }
+
+    public String getTableName() {
+        return tableName;
+    }
+
+    public List<Column> getColumns() {
+        return columns;
+    }
+
+    /**
+     * @return the columns exported files of the table may have, starting with the current columns,
+     * followed by the columns of older exports which can still be imported
+     */
+    public List<List<Column>> getImportableColumns() {
+        return this == TEACHER ? List.of(columns, LEGACY_TEACHER_COLUMNS) : List.of(columns);
+    }
+
+    /**
+     * @return the name of the CSV-file the table is exported to
+     */
+    public String getFileName() {
+        return tableName + ".csv";
+    }
+
+    /**
+     * @return the column names separated by commas, e.g. {@code id, name}
+     */
+    public String getColumnList() {
+        StringBuilder list = new StringBuilder();
+        for (Column column : columns) {
+            if (!list.isEmpty()) {
+                list.append(", ");
+            }
+            list.append(column.name());
+        }
+        return list.toString();
+    }
+
+    /**
+     * @return an insert statement for all columns, including the ID
+     */
+    public String getInsertSql() {
+        return "INSERT INTO " + tableName + " (" + getColumnList() + ") VALUES ("
+                + "?, ".repeat(columns.size() - 1) + "?)";
+    }
+}
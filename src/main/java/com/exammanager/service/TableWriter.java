@@ -0,0 +1,35 @@
+package com.exammanager.service;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * A writer for the exported rows of a single table, used by {@link ExportService}.
+ * <p>
+ * Implementations decide the file format. Rows are passed as the current row of a result set
+ * selecting the table's columns in the order given by {@link TableSchema#getColumns()}.
+ *
+ * @author Bendik
+ */
+interface TableWriter extends Closeable {
+
+    /**
+     * Writes the current row of the result set.
+     *
+     * @param rs the result set, positioned on the row to write
+     * @throws SQLException if reading the row fails
+     * @throws IOException if writing fails
+     */
+    void writeRow(ResultSet rs) throws SQLException, IOException;
+
+    /**
+     * Marks the export as complete, after the last row has been written. A writer which is closed
+     * without being finished leaves its files incomplete, so a failed export cannot be mistaken for
+     * the whole table. Writers whose files need no end marker do nothing.
+     *
+     * @throws IOException if writing fails
+     */
+    default void finish() throws IOException {}
+}
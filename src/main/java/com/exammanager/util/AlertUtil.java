@@ -1,5 +1,6 @@
 package com.exammanager.util;
 
+import javafx.application.Platform;
 import javafx.scene.control.Alert;
 import javafx.scene.control.ButtonType;
 import javafx.scene.control.Dialog;
@@ -18,6 +19,8 @@ import java.util.Optional;
  *     <li>Information about the application</li>
  *     <li>Information dialogs</li>
  * </ul>
+ * Error alerts may be requested from background threads, in which case they are
+ * shown on the JavaFX application thread without blocking the caller.
  *
  * @author Bendik
  */
@@ -29,6 +32,11 @@ public abstract class AlertUtil {
      * @param message the message to display in the error
      */
     public static void showDatabaseConnectionError(String message) {
+        if (!Platform.isFxApplicationThread()) {
+            Platform.runLater(() -> showDatabaseConnectionError(message));
+            return;
+        }
+
         Alert alert = new Alert(Alert.AlertType.ERROR);
         alert.setTitle("Database Error");
         alert.setHeaderText("A database connection error occurred.");
@@ -43,6 +51,11 @@ public abstract class AlertUtil {
      * @param message the alert's main content
      */
     public static void genericError(String header, String message) {
+        if (!Platform.isFxApplicationThread()) {
+            Platform.runLater(() -> genericError(header, message));
+            return;
+        }
+
         Alert alert = new Alert(Alert.AlertType.ERROR);
         alert.setTitle("Error");
         alert.setHeaderText(header);
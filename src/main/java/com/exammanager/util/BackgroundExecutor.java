@@ -0,0 +1,65 @@
+package com.exammanager.util;
+
+import javafx.application.Platform;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+
+/**
+ * A class for running work, such as database queries, off the JavaFX application thread.
+ * <p>
+ * Work is executed on a virtual-thread-per-task executor, so blocking JDBC calls do not
+ * tie up platform threads. The futures returned by this class are always completed on the
+ * JavaFX application thread, which means that callbacks such as {@code thenAccept} can
+ * update the UI directly.
+ *
+ * @author Bendik
+ */
+public abstract class BackgroundExecutor {
+
+    private static final ExecutorService EXECUTOR = Executors.newVirtualThreadPerTaskExecutor();
+
+    /**
+     * Runs a supplier on a background thread.
+     *
+     * @param supplier the work to run
+     * @return a {@link CompletableFuture} completed with the supplier's result on the JavaFX application thread
+     * @param <U> the type of the result
+     */
+    public static <U> CompletableFuture<U> supplyAsync(Supplier<U> supplier) {
+        return deliverOnFxThread(CompletableFuture.supplyAsync(supplier, EXECUTOR));
+    }
+
+    /**
+     * Runs a task on a background thread.
+     *
+     * @param task the work to run
+     * @return a {@link CompletableFuture} completed on the JavaFX application thread when the task is done
+     */
+    public static CompletableFuture<Void> runAsync(Runnable task) {
+        return deliverOnFxThread(CompletableFuture.runAsync(task, EXECUTOR));
+    }
+
+    /**
+     * Runs a task on a background thread without tracking its completion.
+     *
+     * @param task the work to run
+     */
+    public static void execute(Runnable task) {
+        EXECUTOR.execute(task);
+    }
+
+    private static <U> CompletableFuture<U> deliverOnFxThread(CompletableFuture<U> source) {
+        CompletableFuture<U> result = new CompletableFuture<>();
+        source.whenComplete((value, error) -> Platform.runLater(() -> {
+            if (error != null) {
+                result.completeExceptionally(error);
+            } else {
+                result.complete(value);
+            }
+        }));
+        return result;
+    }
+}
@@ -0,0 +1,321 @@
+package com.exammanager.util;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A bounded pool of database connections.
+ * <p>
+ * Connections are borrowed with {@link #borrow()} and returned to the pool by
+ * calling {@link Connection#close()} on the borrowed connection, which makes the
+ * pool usable with try-with-resources. The pool:
+ * <ul>
+ *     <li>keeps at least {@code minSize} and at most {@code maxSize} connections open</li>
+ *     <li>closes connections that have been idle longer than the idle timeout</li>
+ *     <li>validates idle connections before handing them out</li>
+ *     <li>logs the borrowing stack trace of connections that are held for too long</li>
+ * </ul>
+ *
+ * @author Bendik
+ */
+public class ConnectionPool {
+
+    private static final long MAINTENANCE_INTERVAL_SECONDS = 30;
+
+    private final int minSize;
+    private final int maxSize;
+    private final long idleTimeoutMillis;
+    private final long borrowTimeoutMillis;
+    private final long leakThresholdMillis;
+    private final int validationTimeoutSeconds;
+
+    // Most recently returned connections are kept first, so busy periods reuse "warm" connections
+    private final LinkedBlockingDeque<PooledConnection> idle = new LinkedBlockingDeque<>();
+    private final Set<PooledConnection> borrowed = ConcurrentHashMap.newKeySet();
+    private final Semaphore permits;
+    private final AtomicInteger openCount = new AtomicInteger();
+    private final ScheduledExecutorService maintenance;
+
+    private volatile boolean shutdown;
+
+    /**
+     * Constructs a new connection pool and opens the minimum number of connections.
+     *
+     * @param minSize the number of connections to keep open at all times
+     * @param maxSize the maximum number of open connections
+     * @param idleTimeoutMillis how long a connection above the minimum size may stay idle before being closed
+     * @param borrowTimeoutMillis how long {@link #borrow()} waits for a free connection
+     * @param leakThresholdMillis how long a connection may be borrowed before it is reported as a possible leak
+     * @param validationTimeoutSeconds timeout used when validating a connection before borrowing
+     */
+    public ConnectionPool(int minSize, int maxSize, long idleTimeoutMillis, long borrowTimeoutMillis,
+                          long leakThresholdMillis, int validationTimeoutSeconds) {
+        this.maxSize = Math.max(1, maxSize);
+        this.minSize = Math.clamp(minSize, 0, this.maxSize);
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.borrowTimeoutMillis = borrowTimeoutMillis;
+        this.leakThresholdMillis = leakThresholdMillis;
+        this.validationTimeoutSeconds = validationTimeoutSeconds;
+        this.permits = new Semaphore(this.maxSize, true);
+
+        maintenance = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "connection-pool-maintenance");
+            thread.setDaemon(true);
+            return thread;
+        });
+        maintenance.scheduleWithFixedDelay(this::maintain, MAINTENANCE_INTERVAL_SECONDS,
+                MAINTENANCE_INTERVAL_SECONDS, TimeUnit.SECONDS);
+
+        fillToMinimum();
+    }
+
+    /**
+     * Borrows a connection from the pool, opening a new one if no idle connection
+     * is available and the pool is not full. Blocks until a connection is available
+     * or the borrow timeout is reached.
+     *
+     * @return a connection which is returned to the pool when closed
+     * @throws SQLException if the pool is shut down, the borrow timeout is reached,
+     * or a new connection could not be opened
+     */
+    public Connection borrow() throws SQLException {
+        if (shutdown) {
+            throw new SQLException("Connection pool has been shut down");
+        }
+
+        try {
+            if (!permits.tryAcquire(borrowTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                throw new SQLException("Timed out waiting for a database connection (" + maxSize + " in use)");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a database connection", e);
+        }
+
+        try {
+            PooledConnection pooled = takeValidIdleConnection();
+            if (pooled == null) {
+                pooled = new PooledConnection(DatabaseConnection.openConnection());
+                openCount.incrementAndGet();
+            }
+
+            pooled.borrowedAt = System.currentTimeMillis();
+            pooled.borrowTrace = new Throwable("Connection borrowed here");
+            pooled.leakReported = false;
+            borrowed.add(pooled);
+
+            return pooled.newHandle();
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Closes all idle connections and stops the pool. Connections that are still
+     * borrowed are closed when they are returned.
+     */
+    public void shutdown() {
+        shutdown = true;
+        maintenance.shutdownNow();
+
+        PooledConnection pooled;
+        while ((pooled = idle.pollFirst()) != null) {
+            closeQuietly(pooled);
+        }
+    }
+
+    /**
+     * @return the number of currently open physical connections
+     */
+    public int getOpenCount() {
+        return openCount.get();
+    }
+
+    /**
+     * @return the number of connections currently borrowed
+     */
+    public int getBorrowedCount() {
+        return borrowed.size();
+    }
+
+    /**
+     * @return the maximum number of open connections
+     */
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    private PooledConnection takeValidIdleConnection() {
+        PooledConnection pooled;
+        while ((pooled = idle.pollFirst()) != null) {
+            try {
+                if (pooled.physical.isValid(validationTimeoutSeconds)) {
+                    return pooled;
+                }
+            } catch (SQLException ignored) {
+                // Treated the same as an invalid connection
+            }
+            closeQuietly(pooled);
+        }
+        return null;
+    }
+
+    private void release(PooledConnection pooled) {
+        borrowed.remove(pooled);
+
+        try {
+            if (shutdown || pooled.physical.isClosed()) {
+                closeQuietly(pooled);
+                return;
+            }
+
+            // Reset state a previous borrower may have changed, so the next borrower gets a clean connection
+            if (!pooled.physical.getAutoCommit()) {
+                pooled.physical.rollback();
+                pooled.physical.setAutoCommit(true);
+            }
+            if (pooled.physical.isReadOnly()) {
+                pooled.physical.setReadOnly(false);
+            }
+
+            pooled.lastReturnedAt = System.currentTimeMillis();
+            idle.offerFirst(pooled);
+        } catch (SQLException e) {
+            closeQuietly(pooled);
+        } finally {
+            permits.release();
+        }
+    }
+
+    private void maintain() {
+        long now = System.currentTimeMillis();
+
+        // Evict connections idle for too long, oldest first, but never go below the minimum size
+        PooledConnection oldest;
+        while (openCount.get() > minSize && (oldest = idle.peekLast()) != null
+                && now - oldest.lastReturnedAt > idleTimeoutMillis) {
+            if (idle.removeLastOccurrence(oldest)) {
+                closeQuietly(oldest);
+            }
+        }
+
+        fillToMinimum();
+
+        for (PooledConnection pooled : borrowed) {
+            long heldFor = now - pooled.borrowedAt;
+            if (!pooled.leakReported && heldFor > leakThresholdMillis) {
+                pooled.leakReported = true;
+                System.err.println("Possible connection leak: connection held for " + heldFor + " ms");
+                pooled.borrowTrace.printStackTrace();
+            }
+        }
+    }
+
+    private void fillToMinimum() {
+        while (!shutdown && openCount.get() < minSize) {
+            try {
+                PooledConnection pooled = new PooledConnection(DatabaseConnection.openConnection());
+                openCount.incrementAndGet();
+                pooled.lastReturnedAt = System.currentTimeMillis();
+                idle.offerLast(pooled);
+            } catch (SQLException e) {
+                // The database may be unavailable, try again during the next maintenance run
+                return;
+            }
+        }
+    }
+
+    private void closeQuietly(PooledConnection pooled) {
+        openCount.decrementAndGet();
+        try {
+            pooled.physical.close();
+        } catch (SQLException ignored) {
+            // Nothing more to do with a connection that fails to close
+        }
+    }
+
+    /**
+     * A physical connection owned by the pool, along with its bookkeeping.
+     */
+    private final class PooledConnection {
+        private final Connection physical;
+        private volatile long borrowedAt;
+        private volatile long lastReturnedAt;
+        private volatile Throwable borrowTrace;
+        private volatile boolean leakReported;
+
+        private PooledConnection(Connection physical) {
+            this.physical = physical;
+        }
+
+        // Each borrow gets its own handle, so closing a stale handle twice cannot return the connection twice
+        private Connection newHandle() {
+            return (Connection) Proxy.newProxyInstance(
+                    Connection.class.getClassLoader(),
+                    new Class<?>[]{Connection.class},
+                    new Handle(this)
+            );
+        }
+    }
+
+    /**
+     * Forwards calls to the physical connection, except {@code close()}, which returns it to the pool.
+     */
+    private final class Handle implements InvocationHandler {
+        private final PooledConnection pooled;
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        private Handle(PooledConnection pooled) {
+            this.pooled = pooled;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close" -> {
+                    if (closed.compareAndSet(false, true)) {
+                        release(pooled);
+                    }
+                    return null;
+                }
+                case "isClosed" -> {
+                    return closed.get() || pooled.physical.isClosed();
+                }
+                case "equals" -> {
+                    return proxy == args[0];
+                }
+                case "hashCode" -> {
+                    return System.identityHashCode(proxy);
+                }
+                case "toString" -> {
+                    return "Pooled" + pooled.physical;
+                }
+                default -> {
+                    if (closed.get()) {
+                        throw new SQLException("Connection has already been returned to the pool");
+                    }
+                }
+            }
+
+            try {
+                return method.invoke(pooled.physical, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.exammanager.util;
+
+import javafx.application.Platform;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * A class for borrowing database connections from the application's shared
+ * {@link ConnectionPool}.
+ * <p>
+ * Connections returned by {@link #getConnection()} must be closed when the unit of work
+ * is done, preferably with try-with-resources. Closing a borrowed connection returns
+ * it to the pool instead of closing the underlying socket.
+ * <p>
+ * The pool is configured through the {@code db.pool.*} keys of the properties file,
+ * and is created the first time a connection is requested.
+ *
+ * @author Bendik
+ */
+public abstract class ConnectionProvider {
+
+    private static ConnectionPool pool;
+
+    /**
+     * Borrows a connection from the shared connection pool.
+     *
+     * @return {@link Connection} a pooled database connection, or null if no connection could be borrowed
+     */
+    public static Connection getConnection() {
+        try {
+            return getPool().borrow();
+        } catch (SQLException e) {
+            showError("Failed to connect to database.\n" + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Borrows a connection from the shared connection pool. Unlike {@link #getConnection()},
+     * failures are thrown to the caller instead of being displayed, which lets DAOs report
+     * errors the same way as any other {@link SQLException}.
+     *
+     * @return {@link Connection} a pooled database connection
+     * @throws SQLException if no connection could be borrowed
+     */
+    public static Connection borrow() throws SQLException {
+        return getPool().borrow();
+    }
+
+    /**
+     * Returns the shared connection pool, creating it if necessary.
+     *
+     * @return the shared {@link ConnectionPool}
+     */
+    public static synchronized ConnectionPool getPool() {
+        if (pool == null) {
+            pool = new ConnectionPool(
+                    DatabaseConnection.getIntProperty("db.pool.minSize", 1),
+                    DatabaseConnection.getIntProperty("db.pool.maxSize", 10),
+                    DatabaseConnection.getIntProperty("db.pool.idleTimeoutSeconds", 300) * 1000L,
+                    DatabaseConnection.getIntProperty("db.pool.borrowTimeoutSeconds", 10) * 1000L,
+                    DatabaseConnection.getIntProperty("db.pool.leakThresholdSeconds", 60) * 1000L,
+                    DatabaseConnection.getIntProperty("db.pool.validationTimeoutSeconds", 2)
+            );
+        }
+        return pool;
+    }
+
+    /**
+     * Shuts down the shared connection pool, closing all idle connections.
+     * Called when the application exits.
+     */
+    public static synchronized void shutdown() {
+        if (pool != null) {
+            pool.shutdown();
+            pool = null;
+        }
+    }
+
+    private static void showError(String message) {
+        Platform.runLater(() -> AlertUtil.showDatabaseConnectionError(message));
+    }
+}
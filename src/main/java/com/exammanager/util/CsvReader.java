@@ -0,0 +1,234 @@
+package com.exammanager.util;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+
+/**
+ * A fast, streaming reader for comma-separated files.
+ * <p>
+ * Reads one record at a time into a reusable character buffer, without regular expressions
+ * or {@link String#split}, so memory use does not grow with the size of the file. Fields are
+ * only turned into strings when asked for, and integer fields can be parsed directly from
+ * the buffer. Fields may be quoted with double quotes, in which case they can contain commas,
+ * line breaks and escaped quotes ({@code ""}). Unquoted fields are trimmed.
+ *
+ * @author Bendik
+ */
+public class CsvReader implements AutoCloseable {
+
+    private final Reader reader;
+    private final char[] input = new char[8192];
+    private int inputPos;
+    private int inputLength;
+
+    // Content of the current record, and the start and end offsets of each field within it
+    private char[] data = new char[256];
+    private int dataLength;
+    private int[] starts = new int[16];
+    private int[] ends = new int[16];
+    private int fieldCount;
+
+    private long lineNumber;
+
+    /**
+     * Constructs a new CsvReader reading from the given reader.
+     *
+     * @param reader the reader to read from, preferably unbuffered as this class does its own buffering
+     */
+    public CsvReader(Reader reader) {
+        this.reader = reader;
+    }
+
+    /**
+     * Reads the next record. Empty lines are skipped.
+     *
+     * @return true if a record was read, false at the end of the input
+     * @throws IOException if reading fails
+     */
+    public boolean next() throws IOException {
+        do {
+            if (!readRecord()) {
+                return false;
+            }
+        } while (fieldCount == 1 && starts[0] == ends[0]);
+        return true;
+    }
+
+    /**
+     * @return the number of fields in the current record
+     */
+    public int getFieldCount() {
+        return fieldCount;
+    }
+
+    /**
+     * @return the line number the current record ended on, starting at 1
+     */
+    public long getLineNumber() {
+        return lineNumber;
+    }
+
+    /**
+     * @param index the index of the field
+     * @return the field as a string
+     */
+    public String getString(int index) {
+        checkIndex(index);
+        return new String(data, starts[index], ends[index] - starts[index]);
+    }
+
+    /**
+     * Parses a field as an integer without creating a string.
+     *
+     * @param index the index of the field
+     * @return the field as an integer
+     * @throws NumberFormatException if the field is not a valid integer
+     */
+    public int getInt(int index) {
+        checkIndex(index);
+        int pos = starts[index];
+        int end = ends[index];
+        if (pos == end) {
+            throw new NumberFormatException("Empty field " + index + " on line " + lineNumber);
+        }
+
+        boolean negative = data[pos] == '-';
+        if (negative || data[pos] == '+') {
+            pos++;
+        }
+        if (pos == end) {
+            throw new NumberFormatException("Invalid number in field " + index + " on line " + lineNumber);
+        }
+
+        long value = 0;
+        for (; pos < end; pos++) {
+            int digit = data[pos] - '0';
+            if (digit < 0 || digit > 9) {
+                throw new NumberFormatException("Invalid number in field " + index + " on line " + lineNumber);
+            }
+            value = value * 10 + digit;
+            if (value > (long) Integer.MAX_VALUE + 1) {
+                throw new NumberFormatException("Number too large in field " + index + " on line " + lineNumber);
+            }
+        }
+
+        value = negative ? -value : value;
+        if (value > Integer.MAX_VALUE) {
+            throw new NumberFormatException("Number too large in field " + index + " on line " + lineNumber);
+        }
+        return (int) value;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private boolean readRecord() throws IOException {
+        dataLength = 0;
+        fieldCount = 0;
+
+        int c = read();
+        if (c == -1) {
+            return false;
+        }
+
+        while (true) {
+            int start = dataLength;
+            boolean quoted = false;
+
+            // Skip leading whitespace of unquoted fields
+            while (c == ' ' || c == '\t') {
+                c = read();
+            }
+
+            if (c == '"') {
+                quoted = true;
+                while (true) {
+                    c = read();
+                    if (c == -1) {
+                        break;
+                    }
+                    if (c == '"') {
+                        c = read();
+                        if (c != '"') {
+                            break;
+                        }
+                    }
+                    if (c == '\n') {
+                        lineNumber++;
+                    }
+                    append((char) c);
+                }
+                // Ignore anything between the closing quote and the next separator
+                while (c != ',' && c != '\n' && c != '\r' && c != -1) {
+                    c = read();
+                }
+            } else {
+                while (c != ',' && c != '\n' && c != '\r' && c != -1) {
+                    append((char) c);
+                    c = read();
+                }
+            }
+
+            int end = dataLength;
+            if (!quoted) {
+                while (end > start && (data[end - 1] == ' ' || data[end - 1] == '\t')) {
+                    end--;
+                }
+            }
+            addField(start, end);
+
+            if (c == ',') {
+                c = read();
+                continue;
+            }
+
+            if (c == '\r') {
+                c = read();
+                if (c != '\n' && c != -1) {
+                    // A lone carriage return ends the line, keep the character for the next record
+                    inputPos--;
+                }
+            }
+            lineNumber++;
+            return true;
+        }
+    }
+
+    private int read() throws IOException {
+        if (inputPos == inputLength) {
+            inputLength = reader.read(input, 0, input.length);
+            inputPos = 0;
+            if (inputLength <= 0) {
+                inputLength = 0;
+                return -1;
+            }
+        }
+        return input[inputPos++];
+    }
+
+    private void append(char c) {
+        if (dataLength == data.length) {
+            data = Arrays.copyOf(data, data.length * 2);
+        }
+        data[dataLength++] = c;
+    }
+
+    private void addField(int start, int end) {
+        if (fieldCount == starts.length) {
+            starts = Arrays.copyOf(starts, starts.length * 2);
+            ends = Arrays.copyOf(ends, ends.length * 2);
+        }
+        starts[fieldCount] = start;
+        ends[fieldCount] = end;
+        fieldCount++;
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= fieldCount) {
+            throw new IndexOutOfBoundsException("Field " + index + " does not exist on line " + lineNumber);
+        }
+    }
+}
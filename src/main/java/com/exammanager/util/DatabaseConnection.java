@@ -1,17 +1,19 @@
 package com.exammanager.util;
 
-import javafx.application.Platform;
-
+import java.io.IOException;
 import java.io.InputStream;
 import java.sql.Connection;
 import java.sql.DriverManager;
+import java.sql.SQLException;
 import java.util.Properties;
 
 /**
- * A class for handling database connections.
+ * A class for opening physical database connections.
  * <p>
- * Contains a method for getting a database connection. User properties
- * for a separate properties file to establish a connection to a MySQL-database.
+ * Reads the connection details from a separate properties file once, and uses
+ * them to open new connections to a MySQL-database. The application itself should
+ * not call this class directly, but borrow pooled connections from
+ * {@link ConnectionProvider} instead.
  *
  * @author Bendik
  */
@@ -19,33 +21,81 @@ public abstract class DatabaseConnection {
 
     private static final String PROPERTIES_FILE = "/db.properties";
 
+    private static Properties properties;
+
     /**
-     * A method for getting a connection to a MySQL-database.
+     * Opens a new physical connection to a MySQL-database.
      *
-     * @return {@link Connection} returns a database connection
+     * @return {@link Connection} a new database connection
+     * @throws SQLException if the properties file is missing or the connection fails
      */
-    public static Connection getConnection() {
-        try (InputStream in = DatabaseConnection.class.getResourceAsStream(PROPERTIES_FILE)) {
-            if (in == null) {
-                showError("Properties file not found");
-                return null;
-            }
+    public static Connection openConnection() throws SQLException {
+        Properties prop = getProperties();
+
+        String url = prop.getProperty("db.url");
+        if (url == null) {
+            throw new SQLException("Properties file not found");
+        }
+
+        Properties info = new Properties();
+        info.setProperty("user", prop.getProperty("db.username", ""));
+        info.setProperty("password", prop.getProperty("db.password", ""));
 
-            Properties prop = new Properties();
-            prop.load(in);
+        // Lets the MySQL driver rewrite batched inserts into multi-row inserts
+        info.setProperty("rewriteBatchedStatements", prop.getProperty("db.rewriteBatchedStatements", "false"));
+
+        return DriverManager.getConnection(url, info);
+    }
+
+    /**
+     * Returns the properties read from the properties file. The file is only read
+     * the first time this method is called.
+     *
+     * @return the database properties, or empty properties if the file could not be read
+     */
+    public static synchronized Properties getProperties() {
+        if (properties == null) {
+            properties = new Properties();
+            try (InputStream in = DatabaseConnection.class.getResourceAsStream(PROPERTIES_FILE)) {
+                if (in != null) {
+                    properties.load(in);
+                }
+            } catch (IOException e) {
+                System.out.println("Failed to read " + PROPERTIES_FILE + ": " + e.getMessage());
+            }
+        }
+        return properties;
+    }
 
-            String url = prop.getProperty("db.url");
-            String username = prop.getProperty("db.username");
-            String password = prop.getProperty("db.password");
+    /**
+     * Returns an integer property from the properties file.
+     *
+     * @param key the property key
+     * @param defaultValue the value to return if the property is missing or not a number
+     * @return the property value, or the default value
+     */
+    public static int getIntProperty(String key, int defaultValue) {
+        String value = getProperties().getProperty(key);
+        if (value == null) {
+            return defaultValue;
+        }
 
-            return DriverManager.getConnection(url, username, password);
-        } catch (Exception e) {
-            showError("Failed to connect to database.\n" + e.getMessage());
-            return null;
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            return defaultValue;
         }
     }
 
-    private static void showError(String message) {
-        Platform.runLater(() -> AlertUtil.showDatabaseConnectionError(message));
+    /**
+     * Returns a boolean property from the properties file.
+     *
+     * @param key the property key
+     * @param defaultValue the value to return if the property is missing
+     * @return the property value, or the default value
+     */
+    public static boolean getBooleanProperty(String key, boolean defaultValue) {
+        String value = getProperties().getProperty(key);
+        return value == null ? defaultValue : Boolean.parseBoolean(value.trim());
     }
 }
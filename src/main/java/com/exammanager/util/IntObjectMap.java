@@ -0,0 +1,170 @@
+package com.exammanager.util;
+
+import java.util.Arrays;
+
+/**
+ * A hash map from {@code int} keys to objects, such as entities by their ID.
+ * <p>
+ * Keys are stored in a plain {@code int} array using open addressing with linear probing,
+ * so lookups do not box the key or follow a chain of entry objects, and the map uses far less
+ * memory than a {@link java.util.HashMap} with {@link Integer} keys. Removing a key moves the
+ * following keys of its probe sequence back, so lookups never have to skip removed entries.
+ * Not safe to use from several threads at once.
+ *
+ * @param <V> the type of the values
+ *
+ * @author Bendik
+ */
+public class IntObjectMap<V> {
+
+    private static final int DEFAULT_CAPACITY = 16;
+
+    // The map is resized once it is more than this full
+    private static final float LOAD_FACTOR = 0.5f;
+
+    private int[] keys;
+    private Object[] values;
+    private int size;
+    private int resizeThreshold;
+
+    public IntObjectMap() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates an empty map with room for the given number of entries before resizing.
+     *
+     * @param expectedSize the expected number of entries
+     */
+    public IntObjectMap(int expectedSize) {
+        allocate(tableSizeFor(expectedSize));
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean containsKey(int key) {
+        return values[indexOf(key)] != null;
+    }
+
+    /**
+     * Returns the value of a key.
+     *
+     * @param key the key
+     * @return the value of the key, or null if the map does not contain the key
+     */
+    @SuppressWarnings("unchecked")
+    public V get(int key) {
+        return (V) values[indexOf(key)];
+    }
+
+    /**
+     * Sets the value of a key.
+     *
+     * @param key the key
+     * @param value the value, which cannot be null
+     * @return the previous value of the key, or null if the map did not contain the key
+     */
+    @SuppressWarnings("unchecked")
+    public V put(int key, V value) {
+        if (value == null) {
+            throw new IllegalArgumentException("Values cannot be null");
+        }
+
+        int index = indexOf(key);
+        V previous = (V) values[index];
+        keys[index] = key;
+        values[index] = value;
+
+        if (previous == null && ++size > resizeThreshold) {
+            resize(keys.length * 2);
+        }
+        return previous;
+    }
+
+    /**
+     * Removes a key from the map.
+     *
+     * @param key the key
+     * @return the removed value of the key, or null if the map did not contain the key
+     */
+    @SuppressWarnings("unchecked")
+    public V remove(int key) {
+        int index = indexOf(key);
+        V previous = (V) values[index];
+        if (previous == null) {
+            return null;
+        }
+
+        values[index] = null;
+        size--;
+
+        // Moves back the following entries which would no longer be found past the new gap
+        int mask = keys.length - 1;
+        int gap = index;
+        for (int i = (index + 1) & mask; values[i] != null; i = (i + 1) & mask) {
+            int home = hash(keys[i]) & mask;
+            if (((i - home) & mask) >= ((i - gap) & mask)) {
+                keys[gap] = keys[i];
+                values[gap] = values[i];
+                values[i] = null;
+                gap = i;
+            }
+        }
+        return previous;
+    }
+
+    public void clear() {
+        Arrays.fill(values, null);
+        size = 0;
+    }
+
+    // Returns the index of the key, or of the empty slot where it would be inserted
+    private int indexOf(int key) {
+        int mask = keys.length - 1;
+        int index = hash(key) & mask;
+        while (values[index] != null && keys[index] != key) {
+            index = (index + 1) & mask;
+        }
+        return index;
+    }
+
+    private void resize(int capacity) {
+        int[] oldKeys = keys;
+        Object[] oldValues = values;
+        allocate(capacity);
+
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldValues[i] != null) {
+                int index = indexOf(oldKeys[i]);
+                keys[index] = oldKeys[i];
+                values[index] = oldValues[i];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        values = new Object[capacity];
+        resizeThreshold = (int) (capacity * LOAD_FACTOR);
+    }
+
+    private static int tableSizeFor(int expectedSize) {
+        int capacity = DEFAULT_CAPACITY;
+        while (capacity * LOAD_FACTOR < expectedSize) {
+            capacity *= 2;
+        }
+        return capacity;
+    }
+
+    // Spreads sequential IDs across the table, so they do not form long probe sequences
+    private static int hash(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
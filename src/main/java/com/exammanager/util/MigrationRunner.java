@@ -0,0 +1,373 @@
+package com.exammanager.util;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A class for bringing the database schema up to date with the application.
+ * <p>
+ * Schema changes are numbered SQL scripts in {@code src/main/resources/db/migration}, named
+ * {@code V<version>__<description>.sql} and listed in order in {@code migrations.list}. Each
+ * script is applied once, and recorded in a {@code schema_version} table with a checksum of
+ * its contents. A script which has been changed after it was applied stops the migration, as the
+ * database no longer matches what the scripts describe.
+ * <p>
+ * MySQL commits every DDL statement on its own, so scripts are not run in a transaction.
+ * Instead, the number of statements completed is recorded in a {@code schema_version_progress}
+ * table after each statement. A script which fails part of the way through continues from the
+ * statement which failed the next time the database is migrated, instead of repeating statements
+ * which have already changed the schema, such as adding a column which now exists.
+ * To keep the application usable while a script runs, scripts should add new columns and
+ * indexes with {@code ALGORITHM=INPLACE, LOCK=NONE} before dropping old ones, and statements
+ * give up instead of queueing behind long-running queries, which would otherwise block every
+ * query behind them while waiting for the table lock. Only one application instance migrates
+ * the database at a time.
+ *
+ * @author Bendik
+ */
+public abstract class MigrationRunner {
+
+    private static final String MIGRATION_DIRECTORY = "/db/migration/";
+    private static final String MIGRATION_LIST = MIGRATION_DIRECTORY + "migrations.list";
+    private static final Pattern SCRIPT_NAME = Pattern.compile("V(\\d+)__(\\w+)\\.sql");
+
+    private static final String LOCK_NAME = "exammanager_schema_migration";
+    private static final int LOCK_TIMEOUT_SECONDS = 60;
+
+    // How long a statement may wait for a table lock before failing
+    private static final int LOCK_WAIT_TIMEOUT_SECONDS = 10;
+
+    /**
+     * A migration script.
+     *
+     * @param version the version the script migrates the schema to
+     * @param description the description from the script's name
+     * @param fileName the script's file name
+     * @param sql the contents of the script
+     */
+    private record Migration(int version, String description, String fileName, String sql) {
+        private String checksum() {
+            try {
+                byte[] hash = MessageDigest.getInstance("SHA-256").digest(sql.getBytes(StandardCharsets.UTF_8));
+                return HexFormat.of().formatHex(hash);
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException("SHA-256 is not available", e);
+            }
+        }
+    }
+
+    /**
+     * A row of the {@code schema_version} table.
+     */
+    private record AppliedMigration(String checksum) {}
+
+    /**
+     * Applies every migration script which has not been applied to the database yet, in order.
+     *
+     * @param conn the connection to migrate the database on
+     * @return the number of scripts applied
+     * @throws SQLException if a script fails, or the applied scripts do not match the scripts
+     * of the application
+     */
+    public static int migrate(Connection conn) throws SQLException {
+        List<Migration> migrations = loadMigrations();
+
+        acquireLock(conn);
+        try {
+            // The connection may be pooled, so the session's lock wait timeout is restored afterwards
+            int previousLockWaitTimeout = getLockWaitTimeout(conn);
+            setLockWaitTimeout(conn, LOCK_WAIT_TIMEOUT_SECONDS);
+            try {
+                createSchemaVersionTable(conn);
+                Map<Integer, AppliedMigration> applied = loadAppliedMigrations(conn);
+                validate(migrations, applied);
+
+                int count = 0;
+                for (Migration migration : migrations) {
+                    if (!applied.containsKey(migration.version())) {
+                        apply(conn, migration);
+                        count++;
+                    }
+                }
+                return count;
+            } finally {
+                setLockWaitTimeout(conn, previousLockWaitTimeout);
+            }
+        } finally {
+            releaseLock(conn);
+        }
+    }
+
+    /**
+     * Applies the migration scripts from the command line, without starting the application.
+     *
+     * @return 0 if the database is up to date, otherwise 1
+     */
+    public static int migrateFromCommandLine() {
+        try (Connection conn = ConnectionProvider.borrow()) {
+            int count = migrate(conn);
+            System.out.println(count == 0 ? "The database is up to date." : "Applied " + count + " migration(s).");
+            return 0;
+        } catch (SQLException e) {
+            System.out.println("Migration failed: " + e.getMessage());
+            return 1;
+        } finally {
+            ConnectionProvider.shutdown();
+        }
+    }
+
+    private static List<Migration> loadMigrations() throws SQLException {
+        List<Migration> migrations = new ArrayList<>();
+
+        for (String fileName : readResource(MIGRATION_LIST).lines().map(String::trim).toList()) {
+            if (fileName.isEmpty() || fileName.startsWith("#")) {
+                continue;
+            }
+
+            Matcher matcher = SCRIPT_NAME.matcher(fileName);
+            if (!matcher.matches()) {
+                throw new SQLException("Invalid migration script name: " + fileName);
+            }
+
+            int version = Integer.parseInt(matcher.group(1));
+            if (!migrations.isEmpty() && version <= migrations.getLast().version()) {
+                throw new SQLException("Migration scripts are not listed in increasing version order: " + fileName);
+            }
+
+            String sql = readResource(MIGRATION_DIRECTORY + fileName);
+            migrations.add(new Migration(version, matcher.group(2).replace('_', ' '), fileName, sql));
+        }
+
+        return migrations;
+    }
+
+    // Reads a resource with normalized line endings, so checksums do not depend on the platform
+    private static String readResource(String name) throws SQLException {
+        try (InputStream in = MigrationRunner.class.getResourceAsStream(name)) {
+            if (in == null) {
+                throw new SQLException("Migration resource not found: " + name);
+            }
+            StringBuilder content = new StringBuilder();
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    content.append(line).append('\n');
+                }
+            }
+            return content.toString();
+        } catch (IOException e) {
+            throw new SQLException("Failed to read " + name + ": " + e.getMessage(), e);
+        }
+    }
+
+    private static void acquireLock(Connection conn) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement("SELECT GET_LOCK(?, ?)")) {
+            stmt.setString(1, LOCK_NAME);
+            stmt.setInt(2, LOCK_TIMEOUT_SECONDS);
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (!rs.next() || rs.getInt(1) != 1) {
+                    throw new SQLException("Timed out waiting for another instance to finish migrating the database");
+                }
+            }
+        }
+    }
+
+    private static void releaseLock(Connection conn) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement("SELECT RELEASE_LOCK(?)")) {
+            stmt.setString(1, LOCK_NAME);
+            stmt.executeQuery().close();
+        }
+    }
+
+    private static int getLockWaitTimeout(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement(); ResultSet rs = stmt.executeQuery("SELECT @@SESSION.lock_wait_timeout")) {
+            if (!rs.next()) {
+                throw new SQLException("Could not read the session's lock wait timeout");
+            }
+            return rs.getInt(1);
+        }
+    }
+
+    private static void setLockWaitTimeout(Connection conn, int seconds) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("SET SESSION lock_wait_timeout = " + seconds);
+        }
+    }
+
+    private static void createSchemaVersionTable(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("CREATE TABLE IF NOT EXISTS schema_version_progress (" +
+                         "version INT PRIMARY KEY, " +
+                         "checksum CHAR(64) NOT NULL, " +
+                         "statements INT NOT NULL)");
+            stmt.execute("CREATE TABLE IF NOT EXISTS schema_version (" +
+                         "version INT PRIMARY KEY, " +
+                         "description VARCHAR(200) NOT NULL, " +
+                         "script VARCHAR(200) NOT NULL, " +
+                         "checksum CHAR(64) NOT NULL, " +
+                         "installed_on TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP, " +
+                         "execution_ms INT NOT NULL)");
+        }
+    }
+
+    private static Map<Integer, AppliedMigration> loadAppliedMigrations(Connection conn) throws SQLException {
+        Map<Integer, AppliedMigration> applied = new TreeMap<>();
+        try (PreparedStatement stmt = conn.prepareStatement("SELECT version, checksum FROM schema_version");
+             ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                applied.put(rs.getInt("version"), new AppliedMigration(rs.getString("checksum")));
+            }
+        }
+        return applied;
+    }
+
+    private static void validate(List<Migration> migrations, Map<Integer, AppliedMigration> applied) throws SQLException {
+        for (Migration migration : migrations) {
+            AppliedMigration appliedMigration = applied.get(migration.version());
+            if (appliedMigration == null) {
+                continue;
+            }
+            if (!appliedMigration.checksum().equals(migration.checksum())) {
+                throw new SQLException(migration.fileName() + " has been changed after it was applied.");
+            }
+        }
+
+        // The database was migrated by a newer version of the application
+        int latestVersion = migrations.isEmpty() ? 0 : migrations.getLast().version();
+        for (int version : applied.keySet()) {
+            if (version > latestVersion) {
+                throw new SQLException("The database schema is at version " + version
+                        + ", which is newer than this application supports.");
+            }
+        }
+    }
+
+    private static void apply(Connection conn, Migration migration) throws SQLException {
+        List<String> statements = splitStatements(migration.sql());
+        int completed = loadProgress(conn, migration);
+        long startTime = System.nanoTime();
+
+        try (Statement stmt = conn.createStatement()) {
+            while (completed < statements.size()) {
+                stmt.execute(statements.get(completed));
+                completed++;
+                saveProgress(conn, migration, completed);
+            }
+        } catch (SQLException e) {
+            throw new SQLException(migration.fileName() + " failed at statement " + (completed + 1) + " of "
+                    + statements.size() + ": " + e.getMessage() + "\nThe migration continues from this statement "
+                    + "the next time it runs.", e);
+        }
+
+        int executionMillis = (int) ((System.nanoTime() - startTime) / 1_000_000);
+        String sql = "INSERT INTO schema_version (version, description, script, checksum, execution_ms) VALUES (?, ?, ?, ?, ?)";
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setInt(1, migration.version());
+            stmt.setString(2, migration.description());
+            stmt.setString(3, migration.fileName());
+            stmt.setString(4, migration.checksum());
+            stmt.setInt(5, executionMillis);
+            stmt.executeUpdate();
+        }
+
+        try (PreparedStatement stmt = conn.prepareStatement("DELETE FROM schema_version_progress WHERE version = ?")) {
+            stmt.setInt(1, migration.version());
+            stmt.executeUpdate();
+        }
+    }
+
+    // Returns the number of statements of a script completed by an earlier, failed migration
+    private static int loadProgress(Connection conn, Migration migration) throws SQLException {
+        String sql = "SELECT checksum, statements FROM schema_version_progress WHERE version = ?";
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setInt(1, migration.version());
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (!rs.next()) {
+                    return 0;
+                }
+                if (!rs.getString("checksum").equals(migration.checksum())) {
+                    throw new SQLException(migration.fileName() + " has been changed after it was partially applied.");
+                }
+                return rs.getInt("statements");
+            }
+        }
+    }
+
+    private static void saveProgress(Connection conn, Migration migration, int completed) throws SQLException {
+        String sql = "INSERT INTO schema_version_progress (version, checksum, statements) VALUES (?, ?, ?) "
+                + "ON DUPLICATE KEY UPDATE statements = ?";
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setInt(1, migration.version());
+            stmt.setString(2, migration.checksum());
+            stmt.setInt(3, completed);
+            stmt.setInt(4, completed);
+            stmt.executeUpdate();
+        }
+    }
+
+    /**
+     * Splits a script into statements ending with a semicolon, skipping comments.
+     * Semicolons inside quoted strings do not end a statement.
+     *
+     * @param script the script to split
+     * @return the statements of the script, without their semicolons
+     */
+    private static List<String> splitStatements(String script) {
+        List<String> statements = new ArrayList<>();
+        StringBuilder statement = new StringBuilder();
+        char quote = 0;
+
+        for (int i = 0; i < script.length(); i++) {
+            char c = script.charAt(i);
+
+            if (quote != 0) {
+                statement.append(c);
+                if (c == '\\' && i + 1 < script.length()) {
+                    statement.append(script.charAt(++i));
+                } else if (c == quote) {
+                    quote = 0;
+                }
+            } else if (c == '\'' || c == '"' || c == '`') {
+                quote = c;
+                statement.append(c);
+            } else if (c == '#' || script.startsWith("--", i) && (i + 2 == script.length() || Character.isWhitespace(script.charAt(i + 2)))) {
+                // Skips the rest of the line
+                int end = script.indexOf('\n', i);
+                i = end < 0 ? script.length() : end;
+                statement.append('\n');
+            } else if (c == ';') {
+                addStatement(statements, statement);
+            } else {
+                statement.append(c);
+            }
+        }
+        addStatement(statements, statement);
+
+        return statements;
+    }
+
+    private static void addStatement(List<String> statements, StringBuilder statement) {
+        String sql = statement.toString().strip();
+        if (!sql.isEmpty()) {
+            statements.add(sql);
+        }
+        statement.setLength(0);
+    }
+}
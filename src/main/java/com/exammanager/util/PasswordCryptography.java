@@ -2,7 +2,9 @@ package com.exammanager.util;
 
 import javax.crypto.SecretKeyFactory;
 import javax.crypto.spec.PBEKeySpec;
+import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
 import java.security.spec.InvalidKeySpecException;
 import java.security.spec.KeySpec;
 import java.util.Base64;
@@ -10,33 +12,204 @@ import java.util.Random;
 
 /**
  * An abstract class containing static methods for password cryptography.
- * Contains a method for hashing passwords with a given salt and a method for
- * generating a random 8-character salt.
+ * Contains methods for hashing and verifying passwords with a given salt, checking whether
+ * a stored hash should be replaced, verifying a password for an account which does not exist,
+ * and generating a random 8-character salt.
+ * <p>
+ * Hashes are stored as {@code pbkdf2-sha256$<iterations>$<key length>$<base64 hash>}, so every
+ * hash records the cost it was created with and can still be verified after the cost changes.
+ * Hashes stored before the format included the cost are plain base64, and were created with
+ * 65536 iterations and a 256-bit key.
+ * <p>
+ * New hashes use an iteration count calibrated to take about {@code login.hash.targetMillis}
+ * on the current hardware, but never fewer than {@code login.hash.minIterations}, both set in
+ * the properties file. Lowering the target speeds up logins at busy times, raising it makes
+ * stored hashes harder to crack. Existing hashes are replaced on the next login, see
+ * {@link #needsRehash(String)}.
  * <p>
  * @author Bendik
  */
 public abstract class PasswordCryptography {
 
+    private static final String ALGORITHM = "pbkdf2-sha256";
+    private static final int KEY_LENGTH = 256;
+
+    // The parameters of hashes stored without them
+    private static final int LEGACY_ITERATIONS = 65536;
+    private static final int LEGACY_KEY_LENGTH = 256;
+
+    // Iterations hashed to measure the speed of the current hardware
+    private static final int CALIBRATION_ITERATIONS = 20_000;
+    private static final int MAX_ITERATIONS = 10_000_000;
+
+    // The iteration count of new hashes, or 0 until calibrated
+    private static int iterations;
+
+    // A hash of a random password with the current parameters, or null until created
+    private static String dummyHash;
+    private static final String DUMMY_SALT = "dummysalt";
+
+    /**
+     * A stored hash split into its parameters.
+     *
+     * @param algorithm the key derivation function the hash was created with
+     * @param iterations the iteration count the hash was created with
+     * @param keyLength the length of the hash in bits
+     * @param hash the hash
+     * @param legacy whether the hash was stored without its parameters
+     */
+    private record StoredHash(String algorithm, int iterations, int keyLength, byte[] hash, boolean legacy) {
+
+        private static StoredHash parse(String storedHash) {
+            if (!storedHash.contains("$")) {
+                return new StoredHash(ALGORITHM, LEGACY_ITERATIONS, LEGACY_KEY_LENGTH, Base64.getDecoder().decode(storedHash), true);
+            }
+
+            String[] parts = storedHash.split("\\$");
+            if (parts.length != 4) {
+                throw new IllegalArgumentException("Invalid password hash format");
+            }
+            return new StoredHash(parts[0], Integer.parseInt(parts[1]), Integer.parseInt(parts[2]),
+                    Base64.getDecoder().decode(parts[3]), false);
+        }
+    }
+
     /**
      * A method for hashing passwords. Uses the PBKDF2 key derivation function
      * and SHA-256 hash function to hash passwords using a given salt and
-     * an iteration count of 65536. Then encodes and returns the resulting byte array
-     * to a base64 string.
+     * the calibrated iteration count. Then encodes the resulting byte array
+     * to a base64 string, prefixed with the parameters used.
      * <p>
      * @param password the password to hash
      * @param salt the salt used for 'salting'
-     * @return the password hash encoded as a base64 string
+     * @return the password hash and its parameters, to be stored as is
      */
     public static String hashPassword(String password, String salt) {
-        KeySpec spec = new PBEKeySpec(password.toCharArray(), salt.getBytes(), 65536, 256);
+        int iterations = getIterations();
+        byte[] hashBytes = pbkdf2(password, salt, iterations, KEY_LENGTH);
+
+        return ALGORITHM + "$" + iterations + "$" + KEY_LENGTH + "$" + Base64.getEncoder().encodeToString(hashBytes);
+    }
 
+    /**
+     * Checks a password against a stored hash, using the parameters the hash was created with.
+     * <p>
+     * @param password the password to check
+     * @param salt the salt the hash was created with
+     * @param storedHash the stored hash, in either the current or the legacy format
+     * @return true if the password matches the hash, false if it does not or the hash is invalid
+     */
+    public static boolean verifyPassword(String password, String salt, String storedHash) {
+        StoredHash parsed;
         try {
-            SecretKeyFactory skf = SecretKeyFactory.getInstance("PBKDF2WithHmacSHA256");
-            byte[] hashBytes = skf.generateSecret(spec).getEncoded();
+            parsed = StoredHash.parse(storedHash);
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+        if (!parsed.algorithm().equals(ALGORITHM)) {
+            return false;
+        }
+
+        byte[] hashBytes = pbkdf2(password, salt, parsed.iterations(), parsed.keyLength());
+
+        // Compares in constant time, so the comparison does not reveal how much of the hash matched
+        return MessageDigest.isEqual(hashBytes, parsed.hash());
+    }
+
+    /**
+     * Takes as long as verifying a password against a new hash, without matching anything.
+     * Used when logging in with an email which has no account, so the login takes as long
+     * as it would for an existing account and does not reveal which emails have one.
+     * <p>
+     * @param password the password which was entered
+     */
+    public static void verifyDummyPassword(String password) {
+        verifyPassword(password, DUMMY_SALT, getDummyHash());
+    }
 
-            String hash = Base64.getEncoder().encodeToString(hashBytes);
+    /**
+     * Checks whether a stored hash should be replaced with a new hash of the same password.
+     * <p>
+     * A hash is replaced if it is in the legacy format, uses another algorithm or key length,
+     * or has fewer iterations than new hashes. It is also replaced if it has more than twice as
+     * many iterations, so lowering the target time speeds up existing accounts too, without
+     * hashes being replaced back and forth between computers of slightly different speed.
+     * <p>
+     * @param storedHash a stored hash which the password has been verified against
+     * @return true if the hash should be replaced
+     */
+    public static boolean needsRehash(String storedHash) {
+        StoredHash parsed;
+        try {
+            parsed = StoredHash.parse(storedHash);
+        } catch (IllegalArgumentException e) {
+            return true;
+        }
+
+        int iterations = getIterations();
+        return parsed.legacy()
+                || !parsed.algorithm().equals(ALGORITHM)
+                || parsed.keyLength() != KEY_LENGTH
+                || parsed.iterations() < iterations
+                || parsed.iterations() > 2L * iterations;
+    }
+
+    /**
+     * Calibrates the iteration count of new hashes, if it has not been calibrated yet,
+     * and creates the hash used by {@link #verifyDummyPassword(String)}.
+     * Takes a fraction of a second, so should be called on a background thread when the
+     * application starts, rather than by the first login.
+     */
+    public static void calibrate() {
+        getIterations();
+        getDummyHash();
+    }
+
+    /**
+     * Returns the iteration count of new hashes, calibrating it the first time.
+     * <p>
+     * @return the number of PBKDF2 iterations taking about the target time on this computer
+     */
+    public static synchronized int getIterations() {
+        if (iterations == 0) {
+            iterations = measureIterations();
+        }
+        return iterations;
+    }
+
+    private static synchronized String getDummyHash() {
+        if (dummyHash == null) {
+            dummyHash = hashPassword(generateSalt(), DUMMY_SALT);
+        }
+        return dummyHash;
+    }
 
-            return hash;
+    private static int measureIterations() {
+        int targetMillis = DatabaseConnection.getIntProperty("login.hash.targetMillis", 250);
+        int minIterations = DatabaseConnection.getIntProperty("login.hash.minIterations", LEGACY_ITERATIONS);
+
+        // The first run only warms up the JIT compiler, the fastest of the following runs is used
+        pbkdf2("calibration", "calibration", CALIBRATION_ITERATIONS, KEY_LENGTH);
+        long fastestNanos = Long.MAX_VALUE;
+        for (int i = 0; i < 3; i++) {
+            long start = System.nanoTime();
+            pbkdf2("calibration", "calibration", CALIBRATION_ITERATIONS, KEY_LENGTH);
+            fastestNanos = Math.min(fastestNanos, System.nanoTime() - start);
+        }
+
+        long calibrated = targetMillis * 1_000_000L * CALIBRATION_ITERATIONS / Math.max(fastestNanos, 1);
+
+        // Rounded down to whole thousands, which are easier to recognize in stored hashes
+        calibrated = calibrated / 1000 * 1000;
+        return Math.clamp(calibrated, minIterations, Math.max(minIterations, MAX_ITERATIONS));
+    }
+
+    private static byte[] pbkdf2(String password, String salt, int iterations, int keyLength) {
+        KeySpec spec = new PBEKeySpec(password.toCharArray(), salt.getBytes(), iterations, keyLength);
+
+        try {
+            SecretKeyFactory skf = SecretKeyFactory.getInstance("PBKDF2WithHmacSHA256");
+            return skf.generateSecret(spec).getEncoded();
         } catch (NoSuchAlgorithmException | InvalidKeySpecException e) {
             throw new RuntimeException("Failed to hash password. " + e);
         }
@@ -50,9 +223,9 @@ public abstract class PasswordCryptography {
     public static String generateSalt() {
         String saltChars = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz1234567890";
         StringBuilder salt = new StringBuilder();
-        Random rnd = new Random();
+        Random rnd = new SecureRandom();
         while (salt.length() < 8) { // length of the random string.
-            int index = (int) (rnd.nextFloat() * saltChars.length());
+            int index = rnd.nextInt(saltChars.length());
             salt.append(saltChars.charAt(index));
         }
         return salt.toString();
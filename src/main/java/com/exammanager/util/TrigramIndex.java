@@ -0,0 +1,289 @@
+package com.exammanager.util;
+
+import javafx.collections.ListChangeListener;
+import javafx.collections.ObservableList;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * An in-memory search index for filtering table rows by substring.
+ * <p>
+ * Each item's searchable fields are lowercased once when the item is added, and every
+ * three-character sequence (trigram) of the fields is added to a posting list of the items
+ * containing it. A search for a substring of three or more characters then only has to
+ * intersect the posting lists of the substring's trigrams, and check the few remaining
+ * candidates, instead of scanning and lowercasing every field of every item. Shorter
+ * searches scan the lowercased fields, which needs no new strings.
+ * <p>
+ * The index can be bound to an {@link ObservableList}, so it stays up to date as items are
+ * added, replaced and removed. Removed items are only marked as removed, and the index is
+ * rebuilt once they outnumber the remaining items. Items are identified by identity.
+ * The index must only be used on the JavaFX application thread.
+ *
+ * @param <T> the type of the indexed items
+ *
+ * @author Bendik
+ */
+public class TrigramIndex<T> {
+
+    // Separates the fields of an item, so matches cannot span two fields
+    private static final char FIELD_SEPARATOR = '\u0000';
+
+    private static final int MIN_REMOVED_BEFORE_REBUILD = 1024;
+
+    private final Function<T, List<String>> fields;
+
+    private final Map<T, Integer> ids = new IdentityHashMap<>();
+    private final List<T> items = new ArrayList<>();
+    private final List<String> texts = new ArrayList<>();
+    private final Map<Long, PostingList> postings = new HashMap<>();
+    private int removedCount;
+
+    // Increased whenever IDs are reassigned, so predicates from earlier searches stop trusting their IDs
+    private int generation;
+
+    /**
+     * Creates an empty index.
+     *
+     * @param fields returns the searchable fields of an item, e.g. its ID and name as strings
+     */
+    public TrigramIndex(Function<T, List<String>> fields) {
+        this.fields = fields;
+    }
+
+    /**
+     * Indexes the items of a list, and keeps the index up to date as the list changes.
+     *
+     * @param list the list to index
+     */
+    public void bind(ObservableList<T> list) {
+        list.forEach(this::add);
+        list.addListener((ListChangeListener<T>) change -> {
+            while (change.next()) {
+                if (change.wasPermutated()) {
+                    continue;
+                }
+
+                // Replacing the whole list, e.g. with setAll, is cheaper to handle as a clear
+                if (change.getRemovedSize() > 0 && change.getRemovedSize() >= ids.size()) {
+                    clear();
+                } else {
+                    change.getRemoved().forEach(this::remove);
+                }
+                change.getAddedSubList().forEach(this::add);
+            }
+        });
+    }
+
+    public void add(T item) {
+        if (ids.containsKey(item)) {
+            return;
+        }
+
+        int id = items.size();
+        String text = normalize(item);
+        ids.put(item, id);
+        items.add(item);
+        texts.add(text);
+
+        for (int i = 0; i + 3 <= text.length(); i++) {
+            long trigram = trigram(text, i);
+            if (trigram >= 0) {
+                postings.computeIfAbsent(trigram, key -> new PostingList()).add(id);
+            }
+        }
+    }
+
+    public void remove(T item) {
+        Integer id = ids.remove(item);
+        if (id == null) {
+            return;
+        }
+
+        items.set(id, null);
+        texts.set(id, null);
+        removedCount++;
+
+        if (removedCount >= MIN_REMOVED_BEFORE_REBUILD && removedCount > ids.size()) {
+            rebuild();
+        }
+    }
+
+    /**
+     * Updates the index after the searchable fields of an item have been changed in place.
+     * Items replaced in a bound list are updated automatically.
+     *
+     * @param item the changed item
+     */
+    public void update(T item) {
+        remove(item);
+        add(item);
+    }
+
+    public void clear() {
+        ids.clear();
+        items.clear();
+        texts.clear();
+        postings.clear();
+        removedCount = 0;
+        generation++;
+    }
+
+    /**
+     * Searches the index for items with a field containing the query, ignoring case.
+     * <p>
+     * The returned predicate can be given to a {@link javafx.collections.transformation.FilteredList}.
+     * Items added to the index after the search are checked directly against the query, and so
+     * is every item once the index has been cleared or rebuilt, as the item IDs the search found
+     * are then reused for other items.
+     *
+     * @param query the text to search for
+     * @return a predicate matching the items found, or every item if the query is empty
+     */
+    public Predicate<T> search(String query) {
+        String normalizedQuery = query == null ? "" : query.trim().toLowerCase(Locale.ROOT);
+        if (normalizedQuery.isEmpty()) {
+            return item -> true;
+        }
+
+        BitSet matches = normalizedQuery.length() < 3 ? scan(normalizedQuery) : lookup(normalizedQuery);
+        int searchedCount = items.size();
+        int searchedGeneration = generation;
+
+        return item -> {
+            Integer id = searchedGeneration == generation ? ids.get(item) : null;
+            if (id != null && id < searchedCount) {
+                return matches.get(id);
+            }
+            return normalize(item).contains(normalizedQuery);
+        };
+    }
+
+    private BitSet scan(String query) {
+        BitSet matches = new BitSet(texts.size());
+        for (int id = 0; id < texts.size(); id++) {
+            String text = texts.get(id);
+            if (text != null && text.contains(query)) {
+                matches.set(id);
+            }
+        }
+        return matches;
+    }
+
+    private BitSet lookup(String query) {
+        BitSet matches = new BitSet(texts.size());
+
+        // Collects the posting list of every trigram in the query
+        List<PostingList> lists = new ArrayList<>();
+        for (int i = 0; i + 3 <= query.length(); i++) {
+            PostingList list = postings.get(trigram(query, i));
+            if (list == null) {
+                return matches;
+            }
+            lists.add(list);
+        }
+
+        // Intersects the lists, starting with the shortest
+        lists.sort((a, b) -> Integer.compare(a.size, b.size));
+        int[] candidates = Arrays.copyOf(lists.get(0).ids, lists.get(0).size);
+        int candidateCount = candidates.length;
+        for (int i = 1; i < lists.size() && candidateCount > 0; i++) {
+            candidateCount = lists.get(i).retainAll(candidates, candidateCount);
+        }
+
+        // Trigrams can appear in another order or in other fields, so check the candidates
+        for (int i = 0; i < candidateCount; i++) {
+            String text = texts.get(candidates[i]);
+            if (text != null && text.contains(query)) {
+                matches.set(candidates[i]);
+            }
+        }
+        return matches;
+    }
+
+    private void rebuild() {
+        List<T> remaining = new ArrayList<>(ids.size());
+        for (T item : items) {
+            if (item != null) {
+                remaining.add(item);
+            }
+        }
+
+        clear();
+        remaining.forEach(this::add);
+    }
+
+    private String normalize(T item) {
+        StringBuilder text = new StringBuilder();
+        for (String field : fields.apply(item)) {
+            if (!text.isEmpty()) {
+                text.append(FIELD_SEPARATOR);
+            }
+            if (field != null) {
+                text.append(field.toLowerCase(Locale.ROOT));
+            }
+        }
+        return text.toString();
+    }
+
+    // Packs three characters into a single key, or returns -1 if they span two fields
+    private static long trigram(String text, int start) {
+        char a = text.charAt(start);
+        char b = text.charAt(start + 1);
+        char c = text.charAt(start + 2);
+        if (a == FIELD_SEPARATOR || b == FIELD_SEPARATOR || c == FIELD_SEPARATOR) {
+            return -1;
+        }
+        return ((long) a << 32) | ((long) b << 16) | c;
+    }
+
+    /**
+     * A sorted list of the IDs of the items containing a trigram.
+     */
+    private static class PostingList {
+        private int[] ids = new int[4];
+        private int size;
+
+        // IDs are assigned in increasing order, so appending keeps the list sorted
+        private void add(int id) {
+            if (size > 0 && ids[size - 1] == id) {
+                return;
+            }
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            ids[size++] = id;
+        }
+
+        /**
+         * Keeps only the candidates contained in this list.
+         *
+         * @param candidates sorted candidate IDs, overwritten with the remaining candidates
+         * @param count the number of candidates
+         * @return the number of remaining candidates
+         */
+        private int retainAll(int[] candidates, int count) {
+            int remaining = 0;
+            int from = 0;
+            for (int i = 0; i < count && from < size; i++) {
+                int index = Arrays.binarySearch(ids, from, size, candidates[i]);
+                if (index >= 0) {
+                    candidates[remaining++] = candidates[i];
+                    from = index + 1;
+                } else {
+                    from = -index - 1;
+                }
+            }
+            return remaining;
+        }
+    }
+}
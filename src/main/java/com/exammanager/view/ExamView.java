@@ -1,7 +1,7 @@
 package com.exammanager.view;
 
 import com.exammanager.model.Course;
-import com.exammanager.model.Exam;
+import com.exammanager.model.ExamDetails;
 import com.exammanager.model.Student;
 import javafx.geometry.Insets;
 import javafx.geometry.Orientation;
@@ -12,6 +12,8 @@ import javafx.beans.property.SimpleIntegerProperty;
 import javafx.beans.property.SimpleStringProperty;
 
 import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
 
 /**
  * A view for managing exams.
@@ -20,8 +22,8 @@ import java.time.LocalDate;
  * <ul>
  *     <li>A title bar and a refresh button</li>
  *     <li>A search bar and clear-search button</li>
- *     <li>A sortable table displaying exam information (ID, student ID, course ID,
- *     exam date and grade)</li>
+ *     <li>A sortable table displaying exam information (ID, student ID and name,
+ *     course ID and title, exam date and grade)</li>
  *     <li>Buttons for editing and deleting exams</li>
  *     <li>A form for adding new exams</li>
  * </ul>
@@ -33,7 +35,8 @@ import java.time.LocalDate;
  */
 public class ExamView extends VBox {
 
-    private TableView<Exam> examTable;
+    private TableView<ExamDetails> examTable;
+    private final Map<TableColumn<ExamDetails, ?>, String> sortColumns = new HashMap<>();
     private TextField searchField;
     private Button clearSearchButton;
     private Button refreshButton;
@@ -83,39 +86,58 @@ public class ExamView extends VBox {
         examTable.getSelectionModel().setSelectionMode(SelectionMode.MULTIPLE);
 
         // Defines examTable columns
-        TableColumn<Exam, Integer> idCol = new TableColumn<>("Exam Id");
+        TableColumn<ExamDetails, Integer> idCol = new TableColumn<>("Exam Id");
         idCol.setPrefWidth(50);
         idCol.setCellValueFactory(
-                data -> new SimpleIntegerProperty(data.getValue().getId()).asObject()
+                data -> new SimpleIntegerProperty(data.getValue().id()).asObject()
         );
 
-        TableColumn<Exam, Integer> studentIdCol = new TableColumn<>("Student Id");
+        TableColumn<ExamDetails, Integer> studentIdCol = new TableColumn<>("Student Id");
         studentIdCol.setPrefWidth(50);
         studentIdCol.setCellValueFactory(
-                data -> new SimpleIntegerProperty(data.getValue().getStudentId()).asObject()
+                data -> new SimpleIntegerProperty(data.getValue().studentId()).asObject()
         );
 
-        TableColumn<Exam, Integer> courseIdCol = new TableColumn<>("Course Id");
+        TableColumn<ExamDetails, String> studentNameCol = new TableColumn<>("Student Name");
+        studentNameCol.setPrefWidth(150);
+        studentNameCol.setCellValueFactory(
+                data -> new SimpleStringProperty(data.getValue().studentName())
+        );
+
+        TableColumn<ExamDetails, Integer> courseIdCol = new TableColumn<>("Course Id");
         courseIdCol.setPrefWidth(150);
         courseIdCol.setCellValueFactory(
-                data ->  new SimpleIntegerProperty(data.getValue().getCourseId()).asObject()
+                data ->  new SimpleIntegerProperty(data.getValue().courseId()).asObject()
+        );
+
+        TableColumn<ExamDetails, String> courseTitleCol = new TableColumn<>("Course Title");
+        courseTitleCol.setPrefWidth(150);
+        courseTitleCol.setCellValueFactory(
+                data -> new SimpleStringProperty(data.getValue().courseTitle())
         );
 
-        TableColumn<Exam, String> examDateCol = new TableColumn<>("Exam Date");
+        TableColumn<ExamDetails, String> examDateCol = new TableColumn<>("Exam Date");
         examDateCol.setPrefWidth(150);
         examDateCol.setCellValueFactory(
-                data -> new SimpleStringProperty(data.getValue().getExamDate().toString())
+                data -> new SimpleStringProperty(data.getValue().examDate().toString())
         );
 
-        TableColumn<Exam, String> gradeCol = new TableColumn<>("Grade");
+        TableColumn<ExamDetails, String> gradeCol = new TableColumn<>("Grade");
         gradeCol.setPrefWidth(150);
         gradeCol.setCellValueFactory(
-                data -> new SimpleStringProperty(data.getValue().getGrade())
+                data -> new SimpleStringProperty(data.getValue().grade())
         );
 
 
         // Adds columns to examTable
-        examTable.getColumns().addAll(idCol, studentIdCol, courseIdCol, examDateCol, gradeCol);
+        examTable.getColumns().addAll(idCol, studentIdCol, studentNameCol, courseIdCol, courseTitleCol, examDateCol, gradeCol);
+
+        // Maps the table columns to the database columns they are sorted by
+        sortColumns.put(idCol, "id");
+        sortColumns.put(studentIdCol, "student_id");
+        sortColumns.put(courseIdCol, "course_id");
+        sortColumns.put(examDateCol, "exam_date");
+        sortColumns.put(gradeCol, "grade");
 
         // Creates a separator line between the table and the controls
         Separator tableSeparator = new Separator(Orientation.VERTICAL);
@@ -182,7 +204,7 @@ public class ExamView extends VBox {
 
         searchField = new TextField();
         searchField.setPrefWidth(620);
-        searchField.setPromptText("Search for exam ID, course ID or student ID");
+        searchField.setPromptText("Search for exam ID, course ID, student ID, grade, student name or course title");
 
         clearSearchButton = new Button("Clear search");
 
@@ -192,10 +214,17 @@ public class ExamView extends VBox {
         getChildren().addAll(topBar, topbarSeparator, searchBox, mainContainer);
     }
 
-    public TableView<Exam> getExamTable() {
+    public TableView<ExamDetails> getExamTable() {
         return examTable;
     }
 
+    /**
+     * @return the database column each sortable table column is sorted by
+     */
+    public Map<TableColumn<ExamDetails, ?>, String> getSortColumns() {
+        return sortColumns;
+    }
+
     public ComboBox<Student> getStudentIdComboBox() {
         return studentIdComboBox;
     }
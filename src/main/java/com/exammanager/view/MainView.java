@@ -2,6 +2,7 @@ package com.exammanager.view;
 
 import com.exammanager.controller.AppController;
 import com.exammanager.login.AccessLevel;
+import com.exammanager.login.Session;
 import javafx.application.Platform;
 import javafx.scene.control.*;
 import javafx.scene.layout.VBox;
@@ -14,17 +15,29 @@ import javafx.scene.layout.VBox;
  * <p>
  * The MainView class also initializes the AppController class once
  * the JavaFX scene graph is ready, connecting the various views
- * with the application logic.
+ * with the application logic. The view of each tab is created when
+ * the tab is first selected, so tabs the user never opens cost nothing.
  *
  * @author Bendik
  */
 public class MainView extends VBox {
 
-    private final TeacherView teacherView = new TeacherView();
-    private final StudentView studentView = new StudentView();
-    private final CourseView courseView = new CourseView();
-    private final ExamView examView = new ExamView();
-    private final DepartmentView departmentView = new DepartmentView();
+    // The individual tabs
+    private final Tab teachersTab = new Tab("Teachers");
+    private final Tab studentsTab = new Tab("Students");
+    private final Tab coursesTab = new Tab("Courses");
+    private final Tab examsTab = new Tab("Exams");
+    private final Tab departmentsTab = new Tab("Departments");
+
+    // The views of the tabs, created when their tab is first selected, see AppController
+    private TeacherView teacherView;
+    private StudentView studentView;
+    private CourseView courseView;
+    private ExamView examView;
+    private DepartmentView departmentView;
+
+    // TabPane for selecting the individual views
+    private final TabPane tabPane = new TabPane();
 
     // Menu bar and menus
     private final MenuBar menuBar = new MenuBar();
@@ -35,7 +48,9 @@ public class MainView extends VBox {
 
     // Menu options under File
     private final MenuItem checkDbItem = new MenuItem("Check Database Connection");
+    private final MenuItem lockItem = new MenuItem("Lock");
     private final MenuItem exportItem = new MenuItem("Export Database");
+    private final MenuItem importItem = new MenuItem("Import Database");
     private final MenuItem exitItem = new MenuItem("Exit");
 
     // Menu options under Report
@@ -49,19 +64,21 @@ public class MainView extends VBox {
     // Menu options under Help
     private final MenuItem aboutItem = new MenuItem("About");
 
-    public MainView(AccessLevel accessLevel) {
+    public MainView(Session session) {
+        AccessLevel accessLevel = session.getPrincipal().accessLevel();
+
         // Set up menu bar
         menuBar.setUseSystemMenuBar(true);
 
         // Add menu options
         fileMenu.getItems().add(checkDbItem);
 
-        // Add exportItem to file menu if logged in as an administrator
+        // Add exportItem and importItem to file menu if logged in as an administrator
         if (accessLevel == AccessLevel.ADMIN) {
-            fileMenu.getItems().add(exportItem);
+            fileMenu.getItems().addAll(exportItem, importItem);
         }
 
-        fileMenu.getItems().add(exitItem);
+        fileMenu.getItems().addAll(lockItem, exitItem);
 
         // Add courseReportItem to report menu if logged in as an administrator or teacher
         // Add studentReportItem to report menu if logged in as a student
@@ -85,21 +102,11 @@ public class MainView extends VBox {
 
         menuBar.getMenus().add(helpMenu);
 
-        // TabPane for selecting the individual views
-        final TabPane tabPane = new TabPane();
-
-        // Creates the individual tabs
-        Tab teachersTab = new Tab("Teachers", teacherView);
-        Tab studentsTab = new Tab("Students", studentView);
-        Tab courseTab = new Tab("Courses", courseView);
-        Tab examsTab = new Tab("Exams", examView);
-        Tab departmentTab = new Tab("Departments", departmentView);
-
         // Adds tabs to tabPane based on access level
         if (accessLevel == AccessLevel.ADMIN) {
-            tabPane.getTabs().addAll(teachersTab, studentsTab, courseTab, examsTab, departmentTab);
+            tabPane.getTabs().addAll(teachersTab, studentsTab, coursesTab, examsTab, departmentsTab);
         } else if (accessLevel == AccessLevel.TEACHER) {
-            tabPane.getTabs().addAll(studentsTab, courseTab, examsTab);
+            tabPane.getTabs().addAll(studentsTab, coursesTab, examsTab);
         } else {
             tabPane.getTabs().addAll(examsTab);
         }
@@ -109,26 +116,85 @@ public class MainView extends VBox {
 
         getChildren().addAll(menuBar, tabPane);
 
-        Platform.runLater(() -> new AppController(this, accessLevel).start());
+        Platform.runLater(() -> new AppController(this, session).start());
+    }
+
+    public TabPane getTabPane() {
+        return tabPane;
     }
 
+    public Tab getTeachersTab() {
+        return teachersTab;
+    }
+
+    /**
+     * @return the view of the teachers tab, which is created the first time this method is called
+     */
     public TeacherView getTeacherView() {
+        if (teacherView == null) {
+            teacherView = new TeacherView();
+            teachersTab.setContent(teacherView);
+        }
         return teacherView;
     }
 
+    public Tab getStudentsTab() {
+        return studentsTab;
+    }
+
+    /**
+     * @return the view of the students tab, which is created the first time this method is called
+     */
     public StudentView getStudentView() {
+        if (studentView == null) {
+            studentView = new StudentView();
+            studentsTab.setContent(studentView);
+        }
         return studentView;
     }
 
+    public Tab getCoursesTab() {
+        return coursesTab;
+    }
+
+    /**
+     * @return the view of the courses tab, which is created the first time this method is called
+     */
     public CourseView getCourseView() {
+        if (courseView == null) {
+            courseView = new CourseView();
+            coursesTab.setContent(courseView);
+        }
         return courseView;
     }
 
+    public Tab getDepartmentsTab() {
+        return departmentsTab;
+    }
+
+    /**
+     * @return the view of the departments tab, which is created the first time this method is called
+     */
     public DepartmentView getDepartmentView() {
+        if (departmentView == null) {
+            departmentView = new DepartmentView();
+            departmentsTab.setContent(departmentView);
+        }
         return departmentView;
     }
 
+    public Tab getExamsTab() {
+        return examsTab;
+    }
+
+    /**
+     * @return the view of the exams tab, which is created the first time this method is called
+     */
     public ExamView getExamView() {
+        if (examView == null) {
+            examView = new ExamView();
+            examsTab.setContent(examView);
+        }
         return examView;
     }
 
@@ -136,10 +202,18 @@ public class MainView extends VBox {
         return checkDbItem;
     }
 
+    public MenuItem getLockItem() {
+        return lockItem;
+    }
+
     public MenuItem getExportItem() {
         return exportItem;
     }
 
+    public MenuItem getImportItem() {
+        return importItem;
+    }
+
     public MenuItem getExitItem() {
         return exitItem;
     }
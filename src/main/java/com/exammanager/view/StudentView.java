@@ -10,6 +10,9 @@ import javafx.scene.control.*;
 import javafx.scene.layout.*;
 import javafx.stage.Modality;
 
+import java.util.HashMap;
+import java.util.Map;
+
 /**
  * A view for managing students.
  * <p>
@@ -31,6 +34,7 @@ import javafx.stage.Modality;
 public class StudentView extends VBox {
 
     private TableView<Student> studentTable;
+    private final Map<TableColumn<Student, ?>, String> sortColumns = new HashMap<>();
     private TextField searchField;
     private Button clearSearchButton;
     private Button refreshButton;
@@ -115,6 +119,13 @@ public class StudentView extends VBox {
         // Adds columns to teacherTable
         studentTable.getColumns().addAll(idCol, firstNameCol, lastNameCol, emailCol, enrollmentYearCol);
 
+        // Maps the table columns to the database columns they are sorted by
+        sortColumns.put(idCol, "id");
+        sortColumns.put(firstNameCol, "first_name");
+        sortColumns.put(lastNameCol, "last_name");
+        sortColumns.put(emailCol, "email");
+        sortColumns.put(enrollmentYearCol, "enrollment_year");
+
         // Creates a separator line between the table and the controls
         Separator tableSeparator = new Separator(Orientation.VERTICAL);
 
@@ -207,6 +218,13 @@ public class StudentView extends VBox {
         return studentTable;
     }
 
+    /**
+     * @return the database column each sortable table column is sorted by
+     */
+    public Map<TableColumn<Student, ?>, String> getSortColumns() {
+        return sortColumns;
+    }
+
     public TextField getSearchField() {
         return searchField;
     }
@@ -0,0 +1,48 @@
+-- ============================================
+-- V1: Indexes for the application's queries
+-- ============================================
+-- Applies to a database created by University_exam_db.sql.
+-- The indexes are built in place without blocking reads and writes,
+-- and redundant indexes are only dropped once their replacements exist.
+-- The teacher statements below are the exception, see their comment.
+
+-- Teachers reference departments by ID instead of by name
+-- Making the column NOT NULL and adding the foreign key copies the teacher table,
+-- which blocks writes to it until the copy is done. The table is small, so this
+-- only takes a moment, but the migration should run while nobody edits teachers.
+ALTER TABLE teacher ADD COLUMN department_id INT NULL AFTER last_name;
+
+UPDATE teacher AS t
+    INNER JOIN department AS d ON t.department = d.name
+SET t.department_id = d.id;
+
+ALTER TABLE teacher
+    MODIFY department_id INT NOT NULL,
+    ADD CONSTRAINT fk_teacher_department FOREIGN KEY (department_id) REFERENCES department(id);
+
+ALTER TABLE teacher
+    DROP FOREIGN KEY teacher_ibfk_1,
+    DROP COLUMN department;
+
+-- Course reports: exams of a course, filtered on grade
+-- Covers every selected column, so the report is read from the index alone
+CREATE INDEX idx_exam_course_grade ON exam (course_id, grade, student_id, exam_date) ALGORITHM=INPLACE LOCK=NONE;
+
+-- Exams of a student, found by joining with the student's email
+CREATE INDEX idx_exam_student_date ON exam (student_id, exam_date, course_id, grade) ALGORITHM=INPLACE LOCK=NONE;
+
+-- Exam table searches on grade, read in ID order
+CREATE INDEX idx_exam_grade ON exam (grade) ALGORITHM=INPLACE LOCK=NONE;
+
+-- The foreign keys on exam can now use the indexes above
+ALTER TABLE exam
+    DROP INDEX student_id,
+    DROP INDEX course_id,
+    ALGORITHM=INPLACE, LOCK=NONE;
+
+-- Student table searches on name prefixes
+CREATE INDEX idx_student_first_name ON student (first_name) ALGORITHM=INPLACE LOCK=NONE;
+CREATE INDEX idx_student_last_name ON student (last_name) ALGORITHM=INPLACE LOCK=NONE;
+
+-- Student table searches on words anywhere in a name or email
+CREATE FULLTEXT INDEX ft_student_search ON student (first_name, last_name, email);
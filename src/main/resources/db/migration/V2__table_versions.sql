@@ -0,0 +1,49 @@
+-- ============================================
+-- V2: Change versions for cached tables
+-- ============================================
+-- Every insert, update and delete increments the table's version,
+-- so the application can tell whether its cached rows are still up to date
+-- by reading this small table instead of the tables themselves.
+
+CREATE TABLE table_version (
+    table_name VARCHAR(64) PRIMARY KEY,
+    version BIGINT NOT NULL DEFAULT 0
+);
+
+INSERT INTO table_version (table_name) VALUES
+('department'),
+('teacher'),
+('student'),
+('course');
+
+-- department
+CREATE TRIGGER trg_department_insert_version AFTER INSERT ON department FOR EACH ROW
+    UPDATE table_version SET version = version + 1 WHERE table_name = 'department';
+CREATE TRIGGER trg_department_update_version AFTER UPDATE ON department FOR EACH ROW
+    UPDATE table_version SET version = version + 1 WHERE table_name = 'department';
+CREATE TRIGGER trg_department_delete_version AFTER DELETE ON department FOR EACH ROW
+    UPDATE table_version SET version = version + 1 WHERE table_name = 'department';
+
+-- teacher
+CREATE TRIGGER trg_teacher_insert_version AFTER INSERT ON teacher FOR EACH ROW
+    UPDATE table_version SET version = version + 1 WHERE table_name = 'teacher';
+CREATE TRIGGER trg_teacher_update_version AFTER UPDATE ON teacher FOR EACH ROW
+    UPDATE table_version SET version = version + 1 WHERE table_name = 'teacher';
+CREATE TRIGGER trg_teacher_delete_version AFTER DELETE ON teacher FOR EACH ROW
+    UPDATE table_version SET version = version + 1 WHERE table_name = 'teacher';
+
+-- student
+CREATE TRIGGER trg_student_insert_version AFTER INSERT ON student FOR EACH ROW
+    UPDATE table_version SET version = version + 1 WHERE table_name = 'student';
+CREATE TRIGGER trg_student_update_version AFTER UPDATE ON student FOR EACH ROW
+    UPDATE table_version SET version = version + 1 WHERE table_name = 'student';
+CREATE TRIGGER trg_student_delete_version AFTER DELETE ON student FOR EACH ROW
+    UPDATE table_version SET version = version + 1 WHERE table_name = 'student';
+
+-- course
+CREATE TRIGGER trg_course_insert_version AFTER INSERT ON course FOR EACH ROW
+    UPDATE table_version SET version = version + 1 WHERE table_name = 'course';
+CREATE TRIGGER trg_course_update_version AFTER UPDATE ON course FOR EACH ROW
+    UPDATE table_version SET version = version + 1 WHERE table_name = 'course';
+CREATE TRIGGER trg_course_delete_version AFTER DELETE ON course FOR EACH ROW
+    UPDATE table_version SET version = version + 1 WHERE table_name = 'course';